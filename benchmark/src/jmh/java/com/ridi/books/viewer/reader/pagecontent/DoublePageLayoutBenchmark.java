@@ -0,0 +1,68 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// 두 페이지 보기에서 전체 spread를 한 번 훑는 비용 (썸네일 목록, 스크롤바 계산 등이 이렇게 씀)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class DoublePageLayoutBenchmark {
+    @Param({"10", "500", "20000"})
+    public int singleCount;
+
+    @Param({"false", "true"})
+    public boolean reverseMode;
+
+    private SizeF[] sizes;
+
+    @Setup
+    public void setUp() {
+        sizes = new SizeF[singleCount];
+        for (int i = 0; i < singleCount; i++) {
+            // 판형이 섞인 책: 가끔 가로로 긴 펼침면 이미지가 끼어 있음
+            sizes[i] = i % 37 == 0 ? new SizeF(2480, 1754) : new SizeF(1240, 1754);
+        }
+    }
+
+    @Benchmark
+    public void mapIndices(Blackhole blackhole) {
+        int count = DoublePageLayout.getPageContentCount(singleCount, true);
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(DoublePageLayout.getLeftPageIndex(i, reverseMode, true));
+            blackhole.consume(DoublePageLayout.getRightPageIndex(i, reverseMode, true));
+        }
+    }
+
+    @Benchmark
+    public void combineSizes(Blackhole blackhole) {
+        int count = DoublePageLayout.getPageContentCount(singleCount, true);
+        for (int i = 0; i < count; i++) {
+            int left = DoublePageLayout.getLeftPageIndex(i, reverseMode, true);
+            int right = DoublePageLayout.getRightPageIndex(i, reverseMode, true);
+            SizeF leftSize = left >= 0 && left < singleCount ? sizes[left] : null;
+            SizeF rightSize = right >= 0 && right < singleCount ? sizes[right] : null;
+            blackhole.consume(DoublePageLayout.combineSizes(leftSize, rightSize, true,
+                    DoublePageSizePolicy.Presets.LARGER_FIT));
+        }
+    }
+
+    @Benchmark
+    public void splitRegions(Blackhole blackhole) {
+        SizeF leftSize = sizes[0];
+        SizeF rightSize = sizes[Math.min(1, singleCount - 1)];
+        SizeF size = DoublePageSizePolicy.Presets.SMALLER_FIT.computeSize(leftSize, rightSize);
+        // 확대한 상태에서 화면 크기의 HQ 패치가 가운데 접힌 부분을 가로지르며 움직이는 경우
+        int pageWidth = 2160 * 3, pageHeight = 1536 * 3;
+        for (int x = 0; x < pageWidth - 2160; x += pageWidth / 64) {
+            blackhole.consume(DoublePageLayout.split(size, leftSize, rightSize,
+                    2160, 1536, -x, -pageHeight / 3, pageWidth, pageHeight));
+        }
+        blackhole.consume(DoublePageLayout.getRightPageOffset(leftSize));
+    }
+}
@@ -0,0 +1,69 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// 스크롤 모드에서 매 프레임 불리는 계산들, 페이지 수에 비례하는 것은 getFlexibleScrollExtent 뿐이어야 함
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class ScrollGeometryBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int PAGE_GAP = 16;
+
+    @Param({"10", "500", "20000"})
+    public int pageCount;
+
+    @Param({"PAGE", "WIDTH"})
+    public FitPolicy.Presets fitPolicy;
+
+    private ScrollGeometry.PageSizes pageSizes;
+    private int currentIndex;
+
+    @Setup
+    public void setUp() {
+        final SizeF[] sizes = new SizeF[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            // 웹툰처럼 페이지마다 세로 길이가 다름
+            sizes[i] = new SizeF(720, 1200 + (i * 7919) % 3000);
+        }
+        pageSizes = new ScrollGeometry.PageSizes() {
+            @Override
+            public SizeF getPageContentSize(int index) {
+                return sizes[index];
+            }
+        };
+        currentIndex = pageCount / 2;
+    }
+
+    @Benchmark
+    public void flexibleScrollBar(Blackhole blackhole) {
+        long[] extent = ScrollGeometry.getFlexibleScrollExtent(pageSizes, fitPolicy, pageCount, currentIndex,
+                WIDTH, HEIGHT, 1.0f, PAGE_GAP, -300);
+        blackhole.consume(ScrollGeometry.getScrollBarThumb(extent[0], extent[1], HEIGHT, 5));
+    }
+
+    @Benchmark
+    public void uniformScrollBar(Blackhole blackhole) {
+        long[] extent = ScrollGeometry.getUniformScrollExtent(pageCount, currentIndex, false, 0,
+                HEIGHT, 1.0f, PAGE_GAP, -300);
+        blackhole.consume(ScrollGeometry.getScrollBarThumb(extent[0], extent[1], HEIGHT, 5));
+    }
+
+    @Benchmark
+    public void boundsAndCorrection(Blackhole blackhole) {
+        // 한 프레임의 doLayout이 붙어 있는 view 수만큼 부르는 것을 흉내냄
+        for (int i = 0; i < 8; i++) {
+            int top = -300 + i * (HEIGHT + PAGE_GAP);
+            int[] bounds = ScrollGeometry.getScrollBounds(WIDTH, HEIGHT, 0, top, WIDTH, top + HEIGHT * 2, true);
+            blackhole.consume(ScrollGeometry.getCorrection(bounds[0], bounds[2]));
+            blackhole.consume(ScrollGeometry.getCorrection(bounds[1], bounds[3]));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.content.ComponentCallbacks2;
+import android.os.SystemClock;
+
+// 실제 렌더링 시간, 페이지를 넘기는 간격, 메모리 상황을 보고 미리 읽을 페이지 수, 미리 그려둘 bitmap의 메모리 예산,
+// HQ patch의 해상도를 정함, PageContentReaderView.setAdaptiveRenderController()로 붙여서 씀
+// 각 값은 setter로 정한 범위 안에서만 움직이며, 지금 어떤 값을 왜 골랐는지는 getDecisions()로 볼 수 있음
+public class AdaptiveRenderController {
+    public static final int PRESSURE_NONE       = 0;
+    public static final int PRESSURE_MODERATE   = 1;
+    public static final int PRESSURE_HIGH       = 2;
+
+    private static final float SMOOTHING            = 0.3f;
+    private static final long MAX_TURN_INTERVAL     = 30000;    // 이보다 길면 읽다가 쉰 것으로 보고 무시
+    private static final long TRIM_PRESSURE_MILLIS  = 30000;    // onTrimMemory를 받은 뒤 압박으로 보는 시간
+    private static final float MODERATE_HEADROOM    = 0.3f;
+    private static final float HIGH_HEADROOM        = 0.15f;
+    private static final long SLOW_RENDER_MILLIS    = RenderScheduler.EXPENSIVE_RENDER_MILLIS;
+    private static final int DEFAULT_LOOK_AHEAD     = 2;
+
+    private int minLookAhead = 1;
+    private int maxLookAhead = 6;
+    private long minCacheBytes = Runtime.getRuntime().maxMemory() / 64;
+    private long maxCacheBytes = RenderScheduler.MAX_PREFETCHED_BYTES;
+    private float minHighQualityScale = 0.5f;
+    private float maxHighQualityScale = 1.0f;
+
+    // 렌더링 스레드에서도 기록되므로 this로 동기화
+    private float renderMillis = -1;
+    private float turnIntervalMillis = -1;
+    private long lastTurnTime;
+    private int lastTrimLevel;
+    private long lastTrimTime;
+
+    private Decisions decisions = new Decisions(DEFAULT_LOOK_AHEAD, maxCacheBytes, maxHighQualityScale,
+            PRESSURE_NONE, -1, -1, 1.0f);
+
+    public synchronized void setLookAheadRange(int min, int max) {
+        minLookAhead = Math.max(min, 0);
+        maxLookAhead = Math.max(max, minLookAhead);
+    }
+
+    public synchronized void setCacheBudgetRange(long minBytes, long maxBytes) {
+        minCacheBytes = Math.max(minBytes, 0);
+        maxCacheBytes = Math.max(maxBytes, minCacheBytes);
+    }
+
+    public synchronized void setHighQualityScaleRange(float min, float max) {
+        maxHighQualityScale = Math.min(Math.max(max, 0.1f), 1.0f);
+        minHighQualityScale = Math.min(Math.max(min, 0.1f), maxHighQualityScale);
+    }
+
+    public synchronized Decisions getDecisions() {
+        return decisions;
+    }
+
+    // 화면 크기 일반 렌더링 한 번에 걸린 시간
+    synchronized void onRenderCost(long millis) {
+        renderMillis = renderMillis < 0 ? millis : renderMillis + (millis - renderMillis) * SMOOTHING;
+    }
+
+    synchronized void onPageTurn() {
+        long now = SystemClock.uptimeMillis();
+        long interval = now - lastTurnTime;
+        if (lastTurnTime != 0 && interval < MAX_TURN_INTERVAL) {
+            turnIntervalMillis = turnIntervalMillis < 0 ? interval
+                    : turnIntervalMillis + (interval - turnIntervalMillis) * SMOOTHING;
+        }
+        lastTurnTime = now;
+    }
+
+    synchronized void onTrimMemory(int level) {
+        lastTrimLevel = level;
+        lastTrimTime = SystemClock.uptimeMillis();
+    }
+
+    // 새 결정을 만듦, 미리 읽을 페이지 수나 예산, HQ 해상도가 이전과 달라졌으면 true
+    synchronized boolean update() {
+        float headroom = measureHeapHeadroom();
+        int pressure = computePressure(headroom);
+
+        int lookAhead = DEFAULT_LOOK_AHEAD;
+        if (renderMillis >= 0 && turnIntervalMillis > 0) {
+            // 다음 페이지에 닿기 전에 렌더링이 끝나려면 몇 페이지 앞부터 시작해야 하는지
+            lookAhead = (int) Math.ceil(renderMillis / turnIntervalMillis) + 1;
+        }
+        if (pressure == PRESSURE_HIGH) {
+            lookAhead = minLookAhead;
+        } else if (pressure == PRESSURE_MODERATE) {
+            lookAhead = Math.min(lookAhead, (minLookAhead + maxLookAhead) / 2);
+        }
+        lookAhead = Math.min(Math.max(lookAhead, minLookAhead), maxLookAhead);
+
+        long cacheBytes = pressure == PRESSURE_HIGH ? minCacheBytes
+                : pressure == PRESSURE_MODERATE ? (minCacheBytes + maxCacheBytes) / 2 : maxCacheBytes;
+
+        float highQualityScale = maxHighQualityScale;
+        if (pressure == PRESSURE_HIGH) {
+            highQualityScale = minHighQualityScale;
+        } else if (pressure == PRESSURE_MODERATE || renderMillis > SLOW_RENDER_MILLIS) {
+            highQualityScale = (minHighQualityScale + maxHighQualityScale) / 2;
+        }
+
+        Decisions updated = new Decisions(lookAhead, cacheBytes, highQualityScale, pressure,
+                renderMillis, turnIntervalMillis, headroom);
+        boolean changed = !updated.sameAs(decisions);
+        decisions = updated;
+        return changed;
+    }
+
+    // 최대 heap 중 아직 쓰지 않은 비율, 테스트에서는 override해서 압박 상황을 만듦
+    float measureHeapHeadroom() {
+        Runtime runtime = Runtime.getRuntime();
+        long maxMemory = runtime.maxMemory();
+        return (float) (maxMemory - (runtime.totalMemory() - runtime.freeMemory())) / maxMemory;
+    }
+
+    // 앱이 보이는 동안의 RUNNING_LOW, RUNNING_CRITICAL과 백그라운드에서의 MODERATE 이상은 심각으로 봄
+    private int computePressure(float headroom) {
+        boolean trimmed = lastTrimTime != 0 && SystemClock.uptimeMillis() - lastTrimTime < TRIM_PRESSURE_MILLIS;
+        if (headroom < HIGH_HEADROOM
+                || (trimmed && lastTrimLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                        && lastTrimLevel < ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+                || (trimmed && lastTrimLevel >= ComponentCallbacks2.TRIM_MEMORY_MODERATE)) {
+            return PRESSURE_HIGH;
+        }
+        if (headroom < MODERATE_HEADROOM || trimmed) {
+            return PRESSURE_MODERATE;
+        }
+        return PRESSURE_NONE;
+    }
+
+    // 진단용으로 내보내는 현재 결정과 그 근거
+    public static class Decisions {
+        private final int lookAhead;
+        private final long cacheBudgetBytes;
+        private final float highQualityScale;
+        private final int memoryPressure;
+        private final float renderMillis;
+        private final float turnIntervalMillis;
+        private final float heapHeadroom;
+
+        Decisions(int lookAhead, long cacheBudgetBytes, float highQualityScale, int memoryPressure,
+                  float renderMillis, float turnIntervalMillis, float heapHeadroom) {
+            this.lookAhead = lookAhead;
+            this.cacheBudgetBytes = cacheBudgetBytes;
+            this.highQualityScale = highQualityScale;
+            this.memoryPressure = memoryPressure;
+            this.renderMillis = renderMillis;
+            this.turnIntervalMillis = turnIntervalMillis;
+            this.heapHeadroom = heapHeadroom;
+        }
+
+        // 화면에 붙은 범위 앞뒤로 미리 읽고 그려둘 페이지 수
+        public int getLookAhead() {
+            return lookAhead;
+        }
+
+        // 미리 그려둔 bitmap이 쓸 수 있는 메모리
+        public long getCacheBudgetBytes() {
+            return cacheBudgetBytes;
+        }
+
+        // HQ patch를 화면 해상도의 몇 배로 그릴지, 1이면 화면 해상도 그대로
+        public float getHighQualityScale() {
+            return highQualityScale;
+        }
+
+        // PRESSURE_* 중 하나
+        public int getMemoryPressure() {
+            return memoryPressure;
+        }
+
+        // 아직 재지 못했으면 음수
+        public float getRenderMillis() {
+            return renderMillis;
+        }
+
+        public float getTurnIntervalMillis() {
+            return turnIntervalMillis;
+        }
+
+        // 최대 heap 중 아직 쓰지 않은 비율
+        public float getHeapHeadroom() {
+            return heapHeadroom;
+        }
+
+        boolean sameAs(Decisions other) {
+            return lookAhead == other.lookAhead && cacheBudgetBytes == other.cacheBudgetBytes
+                    && highQualityScale == other.highQualityScale;
+        }
+
+        @Override
+        public String toString() {
+            return "lookAhead=" + lookAhead + ", cacheBudget=" + (cacheBudgetBytes >> 10) + "KB"
+                    + ", hqScale=" + highQualityScale + ", memoryPressure=" + memoryPressure
+                    + ", render=" + Math.round(renderMillis) + "ms, turnInterval=" + Math.round(turnIntervalMillis)
+                    + "ms, heapHeadroom=" + Math.round(heapHeadroom * 100) + "%";
+        }
+    }
+}
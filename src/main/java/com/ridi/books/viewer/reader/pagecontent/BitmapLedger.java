@@ -0,0 +1,152 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// 렌더링 파이프라인이 만든 bitmap을 어디서(origin) 어느 페이지용으로 만들었는지 기록해 두는 장부
+// OOM이 났을 때 어느 경로가 메모리를 들고 있는지, view에서 떼어낸 뒤에도 살아남은 bitmap이 있는지 알아볼 때 씀
+// 기본은 꺼져 있으며, bitmap은 weak reference로만 들고 있으므로 장부 때문에 해제가 늦어지지는 않음
+public final class BitmapLedger {
+    public static final int ORIGIN_FULL           = 0;
+    public static final int ORIGIN_DRAFT          = 1;
+    public static final int ORIGIN_SLICE          = 2;
+    public static final int ORIGIN_HIGH_QUALITY   = 3;
+    public static final int ORIGIN_PREFETCH       = 4;
+    public static final int ORIGIN_COMPOSITE      = 5;  // DoublePageContent가 두 페이지를 합친 것
+    public static final int ORIGIN_HALF_PAGE      = 6;  // DoublePageContent가 합치기 위해 그린 한쪽 페이지
+    public static final int ORIGIN_POST_PROCESS   = 7;
+    public static final int ORIGIN_COUNT          = 8;
+
+    public static class Record {
+        public final int origin;
+        public final int index;
+        public final int width;
+        public final int height;
+        public final long bytes;
+        public final long allocatedAt;  // SystemClock.uptimeMillis() 기준
+        public final long detachedAt;   // view에서 떼어낸 시각, 아직 붙어 있거나 붙은 적이 없으면 0
+
+        Record(int origin, int index, int width, int height, long bytes, long allocatedAt, long detachedAt) {
+            this.origin = origin;
+            this.index = index;
+            this.width = width;
+            this.height = height;
+            this.bytes = bytes;
+            this.allocatedAt = allocatedAt;
+            this.detachedAt = detachedAt;
+        }
+
+        Record withDetachedAt(long detachedAt) {
+            return new Record(origin, index, width, height, bytes, allocatedAt, detachedAt);
+        }
+    }
+
+    private static final Map<Bitmap, Record> records = new WeakHashMap<>();
+    private static volatile boolean enabled;
+
+    private BitmapLedger() {
+    }
+
+    // 끄면 지금까지의 기록도 지움
+    public static void setEnabled(boolean enabled) {
+        BitmapLedger.enabled = enabled;
+        if (!enabled) {
+            synchronized (records) {
+                records.clear();
+            }
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // 아직 recycle 되지도, GC 되지도 않은 bitmap의 바이트 수를 origin별로 합한 것, 배열의 index가 ORIGIN_*
+    public static long[] getLiveBytesByOrigin() {
+        long[] bytes = new long[ORIGIN_COUNT];
+        synchronized (records) {
+            pruneRecycled();
+            for (Record record : records.values()) {
+                bytes[record.origin] += record.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    // view에서 떼어낸 지 minAgeMillis 이상 지났는데도 아직 recycle, GC 되지 않은 bitmap
+    // 정확히 보려면 System.gc() 이후에 부름
+    public static List<Record> getDetachedSurvivors(long minAgeMillis) {
+        long now = SystemClock.uptimeMillis();
+        List<Record> survivors = new ArrayList<>();
+        synchronized (records) {
+            pruneRecycled();
+            for (Record record : records.values()) {
+                if (record.detachedAt != 0 && now - record.detachedAt >= minAgeMillis) {
+                    survivors.add(record);
+                }
+            }
+        }
+        return survivors;
+    }
+
+    static void record(Bitmap bitmap, int origin, int index) {
+        if (!enabled || bitmap == null) {
+            return;
+        }
+        synchronized (records) {
+            // DoublePageContent처럼 안쪽에서 먼저 기록한 origin이 더 구체적임
+            if (!records.containsKey(bitmap)) {
+                records.put(bitmap, new Record(origin, index, bitmap.getWidth(), bitmap.getHeight(),
+                        bitmap.getByteCount(), SystemClock.uptimeMillis(), 0));
+            }
+        }
+    }
+
+    static void recordCopy(Bitmap original, Bitmap copy) {
+        if (!enabled || original == null || copy == null) {
+            return;
+        }
+        synchronized (records) {
+            Record record = records.get(original);
+            if (record != null) {
+                records.put(copy, new Record(record.origin, record.index, copy.getWidth(), copy.getHeight(),
+                        copy.getByteCount(), SystemClock.uptimeMillis(), 0));
+            }
+        }
+    }
+
+    static void markAttached(Bitmap bitmap) {
+        setDetachedAt(bitmap, 0);
+    }
+
+    static void markDetached(Bitmap bitmap) {
+        setDetachedAt(bitmap, SystemClock.uptimeMillis());
+    }
+
+    private static void setDetachedAt(Bitmap bitmap, long detachedAt) {
+        if (!enabled || bitmap == null) {
+            return;
+        }
+        synchronized (records) {
+            Record record = records.get(bitmap);
+            if (record != null && record.detachedAt != detachedAt) {
+                records.put(bitmap, record.withDetachedAt(detachedAt));
+            }
+        }
+    }
+
+    private static void pruneRecycled() {
+        for (Iterator<Bitmap> iterator = records.keySet().iterator(); iterator.hasNext(); ) {
+            Bitmap bitmap = iterator.next();
+            if (bitmap == null || bitmap.isRecycled()) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 불러온 PageContent를 LRU로 들고 있어서 두 페이지를 오가도 다시 파싱하지 않도록 하는 provider
+// 사용 중인(release되지 않은) PageContent는 내보내지 않고, 내보낼 때 원래 provider에 돌려주거나 release함
+// 감싼 provider의 streaming, viewport 통지는 그대로 전달하므로 다른 provider를 감싸는 가장 바깥에 두면 됨
+public class CachedPageContentProvider
+        implements ReleasablePageContentProvider, RenderCostAwarePageContentProvider,
+                   StreamingPageContentProvider, ViewportAwarePageContentProvider {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final PageContentProvider provider;
+    private int capacity;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Entry> detachedEntries = new ArrayList<>();  // invalidate 되었지만 아직 사용 중인 것들
+    private long hitCount;
+    private long missCount;
+
+    public CachedPageContentProvider(PageContentProvider provider) {
+        this(provider, DEFAULT_CAPACITY);
+    }
+
+    public CachedPageContentProvider(PageContentProvider provider, int capacity) {
+        this.provider = provider;
+        this.capacity = capacity;
+    }
+
+    public PageContentProvider getProvider() {
+        return provider;
+    }
+
+    public void setCapacity(int capacity) {
+        List<Entry> evicted;
+        synchronized (this) {
+            this.capacity = capacity;
+            evicted = trim();
+        }
+        releaseAll(evicted);
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    // getPageContent()가 cache에서 바로 돌려준 횟수와 원래 provider에서 불러온 횟수
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void resetCounts() {
+        hitCount = missCount = 0;
+    }
+
+    public synchronized boolean isCached(int index) {
+        return entries.containsKey(index);
+    }
+
+    @Override
+    public int getPageContentCount() {
+        return provider.getPageContentCount();
+    }
+
+    @Override
+    public SizeF getPageContentSize(int index) {
+        return provider.getPageContentSize(index);
+    }
+
+    @Override
+    public long getEstimatedRenderMillis(int index) {
+        return RenderCostEstimator.estimate(provider, index, null);
+    }
+
+    // 감싼 provider가 streaming이 아니면 모든 페이지를 이미 받은 것으로 봄
+    @Override
+    public int getExpectedPageContentCount() {
+        if (provider instanceof StreamingPageContentProvider) {
+            return ((StreamingPageContentProvider) provider).getExpectedPageContentCount();
+        }
+        return provider.getPageContentCount();
+    }
+
+    @Override
+    public int getAvailablePageContentCount() {
+        if (provider instanceof StreamingPageContentProvider) {
+            return ((StreamingPageContentProvider) provider).getAvailablePageContentCount();
+        }
+        return provider.getPageContentCount();
+    }
+
+    @Override
+    public boolean isPageContentAvailable(int index) {
+        return !(provider instanceof StreamingPageContentProvider)
+                || ((StreamingPageContentProvider) provider).isPageContentAvailable(index);
+    }
+
+    @Override
+    public void onViewportChanged(int firstIndex, int lastIndex) {
+        if (provider instanceof ViewportAwarePageContentProvider) {
+            ((ViewportAwarePageContentProvider) provider).onViewportChanged(firstIndex, lastIndex);
+        }
+    }
+
+    @Override
+    public PageContent getPageContent(int index) {
+        synchronized (this) {
+            Entry entry = entries.get(index);
+            if (entry != null) {
+                entry.refCount++;
+                hitCount++;
+                return entry.pageContent;
+            }
+            missCount++;
+        }
+
+        PageContent pageContent = provider.getPageContent(index);
+        if (pageContent == null) {
+            return null;
+        }
+
+        PageContent duplicated = null;
+        List<Entry> evicted;
+        synchronized (this) {
+            Entry entry = entries.get(index);
+            if (entry != null) {
+                // Loaded concurrently by another thread, keep the one already cached
+                duplicated = pageContent;
+                pageContent = entry.pageContent;
+            } else {
+                entry = new Entry(index, pageContent);
+                entries.put(index, entry);
+            }
+            entry.refCount++;
+            evicted = trim();
+        }
+
+        PageContentReleaser.release(provider, index, duplicated);
+        releaseAll(evicted);
+        return pageContent;
+    }
+
+    @Override
+    public void releasePageContent(int index, PageContent pageContent) {
+        boolean cached = false;
+        List<Entry> evicted;
+        synchronized (this) {
+            Entry entry = findEntry(index, pageContent);
+            if (entry != null) {
+                entry.refCount = Math.max(entry.refCount - 1, 0);
+                cached = true;
+            }
+            evicted = trim();
+        }
+
+        if (!cached) {
+            Entry detached = null;
+            synchronized (this) {
+                for (Entry entry : detachedEntries) {
+                    if (entry.pageContent == pageContent) {
+                        detached = entry;
+                        break;
+                    }
+                }
+                if (detached != null && --detached.refCount > 0) {
+                    detached = null;
+                } else if (detached != null) {
+                    detachedEntries.remove(detached);
+                }
+            }
+            if (detached != null) {
+                PageContentReleaser.release(provider, detached.index, detached.pageContent);
+            } else {
+                PageContentReleaser.release(provider, index, pageContent);
+            }
+        }
+        releaseAll(evicted);
+    }
+
+    // 사용하지 않고 cache에만 올려둠, 백그라운드 스레드에서 호출해야 함
+    @WorkerThread
+    public void prefetch(int index) {
+        PageContent pageContent = getPageContent(index);
+        if (pageContent != null) {
+            releasePageContent(index, pageContent);
+        }
+    }
+
+    // 페이지가 추가/삭제되어 index가 밀린 뒤에 돌려받는 경우를 위해 index가 다르면 PageContent로 찾음
+    private Entry findEntry(int index, PageContent pageContent) {
+        Entry entry = entries.get(index);
+        if (entry != null && entry.pageContent == pageContent) {
+            return entry;
+        }
+        for (Entry candidate : entries.values()) {
+            if (candidate.pageContent == pageContent) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // index의 내용이 바뀌었을 때 호출, 사용 중이면 모두 release된 뒤에 해제함
+    public void invalidate(int index) {
+        Entry removed;
+        synchronized (this) {
+            removed = entries.remove(index);
+            if (removed != null && removed.refCount > 0) {
+                detachedEntries.add(removed);
+                removed = null;
+            }
+        }
+        if (removed != null) {
+            PageContentReleaser.release(provider, removed.index, removed.pageContent);
+        }
+    }
+
+    // start 이후의 index를 delta만큼 옮김 (페이지 추가는 양수, 삭제는 음수)
+    public void shiftIndices(int start, int delta) {
+        synchronized (this) {
+            LinkedHashMap<Integer, Entry> shifted = new LinkedHashMap<>(16, 0.75f, true);
+            for (Entry entry : entries.values()) {
+                if (entry.index >= start) {
+                    Entry moved = new Entry(entry.index + delta, entry.pageContent);
+                    moved.refCount = entry.refCount;
+                    entry = moved;
+                }
+                shifted.put(entry.index, entry);
+            }
+            entries.clear();
+            entries.putAll(shifted);
+        }
+    }
+
+    // 사용 중이지 않은 PageContent를 모두 해제함
+    public void evictAll() {
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                if (entry.refCount == 0) {
+                    iterator.remove();
+                    evicted.add(entry);
+                }
+            }
+        }
+        releaseAll(evicted);
+    }
+
+    private List<Entry> trim() {
+        List<Entry> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.refCount == 0) {
+                iterator.remove();
+                evicted.add(entry);
+            }
+        }
+        return evicted;
+    }
+
+    private void releaseAll(List<Entry> evicted) {
+        for (Entry entry : evicted) {
+            PageContentReleaser.release(provider, entry.index, entry.pageContent);
+        }
+    }
+
+    private static class Entry {
+        final int index;
+        final PageContent pageContent;
+        int refCount;
+
+        Entry(int index, PageContent pageContent) {
+            this.index = index;
+            this.pageContent = pageContent;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.os.AsyncTask;
+import android.support.annotation.WorkerThread;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// 여러 권으로 나뉜 시리즈를 하나의 index 공간으로 이어서 보여주는 provider
+// 각 권의 문서는 그 범위가 viewport 근처에 올 때에만 열고, 멀어지면 닫음
+public class CompositePageContentProvider
+        implements ReleasablePageContentProvider, ViewportAwarePageContentProvider,
+                   RenderCostAwarePageContentProvider {
+    private static final int DEFAULT_KEEP_DISTANCE = 10;
+
+    public interface Volume {
+        // 문서를 열지 않고 알 수 있어야 함 (메타데이터 등)
+        int getPageContentCount();
+        SizeF getPageContentSize(int index);
+        @WorkerThread
+        PageContentProvider open();
+        @WorkerThread
+        void close(PageContentProvider provider);
+    }
+
+    private final VolumeState[] volumes;
+    private final int[] offsets;    // 각 권의 첫 페이지 index, 마지막 원소는 전체 페이지 수
+    private final int keepDistance;
+    private final Executor executor;    // 권을 미리 열고 닫는 작업을 실행함
+    // 안쪽 provider가 cache라면 같은 PageContent가 여러 번 나갈 수 있으므로 나간 횟수도 셈
+    private final Map<PageContent, ContentOwner> contentVolumes = new IdentityHashMap<>();
+    private volatile int viewportFirst = PageContentView.NO_INDEX;
+    private volatile int viewportLast = PageContentView.NO_INDEX;
+
+    public CompositePageContentProvider(List<Volume> volumes) {
+        this(volumes, DEFAULT_KEEP_DISTANCE);
+    }
+
+    // keepDistance: viewport에서 이 페이지 수 이내에 걸치는 권은 열어둠
+    // 권을 열고 닫는 작업은 AsyncTask.THREAD_POOL_EXECUTOR에서 실행되므로 앱의 다른 AsyncTask와 스레드를 나눠 씀
+    public CompositePageContentProvider(List<Volume> volumes, int keepDistance) {
+        this(volumes, keepDistance, AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    // executor: 열고 닫는 작업을 실행할 곳, 문서를 여는 데 오래 걸리면 전용 스레드를 주는 것이 좋음
+    public CompositePageContentProvider(List<Volume> volumes, int keepDistance, Executor executor) {
+        this.executor = executor;
+        this.volumes = new VolumeState[volumes.size()];
+        this.offsets = new int[volumes.size() + 1];
+        this.keepDistance = keepDistance;
+        for (int i = 0; i < volumes.size(); i++) {
+            this.volumes[i] = new VolumeState(volumes.get(i));
+            offsets[i + 1] = offsets[i] + volumes.get(i).getPageContentCount();
+        }
+    }
+
+    public int getVolumeIndex(int index) {
+        int low = 0, high = volumes.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public int getFirstIndexOfVolume(int volumeIndex) {
+        return offsets[volumeIndex];
+    }
+
+    @Override
+    public int getPageContentCount() {
+        return offsets[volumes.length];
+    }
+
+    @Override
+    public SizeF getPageContentSize(int index) {
+        if (index < 0 || index >= getPageContentCount()) {
+            return null;
+        }
+        int volumeIndex = getVolumeIndex(index);
+        return volumes[volumeIndex].volume.getPageContentSize(index - offsets[volumeIndex]);
+    }
+
+    // 아직 열리지 않은 volume은 모름
+    // UI 스레드에서 불리므로 state의 lock을 잡지 않고 지금 열려 있는 provider에 물어봄
+    @Override
+    public long getEstimatedRenderMillis(int index) {
+        if (index < 0 || index >= getPageContentCount()) {
+            return UNKNOWN_COST;
+        }
+        int volumeIndex = getVolumeIndex(index);
+        PageContentProvider provider = volumes[volumeIndex].provider;
+        return RenderCostEstimator.estimate(provider, index - offsets[volumeIndex], null);
+    }
+
+    @Override
+    public PageContent getPageContent(int index) {
+        if (index < 0 || index >= getPageContentCount()) {
+            return null;
+        }
+
+        int volumeIndex = getVolumeIndex(index);
+        VolumeState state = volumes[volumeIndex];
+        PageContentProvider provider = acquire(state);
+        if (provider == null) {
+            return null;
+        }
+
+        PageContent pageContent = provider.getPageContent(index - offsets[volumeIndex]);
+        if (pageContent == null) {
+            unuse(volumeIndex);
+            return null;
+        }
+
+        synchronized (contentVolumes) {
+            ContentOwner owner = contentVolumes.get(pageContent);
+            if (owner == null) {
+                owner = new ContentOwner(state);
+                contentVolumes.put(pageContent, owner);
+            }
+            owner.count++;
+        }
+        return pageContent;
+    }
+
+    // 열려 있지 않으면 이 스레드에서 열고, 다른 스레드가 여는 중이면 기다림
+    // 여는 동안 state의 lock을 잡고 있지 않으므로 UI 스레드의 onViewportChanged()가 막히지 않음
+    @WorkerThread
+    private PageContentProvider acquire(VolumeState state) {
+        synchronized (state) {
+            while (state.opening) {
+                try {
+                    state.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            if (state.provider != null) {
+                state.refCount++;
+                return state.provider;
+            }
+            state.opening = true;
+        }
+
+        PageContentProvider provider = null;
+        try {
+            provider = state.volume.open();
+        } finally {
+            synchronized (state) {
+                state.provider = provider;
+                state.opening = false;
+                if (provider != null) {
+                    state.refCount++;
+                }
+                state.notifyAll();
+            }
+        }
+        return provider;
+    }
+
+    private void unuse(int volumeIndex) {
+        VolumeState state = volumes[volumeIndex];
+        PageContentProvider closing;
+        synchronized (state) {
+            state.refCount--;
+            closing = detachIfFar(volumeIndex);
+        }
+        closeInBackground(state, closing);
+    }
+
+    @Override
+    public void releasePageContent(int index, PageContent pageContent) {
+        VolumeState state;
+        synchronized (contentVolumes) {
+            ContentOwner owner = contentVolumes.get(pageContent);
+            if (owner == null) {
+                return;
+            }
+            if (--owner.count == 0) {
+                contentVolumes.remove(pageContent);
+            }
+            state = owner.state;
+        }
+
+        int volumeIndex = indexOf(state);
+        PageContentProvider provider;
+        synchronized (state) {
+            // refCount가 남아 있는 동안에는 닫히지 않음
+            provider = state.provider;
+        }
+        // 돌려준 뒤에야 refCount를 줄여서, 돌려주는 도중에 문서가 닫히지 않도록 함
+        PageContentReleaser.release(provider, index - offsets[volumeIndex], pageContent);
+        unuse(volumeIndex);
+    }
+
+    @Override
+    public void onViewportChanged(int firstIndex, int lastIndex) {
+        viewportFirst = firstIndex;
+        viewportLast = lastIndex;
+
+        for (int i = 0; i < volumes.length; i++) {
+            if (isNear(i)) {
+                openInBackground(i);
+            } else {
+                closeIfFar(i);
+            }
+        }
+    }
+
+    private boolean isNear(int volumeIndex) {
+        if (viewportFirst == PageContentView.NO_INDEX) {
+            return false;
+        }
+        return offsets[volumeIndex + 1] > viewportFirst - keepDistance
+                && offsets[volumeIndex] <= viewportLast + keepDistance;
+    }
+
+    private void openInBackground(int volumeIndex) {
+        final VolumeState state = volumes[volumeIndex];
+        synchronized (state) {
+            if (state.provider != null || state.opening) {
+                return;
+            }
+            state.opening = true;
+        }
+
+        final int index = volumeIndex;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                PageContentProvider provider = null;
+                try {
+                    provider = state.volume.open();
+                } finally {
+                    synchronized (state) {
+                        state.provider = provider;
+                        state.opening = false;
+                        state.notifyAll();
+                    }
+                }
+                // 여는 동안 viewport가 멀어졌을 수 있음
+                closeIfFar(index);
+            }
+        });
+    }
+
+    private void closeIfFar(int volumeIndex) {
+        VolumeState state = volumes[volumeIndex];
+        PageContentProvider closing;
+        synchronized (state) {
+            closing = detachIfFar(volumeIndex);
+        }
+        closeInBackground(state, closing);
+    }
+
+    // state의 lock을 잡고 불러야 함, 닫아야 하면 떼어낸 provider를 돌려줌
+    private PageContentProvider detachIfFar(int volumeIndex) {
+        VolumeState state = volumes[volumeIndex];
+        if (state.provider == null || state.refCount > 0 || isNear(volumeIndex)) {
+            return null;
+        }
+        PageContentProvider provider = state.provider;
+        state.provider = null;
+        return provider;
+    }
+
+    private void closeInBackground(final VolumeState state, final PageContentProvider provider) {
+        if (provider == null) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                state.volume.close(provider);
+            }
+        });
+    }
+
+    private int indexOf(VolumeState state) {
+        for (int i = 0; i < volumes.length; i++) {
+            if (volumes[i] == state) {
+                return i;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static class VolumeState {
+        final Volume volume;
+        volatile PageContentProvider provider;  // 바꿀 때에는 lock을 잡음, 읽기만 할 때는 잡지 않아도 됨
+        int refCount;
+        boolean opening;    // 어느 스레드가 lock 밖에서 여는 중
+
+        VolumeState(Volume volume) {
+            this.volume = volume;
+        }
+    }
+
+    private static class ContentOwner {
+        final VolumeState state;
+        int count;
+
+        ContentOwner(VolumeState state) {
+            this.state = state;
+        }
+    }
+}
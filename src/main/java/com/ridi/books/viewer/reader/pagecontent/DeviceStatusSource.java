@@ -0,0 +1,66 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+
+import java.lang.reflect.Method;
+
+// PageContentReaderView가 렌더링 품질과 동시 작업 수를 줄일지 정할 때 보는 기기 상태
+// 페이지가 넘어가거나 움직임이 멈출 때마다 UI 스레드에서 불리므로 바로 돌려줄 수 있어야 함
+// 테스트에서는 Platform 대신 원하는 상태를 돌려주는 구현을 넣어 쓸 수 있음
+public interface DeviceStatusSource {
+    // PowerManager.THERMAL_STATUS_* 와 같은 값
+    int THERMAL_STATUS_NONE         = 0;
+    int THERMAL_STATUS_LIGHT        = 1;
+    int THERMAL_STATUS_MODERATE     = 2;
+    int THERMAL_STATUS_SEVERE       = 3;
+    int THERMAL_STATUS_CRITICAL     = 4;
+    int THERMAL_STATUS_EMERGENCY    = 5;
+    int THERMAL_STATUS_SHUTDOWN     = 6;
+
+    int getThermalStatus();
+
+    boolean isPowerSaveMode();
+
+    // 열 상태는 API 29부터, 절전 모드는 API 21부터 알 수 있고 그 전에는 각각 NONE, false
+    class Platform implements DeviceStatusSource {
+        private final PowerManager powerManager;
+        private final Method getCurrentThermalStatus;
+
+        public Platform(Context context) {
+            powerManager = (PowerManager) context.getApplicationContext().getSystemService(Context.POWER_SERVICE);
+            getCurrentThermalStatus = findThermalStatusMethod();
+        }
+
+        // compileSdk가 28이라 API 29의 PowerManager.getCurrentThermalStatus()는 reflection으로 부름
+        private static Method findThermalStatusMethod() {
+            if (Build.VERSION.SDK_INT < 29) {
+                return null;
+            }
+            try {
+                return PowerManager.class.getMethod("getCurrentThermalStatus");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public int getThermalStatus() {
+            if (getCurrentThermalStatus == null || powerManager == null) {
+                return THERMAL_STATUS_NONE;
+            }
+            try {
+                return (Integer) getCurrentThermalStatus.invoke(powerManager);
+            } catch (Exception e) {
+                return THERMAL_STATUS_NONE;
+            }
+        }
+
+        @Override
+        public boolean isPowerSaveMode() {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                    && powerManager != null && powerManager.isPowerSaveMode();
+        }
+    }
+}
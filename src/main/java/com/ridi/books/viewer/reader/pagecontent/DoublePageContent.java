@@ -2,24 +2,42 @@ package com.ridi.books.viewer.reader.pagecontent;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.RectF;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class DoublePageContent implements PageContent {
     private final PageContent leftPage;
     private final PageContent rightPage;
+    private final int leftIndex;    // single provider의 index, dummy면 NO_INDEX
+    private final int rightIndex;
     private final SizeF size;
+    private final PageBitmapCache pageBitmapCache;
+    private volatile List<Link> linkList;
 
-    DoublePageContent(PageContent leftPage, PageContent rightPage,
-                      DoublePageSizePolicy sizePolicy) {
+    DoublePageContent(PageContent leftPage, PageContent rightPage, int leftIndex, int rightIndex,
+                      DoublePageSizePolicy sizePolicy, PageBitmapCache pageBitmapCache) {
         this.leftPage = leftPage;
         this.rightPage = rightPage;
+        this.leftIndex = leftIndex;
+        this.rightIndex = rightIndex;
+        this.pageBitmapCache = pageBitmapCache;
         this.size = sizePolicy.computeSize(leftPage.getSize(), rightPage.getSize());
     }
 
+    void releasePages(PageContentProvider singleProvider) {
+        if (leftIndex != PageContentView.NO_INDEX) {
+            PageContentReleaser.release(singleProvider, leftIndex, leftPage);
+        }
+        if (rightIndex != PageContentView.NO_INDEX) {
+            PageContentReleaser.release(singleProvider, rightIndex, rightPage);
+        }
+    }
+
     @Override
     public SizeF getSize() {
         return size;
@@ -28,42 +46,36 @@ public class DoublePageContent implements PageContent {
     @Override
     public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
                                  int pageWidth, int pageHeight, boolean forHighQuality) {
+        return renderToBitmap(bitmapWidth, bitmapHeight, startX, startY, pageWidth, pageHeight, forHighQuality,
+                true);
+    }
+
+    // draft는 cache를 거치지 않음
+    Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                          int pageWidth, int pageHeight, boolean forHighQuality, boolean cacheResult) {
         SizeF leftSize = leftPage.getSize();
         SizeF rightSize = rightPage.getSize();
 
         Bitmap leftBitmap = null, rightBitmap = null;
+        boolean leftCacheable = false, rightCacheable = false;
 
-        int leftPageWidth = (int) ((float) pageWidth * leftSize.width / size.width);
-        int leftBmWidth = Math.min(bitmapWidth, leftPageWidth - (-startX));
-        int leftPageHeight = (int) ((float) pageHeight * leftSize.height / size.height);
-        int leftBmHeight = bitmapHeight;
-
-        // 필요한만큼만 확보
-        if (-startY + bitmapHeight > leftPageHeight) {
-            leftBmHeight = leftPageHeight - (-startY);
-        }
-        
-        if (-startX < leftPageWidth && leftBmHeight > 0) {  // 왼쪽 페이지가 영역에 포함됨
-            leftBitmap = leftPage.renderToBitmap(leftBmWidth, leftBmHeight,
-                    startX, startY, leftPageWidth, leftPageHeight, forHighQuality);
-        } else {
-            leftBmWidth = 0;
-        }
-
-        int rightPageWidth = (int) ((float) pageWidth * rightSize.width / size.width);
-        int rightBmWidth = Math.min(bitmapWidth - leftBmWidth, rightPageWidth);
-        int rightPageHeight = (int) ((float) pageHeight * rightSize.height / size.height);
-        int rightBmHeight = bitmapHeight;
+        DoublePageLayout.Split split = DoublePageLayout.split(size, leftSize, rightSize,
+                bitmapWidth, bitmapHeight, startX, startY, pageWidth, pageHeight);
 
-        // 필요한만큼만 확보
-        if (-startY + bitmapHeight > rightPageHeight) {
-            rightBmHeight = rightPageHeight - (-startY);
+        if (split.hasLeft) {  // 왼쪽 페이지가 영역에 포함됨
+            leftCacheable = cacheResult && isCacheable(leftIndex, split.leftBitmapWidth, split.leftBitmapHeight,
+                    startX, startY, split.leftPageWidth, split.leftPageHeight, forHighQuality);
+            leftBitmap = renderPage(leftPage, leftIndex, leftCacheable,
+                    split.leftBitmapWidth, split.leftBitmapHeight,
+                    startX, startY, split.leftPageWidth, split.leftPageHeight, forHighQuality);
         }
 
-        if (-startX + bitmapWidth >= leftPageWidth && rightBmHeight > 0) {   // 오른쪽 페이지가 영역에 포함됨
-            rightBitmap = rightPage.renderToBitmap(rightBmWidth, rightBmHeight,
-                                                   Math.min(0, leftPageWidth - (-startX)), startY,
-                                                   rightPageWidth, rightPageHeight, forHighQuality);
+        if (split.hasRight) {   // 오른쪽 페이지가 영역에 포함됨
+            rightCacheable = cacheResult && isCacheable(rightIndex, split.rightBitmapWidth, split.rightBitmapHeight,
+                    split.rightStartX, startY, split.rightPageWidth, split.rightPageHeight, forHighQuality);
+            rightBitmap = renderPage(rightPage, rightIndex, rightCacheable,
+                    split.rightBitmapWidth, split.rightBitmapHeight,
+                    split.rightStartX, startY, split.rightPageWidth, split.rightPageHeight, forHighQuality);
         }
 
         if (leftBitmap == null && rightBitmap == null) {
@@ -71,34 +83,75 @@ public class DoublePageContent implements PageContent {
         }
 
         Bitmap bitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+        BitmapLedger.record(bitmap, BitmapLedger.ORIGIN_COMPOSITE, leftIndex);
         Canvas canvas = new Canvas(bitmap);
+        // cache에서 가져온 bitmap은 요청보다 클 수 있으므로 split의 크기에 맞춰 그림
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
         if (leftBitmap != null) {
             canvas.drawBitmap(leftBitmap, null,
                     new Rect(0, 0,
-                            leftBitmap.getWidth(), leftBitmap.getHeight()), null);
-            leftBitmap.recycle();
+                            split.leftBitmapWidth, split.leftBitmapHeight), paint);
+            if (!leftCacheable) {
+                leftBitmap.recycle();
+            }
         }
         if (rightBitmap != null) {
-            int left = leftBitmap != null ? leftBitmap.getWidth()
-                    : bitmapWidth - rightBitmap.getWidth();
+            int left = leftBitmap != null ? split.leftBitmapWidth
+                    : bitmapWidth - split.rightBitmapWidth;
             canvas.drawBitmap(rightBitmap, null,
-                    new Rect(left, 0, left + rightBitmap.getWidth(), rightBitmap.getHeight()), null);
-            rightBitmap.recycle();
+                    new Rect(left, 0, left + split.rightBitmapWidth, split.rightBitmapHeight), paint);
+            if (!rightCacheable) {
+                rightBitmap.recycle();
+            }
         }
 
         return bitmap;
     }
 
+    // 한 페이지 전체를 그리는 일반 렌더링만 single page 단위로 cache함
+    private boolean isCacheable(int singleIndex, int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                int pageWidth, int pageHeight, boolean forHighQuality) {
+        return pageBitmapCache != null && singleIndex != PageContentView.NO_INDEX && !forHighQuality
+                && startX == 0 && startY == 0 && bitmapWidth == pageWidth && bitmapHeight == pageHeight;
+    }
+
+    private Bitmap renderPage(PageContent page, int singleIndex, boolean cacheable,
+                              int bitmapWidth, int bitmapHeight, int startX, int startY,
+                              int pageWidth, int pageHeight, boolean forHighQuality) {
+        int generation = 0;
+        if (cacheable) {
+            Bitmap cached = pageBitmapCache.get(singleIndex, bitmapWidth, bitmapHeight);
+            if (cached != null) {
+                return cached;
+            }
+            generation = pageBitmapCache.getGeneration();
+        }
+
+        Bitmap bitmap = page.renderToBitmap(bitmapWidth, bitmapHeight,
+                startX, startY, pageWidth, pageHeight, forHighQuality);
+        BitmapLedger.record(bitmap, BitmapLedger.ORIGIN_HALF_PAGE, singleIndex);
+        if (cacheable && bitmap != null) {
+            pageBitmapCache.put(singleIndex, bitmap, generation);
+        }
+        return bitmap;
+    }
+
     @Override
     public List<Link> getLinkList() {
-        List<Link> linkList = new ArrayList<>();
-        linkList.addAll(leftPage.getLinkList());
-        linkList.addAll(
-                horizontalOffsetLinkList(
-                        rightPage.getLinkList(),
-                        leftPage.getSize().width
-                )
-        );
+        // 오른쪽 페이지 링크를 복사해 옮기는 비용이 크므로 한번만 만들어 둠
+        List<Link> linkList = this.linkList;
+        if (linkList == null) {
+            linkList = new ArrayList<>();
+            linkList.addAll(leftPage.getLinkList());
+            linkList.addAll(
+                    horizontalOffsetLinkList(
+                            rightPage.getLinkList(),
+                            DoublePageLayout.getRightPageOffset(leftPage.getSize())
+                    )
+            );
+            linkList = Collections.unmodifiableList(linkList);
+            this.linkList = linkList;
+        }
         return linkList;
     }
 
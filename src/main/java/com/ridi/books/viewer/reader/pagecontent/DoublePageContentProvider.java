@@ -1,11 +1,20 @@
 package com.ridi.books.viewer.reader.pagecontent;
 
-public class DoublePageContentProvider implements PageContentProvider {
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class DoublePageContentProvider
+        implements ReleasablePageContentProvider, ViewportAwarePageContentProvider,
+                   RenderCostAwarePageContentProvider, StreamingPageContentProvider {
     private final PageContentProvider singleProvider;
     private boolean singleOnFirstPage;    // 첫페이지는 싱글?
     private boolean reverseMode;          // 역방향
     private final boolean useDummyContent;
     private final DoublePageSizePolicy sizePolicy;
+    // 짝이 없어 single page를 그대로 돌려준 경우의 원래 index
+    // singleProvider가 cache라면 같은 PageContent가 여러 번 나갈 수 있으므로 나간 횟수도 셈
+    private final Map<PageContent, PassedThroughPage> singlePageIndices = new IdentityHashMap<>();
+    private PageBitmapCache pageBitmapCache;
     
     public DoublePageContentProvider(PageContentProvider singleProvider,
                                      boolean reverseMode, boolean useDummyContent,
@@ -24,6 +33,15 @@ public class DoublePageContentProvider implements PageContentProvider {
         this.singleOnFirstPage = singleOnFirstPage;
     }
 
+    public PageBitmapCache getPageBitmapCache() {
+        return pageBitmapCache;
+    }
+
+    // 설정을 바꿔 새로 만든 provider에도 같은 cache를 넘겨주면 이미 렌더링된 single page를 재사용함
+    public void setPageBitmapCache(PageBitmapCache pageBitmapCache) {
+        this.pageBitmapCache = pageBitmapCache;
+    }
+
     public boolean isReverseMode() {
         return reverseMode;
     }
@@ -34,12 +52,7 @@ public class DoublePageContentProvider implements PageContentProvider {
 
     @Override
     public int getPageContentCount() {
-        int singleCount = singleProvider.getPageContentCount();
-        int count = singleCount / 2 + singleCount % 2;
-        if (singleOnFirstPage && singleCount % 2 == 0) {
-            count++;
-        }
-        return count;
+        return DoublePageLayout.getPageContentCount(singleProvider.getPageContentCount(), singleOnFirstPage);
     }
 
     @Override
@@ -63,22 +76,60 @@ public class DoublePageContentProvider implements PageContentProvider {
                 return null;
             }
         }
-        if (leftSize == null && rightSize == null) {
-            return null;
-        } else if (leftSize == null) {
-            if (useDummyContent) {
-                leftSize = rightSize;
-            } else {
-                return rightSize;
+        return DoublePageLayout.combineSizes(leftSize, rightSize, useDummyContent, sizePolicy);
+    }
+
+    // singleProvider가 streaming이 아니면 모든 페이지를 이미 받은 것으로 봄
+    @Override
+    public int getExpectedPageContentCount() {
+        if (singleProvider instanceof StreamingPageContentProvider) {
+            return DoublePageLayout.getPageContentCount(
+                    ((StreamingPageContentProvider) singleProvider).getExpectedPageContentCount(), singleOnFirstPage);
+        }
+        return getPageContentCount();
+    }
+
+    @Override
+    public int getAvailablePageContentCount() {
+        if (singleProvider instanceof StreamingPageContentProvider) {
+            return DoublePageLayout.getAvailablePageContentCount(
+                    ((StreamingPageContentProvider) singleProvider).getAvailablePageContentCount(),
+                    singleProvider.getPageContentCount(), singleOnFirstPage);
+        }
+        return getPageContentCount();
+    }
+
+    // 한쪽만 받은 spread는 합성할 수 없으므로 양쪽을 모두 받아야 불러올 수 있음
+    @Override
+    public boolean isPageContentAvailable(int index) {
+        if (!(singleProvider instanceof StreamingPageContentProvider)) {
+            return true;
+        }
+        int[] singleIndices = { getLeftPageIndex(index), getRightPageIndex(index) };
+        for (int singleIndex : singleIndices) {
+            if (singleIndex >= 0 && singleIndex < singleProvider.getPageContentCount()
+                    && !((StreamingPageContentProvider) singleProvider).isPageContentAvailable(singleIndex)) {
+                return false;
             }
-        } else if (rightSize == null) {
-            if (useDummyContent) {
-                rightSize = leftSize;
-            } else {
-                return leftSize;
+        }
+        return true;
+    }
+
+    // 양쪽 페이지를 차례로 그리므로 합이 됨, 한쪽이라도 모르면 모름
+    @Override
+    public long getEstimatedRenderMillis(int index) {
+        long millis = 0;
+        int[] singleIndices = { getLeftPageIndex(index), getRightPageIndex(index) };
+        for (int singleIndex : singleIndices) {
+            if (singleIndex >= 0 && singleIndex < singleProvider.getPageContentCount()) {
+                long singleMillis = RenderCostEstimator.estimate(singleProvider, singleIndex, null);
+                if (singleMillis < 0) {
+                    return UNKNOWN_COST;
+                }
+                millis += singleMillis;
             }
         }
-        return sizePolicy.computeSize(leftSize, rightSize);
+        return millis;
     }
 
     @Override
@@ -95,12 +146,17 @@ public class DoublePageContentProvider implements PageContentProvider {
             if (leftPage == null) {
                 return null;
             }
+        } else {
+            leftIndex = PageContentView.NO_INDEX;
         }
         if (rightIndex >= 0 && rightIndex < singleProvider.getPageContentCount()) {
             rightPage = singleProvider.getPageContent(rightIndex);
             if (rightPage == null) {
+                PageContentReleaser.release(singleProvider, leftIndex, leftPage);
                 return null;
             }
+        } else {
+            rightIndex = PageContentView.NO_INDEX;
         }
         if (leftPage == null && rightPage == null) {
             return null;
@@ -108,50 +164,113 @@ public class DoublePageContentProvider implements PageContentProvider {
             if (useDummyContent) {
                 leftPage = new DummyPageContent(rightPage);
             } else {
-                return rightPage;
+                return passThroughSinglePage(rightPage, rightIndex);
             }
         } else if (rightPage == null) {
             if (useDummyContent) {
                 rightPage = new DummyPageContent(leftPage);
             } else {
-                return leftPage;
+                return passThroughSinglePage(leftPage, leftIndex);
             }
         }
-        return new DoublePageContent(leftPage, rightPage, sizePolicy);
+        return new DoublePageContent(leftPage, rightPage, leftIndex, rightIndex, sizePolicy, pageBitmapCache);
     }
-    
-    public int getLeftPageIndex(int index) {
-        int pageIndex;
-        
-        if (reverseMode) {
-            pageIndex = index * 2;
-            if (!singleOnFirstPage) {
-                pageIndex++;
+
+    private PageContent passThroughSinglePage(PageContent page, int singleIndex) {
+        synchronized (singlePageIndices) {
+            PassedThroughPage passedThrough = singlePageIndices.get(page);
+            if (passedThrough == null) {
+                passedThrough = new PassedThroughPage(singleIndex);
+                singlePageIndices.put(page, passedThrough);
             }
-        } else {
-            pageIndex = index * 2;
-            if (singleOnFirstPage) {
-                pageIndex--;
+            passedThrough.count++;
+        }
+        return page;
+    }
+
+    @Override
+    public void releasePageContent(int index, PageContent pageContent) {
+        if (pageContent instanceof DoublePageContent) {
+            ((DoublePageContent) pageContent).releasePages(singleProvider);
+            return;
+        }
+
+        int singleIndex;
+        synchronized (singlePageIndices) {
+            PassedThroughPage passedThrough = singlePageIndices.get(pageContent);
+            if (passedThrough == null) {
+                return;
             }
+            if (--passedThrough.count == 0) {
+                singlePageIndices.remove(pageContent);
+            }
+            singleIndex = passedThrough.singleIndex;
         }
-        return pageIndex;
+        PageContentReleaser.release(singleProvider, singleIndex, pageContent);
     }
     
-    public int getRightPageIndex(int index) {
-        int pageIndex;
-        
-        if (reverseMode) {
-            pageIndex = index * 2;
-            if (singleOnFirstPage) {
-                pageIndex--;
+    @Override
+    public void onViewportChanged(int firstIndex, int lastIndex) {
+        if (singleProvider instanceof ViewportAwarePageContentProvider) {
+            int first = getFirstSinglePageIndex(firstIndex);
+            int last = Math.max(getLeftPageIndex(lastIndex), getRightPageIndex(lastIndex));
+            ((ViewportAwarePageContentProvider) singleProvider).onViewportChanged(first, last);
+        }
+    }
+
+    // spread의 내용이 바뀌었을 때 호출, 양쪽 single page를 PageBitmapCache와 singleProvider의 cache에서 버림
+    public void invalidate(int index) {
+        int[] singleIndices = { getLeftPageIndex(index), getRightPageIndex(index) };
+        for (int singleIndex : singleIndices) {
+            if (singleIndex < 0) {
+                continue;
             }
-        } else {
-            pageIndex = index * 2;
-            if (!singleOnFirstPage) {
-                pageIndex++;
+            if (pageBitmapCache != null) {
+                pageBitmapCache.invalidate(singleIndex);
+            }
+            if (singleProvider instanceof CachedPageContentProvider) {
+                ((CachedPageContentProvider) singleProvider).invalidate(singleIndex);
             }
         }
-        
-        return pageIndex;
+    }
+
+    // start 이후의 spread를 delta만큼 옮김 (추가는 양수, 삭제는 음수)
+    // single page index로 바꿔 PageBitmapCache와 singleProvider의 cache에 그대로 전달함
+    public void shiftIndices(int start, int delta) {
+        int singleStart = getFirstSinglePageIndex(start);
+        int singleDelta = getFirstSinglePageIndex(start + delta) - singleStart;
+        if (pageBitmapCache != null) {
+            pageBitmapCache.shiftIndices(singleStart, singleDelta);
+        }
+        if (singleProvider instanceof CachedPageContentProvider) {
+            ((CachedPageContentProvider) singleProvider).shiftIndices(singleStart, singleDelta);
+        }
+    }
+
+    // spread에 들어가는 single page 중 앞쪽 것, 첫페이지 싱글의 빈 쪽은 0으로 봄
+    private int getFirstSinglePageIndex(int index) {
+        return Math.max(Math.min(getLeftPageIndex(index), getRightPageIndex(index)), 0);
+    }
+
+    // single page index를 포함하는 spread의 index
+    public int getPageContentIndexOfSinglePage(int singleIndex) {
+        return DoublePageLayout.getPageContentIndexOfSinglePage(singleIndex, singleOnFirstPage);
+    }
+
+    public int getLeftPageIndex(int index) {
+        return DoublePageLayout.getLeftPageIndex(index, reverseMode, singleOnFirstPage);
+    }
+    
+    public int getRightPageIndex(int index) {
+        return DoublePageLayout.getRightPageIndex(index, reverseMode, singleOnFirstPage);
+    }
+
+    private static class PassedThroughPage {
+        final int singleIndex;
+        int count;
+
+        PassedThroughPage(int singleIndex) {
+            this.singleIndex = singleIndex;
+        }
     }
 }
@@ -0,0 +1,130 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 두 페이지 보기에서 쓰는 index 변환과 영역 나누기 계산
+// benchmark 모듈이 JVM만으로 이 파일을 컴파일하므로 android.* 에 의존하면 안 됨
+final class DoublePageLayout {
+    private DoublePageLayout() {
+    }
+
+    static int getPageContentCount(int singleCount, boolean singleOnFirstPage) {
+        int count = singleCount / 2 + singleCount % 2;
+        if (singleOnFirstPage && singleCount % 2 == 0) {
+            count++;
+        }
+        return count;
+    }
+
+    // 앞에서부터 양쪽 페이지를 모두 받은 spread 수, 받은 single page가 availableSingleCount개일 때
+    // 알고 있는 마지막 single page까지 받았으면 짝이 아직 없는 마지막 spread도 포함함
+    static int getAvailablePageContentCount(int availableSingleCount, int singleCount, boolean singleOnFirstPage) {
+        if (availableSingleCount >= singleCount) {
+            return getPageContentCount(singleCount, singleOnFirstPage);
+        }
+        return getPageContentIndexOfSinglePage(availableSingleCount, singleOnFirstPage);
+    }
+
+    static int getPageContentIndexOfSinglePage(int singleIndex, boolean singleOnFirstPage) {
+        return singleOnFirstPage ? (singleIndex + 1) / 2 : singleIndex / 2;
+    }
+
+    static int getLeftPageIndex(int index, boolean reverseMode, boolean singleOnFirstPage) {
+        int pageIndex = index * 2;
+        if (reverseMode) {
+            if (!singleOnFirstPage) {
+                pageIndex++;
+            }
+        } else {
+            if (singleOnFirstPage) {
+                pageIndex--;
+            }
+        }
+        return pageIndex;
+    }
+
+    static int getRightPageIndex(int index, boolean reverseMode, boolean singleOnFirstPage) {
+        int pageIndex = index * 2;
+        if (reverseMode) {
+            if (singleOnFirstPage) {
+                pageIndex--;
+            }
+        } else {
+            if (!singleOnFirstPage) {
+                pageIndex++;
+            }
+        }
+        return pageIndex;
+    }
+
+    // 한쪽이 없으면 dummy를 쓸 때는 있는 쪽 크기를 복사하고, 아니면 있는 쪽 크기를 그대로 씀
+    static SizeF combineSizes(SizeF leftSize, SizeF rightSize, boolean useDummyContent,
+                              DoublePageSizePolicy sizePolicy) {
+        if (leftSize == null && rightSize == null) {
+            return null;
+        } else if (leftSize == null) {
+            if (!useDummyContent) {
+                return rightSize;
+            }
+            leftSize = rightSize;
+        } else if (rightSize == null) {
+            if (!useDummyContent) {
+                return leftSize;
+            }
+            rightSize = leftSize;
+        }
+        return sizePolicy.computeSize(leftSize, rightSize);
+    }
+
+    // 오른쪽 페이지의 링크 등을 옮길 x 거리, 원본 크기 기준
+    static float getRightPageOffset(SizeF leftSize) {
+        return leftSize.width;
+    }
+
+    // renderToBitmap()의 요청 영역을 왼쪽/오른쪽 페이지 각각의 요청으로 나눔
+    static Split split(SizeF size, SizeF leftSize, SizeF rightSize, int bitmapWidth, int bitmapHeight,
+                       int startX, int startY, int pageWidth, int pageHeight) {
+        Split split = new Split();
+
+        split.leftPageWidth = (int) ((float) pageWidth * leftSize.width / size.width);
+        split.leftBitmapWidth = Math.min(bitmapWidth, split.leftPageWidth - (-startX));
+        split.leftPageHeight = (int) ((float) pageHeight * leftSize.height / size.height);
+        split.leftBitmapHeight = bitmapHeight;
+
+        // 필요한만큼만 확보
+        if (-startY + bitmapHeight > split.leftPageHeight) {
+            split.leftBitmapHeight = split.leftPageHeight - (-startY);
+        }
+
+        split.hasLeft = -startX < split.leftPageWidth && split.leftBitmapHeight > 0;
+        if (!split.hasLeft) {
+            split.leftBitmapWidth = 0;
+        }
+
+        split.rightPageWidth = (int) ((float) pageWidth * rightSize.width / size.width);
+        split.rightBitmapWidth = Math.min(bitmapWidth - split.leftBitmapWidth, split.rightPageWidth);
+        split.rightPageHeight = (int) ((float) pageHeight * rightSize.height / size.height);
+        split.rightBitmapHeight = bitmapHeight;
+
+        if (-startY + bitmapHeight > split.rightPageHeight) {
+            split.rightBitmapHeight = split.rightPageHeight - (-startY);
+        }
+
+        split.hasRight = -startX + bitmapWidth >= split.leftPageWidth && split.rightBitmapHeight > 0;
+        split.rightStartX = Math.min(0, split.leftPageWidth - (-startX));
+        return split;
+    }
+
+    static class Split {
+        boolean hasLeft;
+        int leftPageWidth;
+        int leftPageHeight;
+        int leftBitmapWidth;
+        int leftBitmapHeight;
+
+        boolean hasRight;
+        int rightPageWidth;
+        int rightPageHeight;
+        int rightBitmapWidth;
+        int rightBitmapHeight;
+        int rightStartX;
+    }
+}
@@ -0,0 +1,85 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.annotation.RequiresApi;
+import android.view.Choreographer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Choreographer로 프레임 간격을 재고, 그 사이 UI 스레드에서 지나간 trace 구간 중 가장 긴 것을 원인으로 보고함
+// 중첩된 구간은 가장 바깥 구간에 합산됨. 모든 메소드는 UI 스레드에서만 불림
+@RequiresApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameWatchdog implements Choreographer.FrameCallback {
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long budgetMillis;
+    private final PageContentTrace.FrameOverrunListener listener;
+    private final Map<String, Long> stageMillis = new HashMap<>();
+    private long lastFrameTimeNanos;
+    private int depth;
+    private String currentStage;
+    private long currentStageStart;
+    private boolean running;
+
+    FrameWatchdog(long budgetMillis, PageContentTrace.FrameOverrunListener listener) {
+        this.budgetMillis = budgetMillis;
+        this.listener = listener;
+    }
+
+    void start() {
+        running = true;
+        lastFrameTimeNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    void enterStage(String stage) {
+        if (depth++ == 0) {
+            currentStage = stage;
+            currentStageStart = SystemClock.uptimeMillis();
+        }
+    }
+
+    void exitStage() {
+        if (depth == 0) {
+            return;
+        }
+        if (--depth == 0) {
+            long elapsed = SystemClock.uptimeMillis() - currentStageStart;
+            Long accumulated = stageMillis.get(currentStage);
+            stageMillis.put(currentStage, accumulated != null ? accumulated + elapsed : elapsed);
+            currentStage = null;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+
+        if (lastFrameTimeNanos != 0) {
+            long frameMillis = (frameTimeNanos - lastFrameTimeNanos) / NANOS_PER_MILLI;
+            if (frameMillis > budgetMillis) {
+                String worstStage = null;
+                long worstMillis = 0;
+                for (Map.Entry<String, Long> entry : stageMillis.entrySet()) {
+                    if (entry.getValue() > worstMillis) {
+                        worstStage = entry.getKey();
+                        worstMillis = entry.getValue();
+                    }
+                }
+                listener.onFrameOverrun(frameMillis, worstStage, worstMillis);
+            }
+        }
+        stageMillis.clear();
+        lastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -0,0 +1,125 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// 스크롤이나 확대/축소 애니메이션의 프레임과 겹치지 않아도 되는 낮은 우선순위 작업
+// UI 스레드 쪽 작업은 main MessageQueue가 비었을 때에만 돌고, 백그라운드 작업은 사용자가 움직이는 동안 시작하지 않음
+class IdleWorkQueue implements MessageQueue.IdleHandler {
+    // 한 번 비었을 때 UI 스레드에서 쓸 시간, 넘으면 나머지는 다음에 비었을 때 이어서 함
+    private static final long IDLE_BUDGET_MILLIS = 4;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ArrayDeque<Runnable> uiWork = new ArrayDeque<>();
+    private final List<Runnable> deferredWork = new ArrayList<>();
+    private boolean paused;
+    private boolean idleHandlerAdded;
+
+    private final Runnable wakeUp = new Runnable() {
+        @Override
+        public void run() {
+            // 다음에 queue가 비었을 때 queueIdle()이 다시 불리도록 깨우기만 함
+        }
+    };
+
+    // 멈춘 동안 실행 차례가 온 작업은 건너뛰었다가 다시 시작할 때 같은 executor에 넣음
+    Executor pausable(final Executor executor) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (defer(executor, this)) {
+                            return;
+                        }
+                        command.run();
+                    }
+                });
+            }
+        };
+    }
+
+    private synchronized boolean defer(final Executor executor, final Runnable runnable) {
+        if (!paused) {
+            return false;
+        }
+        deferredWork.add(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(runnable);
+            }
+        });
+        return true;
+    }
+
+    @MainThread
+    void postWhenIdle(Runnable runnable) {
+        uiWork.add(runnable);
+        addIdleHandlerIfNeeded();
+    }
+
+    @MainThread
+    void setPaused(boolean paused) {
+        List<Runnable> resumed = null;
+        synchronized (this) {
+            if (this.paused == paused) {
+                return;
+            }
+            this.paused = paused;
+            if (!paused && !deferredWork.isEmpty()) {
+                resumed = new ArrayList<>(deferredWork);
+                deferredWork.clear();
+            }
+        }
+        if (resumed != null) {
+            for (Runnable runnable : resumed) {
+                runnable.run();
+            }
+        }
+        if (!paused) {
+            addIdleHandlerIfNeeded();
+        }
+    }
+
+    private synchronized boolean isPaused() {
+        return paused;
+    }
+
+    private void addIdleHandlerIfNeeded() {
+        if (!idleHandlerAdded && !uiWork.isEmpty() && !isPaused()) {
+            idleHandlerAdded = true;
+            Looper.myQueue().addIdleHandler(this);
+            // 이미 비어 있는 queue는 다음 메시지가 올 때까지 idle handler를 부르지 않음
+            handler.post(wakeUp);
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        long deadline = SystemClock.uptimeMillis() + IDLE_BUDGET_MILLIS;
+        while (!uiWork.isEmpty() && !isPaused()) {
+            uiWork.poll().run();
+            if (SystemClock.uptimeMillis() >= deadline) {
+                break;
+            }
+        }
+
+        if (uiWork.isEmpty() || isPaused()) {
+            // 멈춘 동안에는 setPaused(false)에서 다시 붙음
+            idleHandlerAdded = false;
+            return false;
+        }
+        handler.post(wakeUp);
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+// 압축 파일 안의 이미지 한 장
+// 전체 페이지는 요청된 bitmap 크기에 맞춘 inSampleSize로, 일부 영역(HQ)은 BitmapRegionDecoder로 디코딩하여
+// 원본 해상도 전체를 디코딩하는 일이 없도록 함
+class ImageArchivePageContent implements ReleasablePageContent {
+    private static final Paint FILTER_PAINT = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final byte[] data;
+    private final SizeF size;
+    private BitmapRegionDecoder regionDecoder;
+
+    ImageArchivePageContent(byte[] data, SizeF size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    @Override
+    public SizeF getSize() {
+        return size;
+    }
+
+    @Override
+    public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                 int pageWidth, int pageHeight, boolean forHighQuality) {
+        if (bitmapWidth <= 0 || bitmapHeight <= 0 || pageWidth <= 0 || pageHeight <= 0) {
+            return null;
+        }
+
+        int[] sourceRegion = ImageRegionLayout.getSourceRegion(size, bitmapWidth, bitmapHeight, startX, startY,
+                pageWidth, pageHeight);
+        if (sourceRegion == null) {
+            return null;
+        }
+        Rect region = new Rect(sourceRegion[0], sourceRegion[1], sourceRegion[2], sourceRegion[3]);
+        float[] destination = ImageRegionLayout.getDestination(size, sourceRegion, startX, startY,
+                pageWidth, pageHeight);
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = ImageRegionLayout.calculateSampleSize(destination[2] - destination[0],
+                destination[3] - destination[1], region.width(), region.height());
+
+        Bitmap decoded;
+        if (region.width() == (int) size.width && region.height() == (int) size.height) {
+            decoded = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        } else {
+            decoded = decodeRegion(region, options);
+        }
+        if (decoded == null) {
+            return null;
+        }
+
+        Bitmap bitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawBitmap(decoded, null,
+                new RectF(destination[0], destination[1], destination[2], destination[3]), FILTER_PAINT);
+        decoded.recycle();
+        return bitmap;
+    }
+
+    @Override
+    public List<Link> getLinkList() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized void release() {
+        if (regionDecoder != null) {
+            regionDecoder.recycle();
+            regionDecoder = null;
+        }
+    }
+
+    private synchronized Bitmap decodeRegion(Rect region, BitmapFactory.Options options) {
+        try {
+            if (regionDecoder == null) {
+                regionDecoder = BitmapRegionDecoder.newInstance(data, 0, data.length, false);
+            }
+            return regionDecoder.decodeRegion(region, options);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.BitmapFactory;
+import android.support.annotation.WorkerThread;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// ZIP/CBZ 압축 파일 안의 JPEG/PNG 이미지를 이름 순서대로 한 장씩 페이지로 보여주는 provider
+// central directory는 열 때 한번만 memory-mapped로 읽고, 이미지 크기도 그때 header만 읽어 알아둠
+// getPageContentSize()는 UI 스레드에서 불리므로 그 안에서 디코딩하지 않음
+public class ImageArchivePageContentProvider implements PageContentProvider, Closeable {
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".webp", ".gif", ".bmp"};
+
+    private final RandomAccessFile file;
+    private final ZipCentralDirectory directory;
+    private final List<ZipCentralDirectory.Entry> pages;
+    private final SizeF[] sizes;
+
+    @WorkerThread
+    public ImageArchivePageContentProvider(File archive) throws IOException {
+        file = new RandomAccessFile(archive, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            directory = new ZipCentralDirectory(mapped);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+
+        pages = new ArrayList<>();
+        for (ZipCentralDirectory.Entry entry : directory.getEntries()) {
+            if (isImage(entry.name)) {
+                pages.add(entry);
+            }
+        }
+        Collections.sort(pages, new Comparator<ZipCentralDirectory.Entry>() {
+            @Override
+            public int compare(ZipCentralDirectory.Entry lhs, ZipCentralDirectory.Entry rhs) {
+                return compareNaturally(lhs.name, rhs.name);
+            }
+        });
+        sizes = new SizeF[pages.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = decodeSize(pages.get(i));
+        }
+    }
+
+    @Override
+    public int getPageContentCount() {
+        return pages.size();
+    }
+
+    @Override
+    public SizeF getPageContentSize(int index) {
+        if (index < 0 || index >= pages.size()) {
+            return null;
+        }
+
+        return sizes[index];
+    }
+
+    @Override
+    public PageContent getPageContent(int index) {
+        SizeF size = getPageContentSize(index);
+        if (size == null) {
+            return null;
+        }
+
+        try {
+            return new ImageArchivePageContent(directory.read(pages.get(index)), size);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // 크기를 알 수 없는 이미지는 null, 그 페이지는 불러오지 않음
+    @WorkerThread
+    private SizeF decodeSize(ZipCentralDirectory.Entry entry) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try {
+            InputStream stream = directory.openStream(entry);
+            try {
+                BitmapFactory.decodeStream(stream, null, options);
+            } finally {
+                stream.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        return new SizeF(options.outWidth, options.outHeight);
+    }
+
+    private static boolean isImage(String name) {
+        if (name.endsWith("/") || name.startsWith("__MACOSX/")) {
+            return false;
+        }
+        String lowerName = name.toLowerCase(Locale.US);
+        for (String extension : IMAGE_EXTENSIONS) {
+            if (lowerName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "page2.jpg"가 "page10.jpg"보다 앞에 오도록 숫자 부분은 숫자로 비교
+    private static int compareNaturally(String lhs, String rhs) {
+        int i = 0, j = 0;
+        while (i < lhs.length() && j < rhs.length()) {
+            char a = lhs.charAt(i), b = rhs.charAt(j);
+            if (Character.isDigit(a) && Character.isDigit(b)) {
+                int iEnd = i, jEnd = j;
+                while (iEnd < lhs.length() && Character.isDigit(lhs.charAt(iEnd))) iEnd++;
+                while (jEnd < rhs.length() && Character.isDigit(rhs.charAt(jEnd))) jEnd++;
+                String aNumber = lhs.substring(i, iEnd).replaceFirst("^0+(?=.)", "");
+                String bNumber = rhs.substring(j, jEnd).replaceFirst("^0+(?=.)", "");
+                if (aNumber.length() != bNumber.length()) {
+                    return aNumber.length() - bNumber.length();
+                }
+                int result = aNumber.compareTo(bNumber);
+                if (result != 0) {
+                    return result;
+                }
+                i = iEnd;
+                j = jEnd;
+            } else {
+                int result = Character.toLowerCase(a) - Character.toLowerCase(b);
+                if (result != 0) {
+                    return result;
+                }
+                i++;
+                j++;
+            }
+        }
+        return (lhs.length() - i) - (rhs.length() - j);
+    }
+}
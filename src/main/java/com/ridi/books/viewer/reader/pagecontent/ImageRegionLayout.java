@@ -0,0 +1,43 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// ImageArchivePageContent.renderToBitmap()의 요청 영역을 원본 이미지 좌표로 옮기고 디코딩 배율을 정함
+// 영역은 모두 {left, top, right, bottom}
+final class ImageRegionLayout {
+    private ImageRegionLayout() {
+    }
+
+    // 요청 영역에 걸치는 원본 이미지 영역, 바깥쪽 픽셀까지 포함하도록 올림하고 이미지 밖은 잘라냄
+    // 이미지와 겹치지 않으면 null
+    static int[] getSourceRegion(SizeF size, int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                 int pageWidth, int pageHeight) {
+        float scaleX = size.width / pageWidth;
+        float scaleY = size.height / pageHeight;
+        int left = Math.max((int) Math.floor(-startX * scaleX), 0);
+        int top = Math.max((int) Math.floor(-startY * scaleY), 0);
+        int right = Math.min((int) Math.ceil((-startX + bitmapWidth) * scaleX), (int) size.width);
+        int bottom = Math.min((int) Math.ceil((-startY + bitmapHeight) * scaleY), (int) size.height);
+        if (left >= right || top >= bottom) {
+            return null;
+        }
+        return new int[] {left, top, right, bottom};
+    }
+
+    // 원본 영역을 디코딩한 것을 그려 넣을 bitmap 안의 위치
+    static float[] getDestination(SizeF size, int[] region, int startX, int startY, int pageWidth, int pageHeight) {
+        float scaleX = size.width / pageWidth;
+        float scaleY = size.height / pageHeight;
+        return new float[] {
+                region[0] / scaleX + startX, region[1] / scaleY + startY,
+                region[2] / scaleX + startX, region[3] / scaleY + startY
+        };
+    }
+
+    // 디코딩 결과가 요청 크기보다 작아지지 않는 가장 큰 2의 거듭제곱
+    static int calculateSampleSize(float targetWidth, float targetHeight, int sourceWidth, int sourceHeight) {
+        int sampleSize = 1;
+        while (sourceWidth / (sampleSize * 2) >= targetWidth && sourceHeight / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+}
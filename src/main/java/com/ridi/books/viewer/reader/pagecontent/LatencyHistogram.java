@@ -0,0 +1,79 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 밀리초 단위 지연 시간의 분포, 구간 경계는 1, 2, 4, ... 2048ms 이고 마지막 구간은 그 이상 전부
+// 기록은 여러 스레드에서 lock 없이 할 수 있고, 밖으로는 snapshot()으로 만든 복사본만 내보냄
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 13;
+
+    private final AtomicLongArray counts;
+
+    LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKET_COUNT);
+    }
+
+    private LatencyHistogram(long[] counts) {
+        this.counts = new AtomicLongArray(counts);
+    }
+
+    void record(long millis) {
+        int bucket = 0;
+        while (bucket < BUCKET_COUNT - 1 && millis >= getBucketUpperBoundMillis(bucket)) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    LatencyHistogram snapshot() {
+        long[] copied = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copied[i] = counts.get(i);
+        }
+        return new LatencyHistogram(copied);
+    }
+
+    public int getBucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    // 마지막 구간은 Long.MAX_VALUE
+    public long getBucketUpperBoundMillis(int bucket) {
+        return bucket < BUCKET_COUNT - 1 ? 1L << bucket : Long.MAX_VALUE;
+    }
+
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // percentile은 0 ~ 100, 해당 기록이 들어있는 구간의 상한을 돌려줌 (기록이 없으면 0)
+    public long getPercentileMillis(float percentile) {
+        long total = getTotalCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(rank, 1)) {
+                return getBucketUpperBoundMillis(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.RectF;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// 링크 영역의 hit-test를 위한 균일 grid 공간 색인
+// 한번 만들어지면 PageContent에 묶여 cache되므로, 같은 PageContent를 다시 불러와도 새로 만들지 않음
+class LinkIndex {
+    private static final int TARGET_LINKS_PER_CELL = 4;
+    private static final int MAX_CELLS_PER_AXIS = 32;
+
+    private static final Map<PageContent, LinkIndex> INDICES = new WeakHashMap<>();
+
+    private final List<Link> links;
+    private final float width;
+    private final float height;
+    private final int columns;
+    private final int rows;
+    private final int[][] cells;    // cell별 links의 index 목록
+
+    private LinkIndex(List<Link> links, SizeF size) {
+        this.links = links;
+        this.width = size.width;
+        this.height = size.height;
+
+        int perAxis = (int) Math.ceil(Math.sqrt((double) links.size() / TARGET_LINKS_PER_CELL));
+        perAxis = Math.max(Math.min(perAxis, MAX_CELLS_PER_AXIS), 1);
+        columns = perAxis;
+        rows = perAxis;
+
+        List<List<Integer>> buckets = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            buckets.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < links.size(); i++) {
+            RectF rect = links.get(i).getBoundingRect();
+            int left = column(rect.left), right = column(rect.right);
+            int top = row(rect.top), bottom = row(rect.bottom);
+            for (int r = top; r <= bottom; r++) {
+                for (int c = left; c <= right; c++) {
+                    buckets.get(r * columns + c).add(i);
+                }
+            }
+        }
+
+        cells = new int[columns * rows][];
+        for (int i = 0; i < cells.length; i++) {
+            List<Integer> bucket = buckets.get(i);
+            cells[i] = new int[bucket.size()];
+            for (int j = 0; j < bucket.size(); j++) {
+                cells[i][j] = bucket.get(j);
+            }
+        }
+    }
+
+    @WorkerThread
+    static LinkIndex of(PageContent pageContent) {
+        synchronized (INDICES) {
+            LinkIndex index = INDICES.get(pageContent);
+            if (index != null) {
+                return index;
+            }
+        }
+
+        LinkIndex index = new LinkIndex(pageContent.getLinkList(), pageContent.getSize());
+        synchronized (INDICES) {
+            INDICES.put(pageContent, index);
+        }
+        return index;
+    }
+
+    static LinkIndex peek(PageContent pageContent) {
+        synchronized (INDICES) {
+            return INDICES.get(pageContent);
+        }
+    }
+
+    // 색인이 아직 없을 때 쓰는 선형 탐색
+    static Link findLinear(List<Link> links, float x, float y) {
+        for (Link link : links) {
+            if (link.getBoundingRect().contains(x, y)) {
+                return link;
+            }
+        }
+        return null;
+    }
+
+    Link find(float x, float y) {
+        if (x < 0 || y < 0 || x > width || y > height) {
+            return null;
+        }
+
+        // 여러 링크가 겹치면 getLinkList() 순서상 앞선 것을 돌려줌 (선형 탐색과 같은 결과)
+        int found = Integer.MAX_VALUE;
+        for (int i : cells[row(y) * columns + column(x)]) {
+            if (i < found && links.get(i).getBoundingRect().contains(x, y)) {
+                found = i;
+            }
+        }
+        return found != Integer.MAX_VALUE ? links.get(found) : null;
+    }
+
+    private int column(float x) {
+        if (width <= 0) {
+            return 0;
+        }
+        return Math.max(Math.min((int) (x / width * columns), columns - 1), 0);
+    }
+
+    private int row(float y) {
+        if (height <= 0) {
+            return 0;
+        }
+        return Math.max(Math.min((int) (y / height * rows), rows - 1), 0);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import java.util.Map;
+
+// 두쪽보기에서 각 single page의 렌더링 결과를 보관하는 cache
+// 첫페이지 싱글, 역방향 설정이 바뀌어 spread 구성이 달라져도 다시 렌더링하지 않고 합성만 하도록 함
+// 여러 DoublePageContentProvider가 같은 cache를 공유할 수 있음
+// 페이지 내용이 바뀌거나 추가/삭제되면 invalidate(), shiftIndices()로 맞춰야 함
+public class PageBitmapCache {
+    // single page마다 지금까지 그린 것 중 가장 큰 것 하나만 둠
+    private final LruCache<Integer, Bitmap> bitmaps;
+    // invalidate, shift 때마다 올라감, 그 전에 그리기 시작한 bitmap은 넣지 않음
+    private int generation;
+
+    public PageBitmapCache(int maxBytes) {
+        bitmaps = new LruCache<Integer, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    // 크기가 다른 페이지와 짝이 바뀌면 같은 페이지도 다른 크기로 그려지므로,
+    // 비율이 같고 요청한 크기 이상이면 돌려주고 줄여서 그리는 것은 호출하는 쪽이 함
+    synchronized Bitmap get(int singleIndex, int width, int height) {
+        Bitmap bitmap = bitmaps.get(singleIndex);
+        if (bitmap == null || bitmap.isRecycled()) {
+            return null;
+        }
+        if (!covers(bitmap.getWidth(), bitmap.getHeight(), width, height)) {
+            return null;
+        }
+        return bitmap;
+    }
+
+    // 그리기 시작할 때 받아두고 put()에 넘김
+    synchronized int getGeneration() {
+        return generation;
+    }
+
+    // draft처럼 작게 그린 것은 넣지 않아야 함, 이미 있는 것으로 대신할 수 있으면 무시함
+    // 그리는 동안 index가 바뀌었거나 내용이 바뀐 경우에도 무시함
+    synchronized void put(int singleIndex, Bitmap bitmap, int generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        Bitmap cached = bitmaps.get(singleIndex);
+        if (cached != null && !cached.isRecycled()
+                && covers(cached.getWidth(), cached.getHeight(), bitmap.getWidth(), bitmap.getHeight())) {
+            return;
+        }
+        bitmaps.put(singleIndex, bitmap);
+    }
+
+    // single page의 내용이 바뀌었을 때 호출
+    public synchronized void invalidate(int singleIndex) {
+        generation++;
+        bitmaps.remove(singleIndex);
+    }
+
+    // start 이후의 index를 delta만큼 옮김 (페이지 추가는 양수, 삭제는 음수)
+    // 삭제할 때 start + delta ~ start - 1의 지워진 페이지는 버림
+    public synchronized void shiftIndices(int start, int delta) {
+        generation++;
+        Map<Integer, Bitmap> snapshot = bitmaps.snapshot();
+        bitmaps.evictAll();
+        // snapshot은 오래 안 쓴 것부터이므로 순서대로 다시 넣으면 LRU 순서가 유지됨
+        for (Map.Entry<Integer, Bitmap> entry : snapshot.entrySet()) {
+            int index = entry.getKey();
+            if (index >= start) {
+                index += delta;
+            } else if (delta < 0 && index >= start + delta) {
+                continue;
+            }
+            bitmaps.put(index, entry.getValue());
+        }
+    }
+
+    public synchronized void evictAll() {
+        generation++;
+        bitmaps.evictAll();
+    }
+
+    // 정수로 자르면서 생기는 1px 정도의 비율 차이는 같은 것으로 봄
+    static boolean covers(int cachedWidth, int cachedHeight, int width, int height) {
+        if (cachedWidth < width || cachedHeight < height) {
+            return false;
+        }
+        long skew = Math.abs((long) cachedWidth * height - (long) cachedHeight * width);
+        return skew <= cachedWidth + cachedHeight;
+    }
+}
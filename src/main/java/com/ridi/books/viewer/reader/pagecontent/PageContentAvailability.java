@@ -0,0 +1,12 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+final class PageContentAvailability {
+    private PageContentAvailability() {
+    }
+
+    // StreamingPageContentProvider가 아직 내용을 받지 못한 페이지면 false
+    static boolean isAvailable(PageContentProvider provider, int index) {
+        return !(provider instanceof StreamingPageContentProvider)
+                || ((StreamingPageContentProvider) provider).isPageContentAvailable(index);
+    }
+}
@@ -0,0 +1,68 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import java.util.concurrent.Executor;
+
+// 렌더링 작업들이 함께 쓰는 PageContent
+// 불러오기와 렌더링이 서로 다른 스레드에서 돌기 때문에, 마지막 사용자가 끝난 뒤에야 provider에 돌려줌
+class PageContentHandle {
+    private final PageContentProvider provider;
+    private final int index;    // pageContent를 얻어온 시점의 index
+    private final PageContent pageContent;
+    private final Executor releaseExecutor;
+    private int users;
+    private boolean closed;
+
+    PageContentHandle(PageContentProvider provider, int index, PageContent pageContent, Executor releaseExecutor) {
+        this.provider = provider;
+        this.index = index;
+        this.pageContent = pageContent;
+        this.releaseExecutor = releaseExecutor;
+    }
+
+    PageContentProvider getProvider() {
+        return provider;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    PageContent getPageContent() {
+        return pageContent;
+    }
+
+    // 이미 close 되었으면 null
+    synchronized PageContent use() {
+        if (closed) {
+            return null;
+        }
+        users++;
+        return pageContent;
+    }
+
+    synchronized void done() {
+        users--;
+        if (closed && users == 0) {
+            release();
+        }
+    }
+
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (users == 0) {
+            release();
+        }
+    }
+
+    private void release() {
+        releaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                PageContentReleaser.release(provider, index, pageContent);
+            }
+        });
+    }
+}
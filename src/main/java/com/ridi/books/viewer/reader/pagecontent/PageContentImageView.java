@@ -33,10 +33,18 @@ public class PageContentImageView extends View {
     }
 
     public void setImageBitmap(Bitmap bitmap) {
+        if (this.bitmap != null && this.bitmap != bitmap) {
+            BitmapLedger.markDetached(this.bitmap);
+        }
+        BitmapLedger.markAttached(bitmap);
         this.bitmap = bitmap;
         dirty = true;
     }
 
+    Bitmap getImageBitmap() {
+        return bitmap;
+    }
+
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
@@ -1,12 +1,15 @@
 package com.ridi.books.viewer.reader.pagecontent;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.database.DataSetObserver;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Pair;
 import android.util.SparseArray;
@@ -18,6 +21,8 @@ import android.view.animation.AccelerateDecelerateInterpolator;
 import android.widget.AdapterView;
 import android.widget.Scroller;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -32,6 +37,7 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
 
     private static final int DEFAULT_FLING_DISTANCE_THRESHOLD   = 120;
     private static final int DEFAULT_FLING_VELOCITY_THRESHOLD   = 1000;
+    private static final int DEFAULT_DRAFT_VELOCITY_THRESHOLD   = 2000;
     private static final int FLING_MARGIN                       = 70;
 
     private static final int SCROLLBAR_MIN_THUMB_SIZE           = 5;
@@ -69,6 +75,23 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
             refresh();
         }
     };
+    private PageContentViewAdapter.PageContentObserver pageContentObserver =
+            new PageContentViewAdapter.PageContentObserver() {
+        @Override
+        public void onPageContentChanged(int index) {
+            reloadPageContent(index);
+        }
+
+        @Override
+        public void onPageContentRangeInserted(int start, int count) {
+            shiftPageContents(start, count);
+        }
+
+        @Override
+        public void onPageContentRangeRemoved(int start, int count) {
+            removePageContents(start, count);
+        }
+    };
     private int currentIndex = PageContentView.NO_INDEX;    // Adapter's index for the current view
     private boolean resetLayout;
     private SparseArray<PageContentView> childViews;
@@ -91,6 +114,7 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     private float requestedScale = DEFAULT_SCALE;
     private int flingDistanceThreshold = DEFAULT_FLING_DISTANCE_THRESHOLD;
     private int flingVelocityThreshold = DEFAULT_FLING_VELOCITY_THRESHOLD;
+    private int draftVelocityThreshold = DEFAULT_DRAFT_VELOCITY_THRESHOLD;
     
     private Scroller scroller;
     private int scrollOffsetX;
@@ -99,8 +123,42 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     private int scrollerLastY;
     private boolean scrollDisabled;
     private boolean isExternalGestureMode = false;
+    private ScrollPrefetchWindow prefetchWindow;
+    private int lastScrollDirectionY;
+
+    // RenderMetrics의 프레임 단위 지표용
+    private int layoutPassesSinceDraw;
+    private int firstPixelIndex = PageContentView.NO_INDEX;
+    private long pageTurnTime;
+    private boolean waitingForFirstPixel;
+
+    private ReadingSessionRecorder sessionRecorder;
+
+    private AdaptiveRenderController adaptiveController;
+    private int contentCacheCapacity;   // AdaptiveRenderController를 붙이기 전 CachedPageContentProvider의 용량
+    private DeviceStatusSource deviceStatusSource;
+    private RenderThrottle appliedThrottle = RenderThrottle.NONE;
+    private final ComponentCallbacks2 trimMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (adaptiveController != null) {
+                adaptiveController.onTrimMemory(level);
+                pollRenderSettings(adaptiveController.update());
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+    };
     
     private boolean userInteracting;
+    private boolean touching;   // 스크롤 모드에서는 손을 떼도 userInteracting이 남아 있어서 따로 둠
     private boolean sliding;
 
     private boolean flexibleContentSize;
@@ -109,6 +167,9 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     
     private boolean tryOverFirst;
     private boolean tryOverLast;
+
+    private int viewportFirstIndex = PageContentView.NO_INDEX;
+    private int viewportLastIndex = PageContentView.NO_INDEX;
     
     public PageContentReaderView(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -117,6 +178,7 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         scale = DEFAULT_SCALE;
         scaleGestureDetector = new ScaleGestureDetector(context, this);
         scroller = new Scroller(context);
+        prefetchWindow = new ScrollPrefetchWindow();
         
         childViews = new SparseArray<>(3);
         viewCache = new LinkedList<>();
@@ -140,7 +202,14 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         this.flingVelocityThreshold = flingVelocityThreshold;
     }
 
+    public void setDraftVelocityThreshold(int draftVelocityThreshold) {
+        this.draftVelocityThreshold = draftVelocityThreshold;
+    }
+
     public void setViewMode(boolean scrollMode, boolean reverseMode, boolean slidingEnabled) {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordSetViewMode(scrollMode, reverseMode, slidingEnabled);
+        }
         this.scrollMode = scrollMode;
         
         this.reverseMode = reverseMode;
@@ -190,12 +259,20 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         gestureDetector.setOnDoubleTapListener(doubleTapScalingEnabled ? this : null);
     }
 
+    public void setPrefetchMemoryBudget(long bytes) {
+        prefetchWindow.setMemoryBudgetBytes(bytes);
+        requestLayout();
+    }
+
     public void setPageGapPixels(int pageGapPixels) {
         this.pageGapPixels = pageGapPixels;
         requestLayout();
     }
 
     public void setCurrentIndex(int index) {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordSetCurrentIndex(index);
+        }
         if (index >= 0 && index < adapter.getCount()) {
             currentIndex = index;
             listener.onCurrentIndexChanged();
@@ -264,22 +341,44 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     }
     
     private void postSettle(final PageContentView view) {
+        adapter.getRenderScheduler().setDraftOnly(false);
         post(new Runnable() {
             @Override
             public void run() {
+                // 오래 한 페이지에 머무는 동안 기기 상태가 바뀌었을 수 있으므로 HQ patch를 그리기 전에 다시 확인함
+                pollRenderSettings(false);
+                view.resumeFullQuality();
                 view.updateHighQuality();
             }
         });
     }
     
     private void postUnsettle(final PageContentView view) {
+        adapter.getRenderScheduler().setDraftOnly(false);
         post(new Runnable() {
             @Override
             public void run() {
+                view.resumeFullQuality();
                 view.removeHighQuality();
             }
         });
     }
+
+    // 손가락이 닿아 있거나, 밀려가거나, 확대/축소 중에는 낮은 우선순위 작업을 미룸
+    private void updateIdleWorkPaused() {
+        if (adapter == null) {
+            return;
+        }
+
+        adapter.getRenderScheduler().getIdleWork()
+                .setPaused(touching || sliding || scaling || !scroller.isFinished());
+    }
+
+    // 빠르게 움직이거나 확대/축소 중에는 새로 붙는 페이지를 저해상도로만 렌더링
+    private void updateDraftOnlyRendering() {
+        boolean moving = scaling || sliding || Math.abs(getScrollerVelocityY()) > draftVelocityThreshold;
+        adapter.getRenderScheduler().setDraftOnly(moving);
+    }
     
     private Point subScreenSizeOffset(PageContentView view) {
         int x = Math.max((getWidth() - view.getMeasuredWidth()) / 2, 0);
@@ -331,25 +430,8 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     }
     
     private Rect getScrollBounds(int left, int top, int right, int bottom) {
-        int xMin = getWidth() - right;
-        int xMax = -left;
-        int yMin = getHeight() - bottom;
-        int yMax = -top;
-
-        // In either dimension, if view smaller than screen then
-        // constrain it to be central
-        if (xMin > xMax) {
-            xMin = xMax = (xMin + xMax) / 2;
-        }
-        if (yMin > yMax) {
-            if (scrollMode) {
-                yMin = yMax = 0;
-            } else {
-                yMin = yMax = (yMin + yMax) / 2;
-            }
-        }
-
-        return new Rect(xMin, yMin, xMax, yMax);
+        int[] bounds = ScrollGeometry.getScrollBounds(getWidth(), getHeight(), left, top, right, bottom, scrollMode);
+        return new Rect(bounds[0], bounds[1], bounds[2], bounds[3]);
     }
 
     private Rect getScrollBounds(View view) {
@@ -362,9 +444,17 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
                                view.getTop() + view.getMeasuredHeight() + scrollOffsetY);
     }
     
+    private float getScrollerVelocityY() {
+        if (scroller.isFinished()) {
+            return 0;
+        }
+        // Scroller only reports the magnitude, so take the direction from the remaining distance
+        return Math.signum(scroller.getFinalY() - scroller.getCurrY()) * scroller.getCurrVelocity();
+    }
+
     private Point getCorrection(Rect bounds) {
-        return new Point(Math.min(Math.max(0, bounds.left), bounds.right),
-                         Math.min(Math.max(0, bounds.top), bounds.bottom));
+        return new Point(ScrollGeometry.getCorrection(bounds.left, bounds.right),
+                         ScrollGeometry.getCorrection(bounds.top, bounds.bottom));
     }
     
     private Runnable scrollProcessor = new Runnable() {
@@ -412,19 +502,69 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
                 if (tryOverFirst) {
                     listener.onTryOverFirstPage();
                 } else if (tryOverLast) {
-                    listener.onTryOverLastPage();
+                    notifyTryOverLastPage();
                 }
                 tryOverFirst = tryOverLast = false;
+                updateIdleWorkPaused();
             }
         }
     };
     
     @Override
     protected void dispatchDraw(Canvas canvas) {
-        super.dispatchDraw(canvas);
-        drawScrollBars(canvas);
+        PageContentTrace.begin(PageContentTrace.DRAW);
+        try {
+            super.dispatchDraw(canvas);
+        } finally {
+            PageContentTrace.end();
+        }
+
+        PageContentTrace.begin(PageContentTrace.DRAW_SCROLLBARS);
+        try {
+            drawScrollBars(canvas);
+        } finally {
+            PageContentTrace.end();
+        }
+
+        recordFrame();
+    }
+
+    private void recordFrame() {
+        if (adapter == null) {
+            return;
+        }
+
+        RenderMetricsRecorder metrics = adapter.getRenderScheduler().getMetrics();
+        if (currentIndex != firstPixelIndex) {
+            firstPixelIndex = currentIndex;
+            pageTurnTime = SystemClock.uptimeMillis();
+            waitingForFirstPixel = currentIndex != PageContentView.NO_INDEX;
+            boolean decisionsChanged = false;
+            if (adaptiveController != null) {
+                adaptiveController.onPageTurn();
+                decisionsChanged = adaptiveController.update();
+            }
+            pollRenderSettings(decisionsChanged);
+        }
+        if (waitingForFirstPixel) {
+            PageContentView view = childViews.get(currentIndex);
+            if (view != null && view.isRendered()) {
+                metrics.recordTimeToFirstPixel(SystemClock.uptimeMillis() - pageTurnTime);
+                waitingForFirstPixel = false;
+            }
+        }
+
+        metrics.recordFrame(layoutPassesSinceDraw, getResidentBitmapBytes());
+        layoutPassesSinceDraw = 0;
     }
     
+    private final ScrollGeometry.PageSizes pageSizes = new ScrollGeometry.PageSizes() {
+        @Override
+        public SizeF getPageContentSize(int index) {
+            return adapter.getPageContentSize(index);
+        }
+    };
+
     private void drawScrollBars(Canvas canvas) {
         PageContentView view = childViews.get(currentIndex);
         if (view == null || view.getMeasuredWidth() == 0 || view.getMeasuredHeight() == 0) {
@@ -433,31 +573,19 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
 
         int count = adapter.getCount();
         if (scrollMode && count > 1) {
-            long current = -view.getTop(), total = 0L;
+            long[] extent;
             if (flexibleContentSize) {
-                for (int i = 0; i < count; i++) {
-                    SizeF contentSize = adapter.getPageContentSize(i);
-                    float scale = adapter.getFitPolicy().calculateScale(getWidth(), getHeight(), contentSize);
-                    float height = contentSize.height * scale * this.scale + pageGapPixels * this.scale;
-                    total += height;
-                    if (i < currentIndex) {
-                        current += height;
-                    }
-                }
+                extent = ScrollGeometry.getFlexibleScrollExtent(pageSizes, adapter.getFitPolicy(), count,
+                        currentIndex, getWidth(), getHeight(), scale, pageGapPixels, view.getTop());
             } else {
-                int prevCount = reverseMode ? count - currentIndex - 1 : currentIndex;
                 Point offset =  subScreenSizeOffset(view);
-                total = (int) (offset.y * 2 + view.getMeasuredHeight() * count + pageGapPixels * scale * (count - 1));
-                current = (int) (offset.y + prevCount * (view.getMeasuredHeight() + pageGapPixels * scale) - view.getTop());
+                extent = ScrollGeometry.getUniformScrollExtent(count, currentIndex, reverseMode, offset.y,
+                        view.getMeasuredHeight(), scale, pageGapPixels, view.getTop());
             }
 
-            float size = (float) getHeight() * getHeight() / total;
-            if (size < SCROLLBAR_MIN_THUMB_SIZE) {
-                size = SCROLLBAR_MIN_THUMB_SIZE;
-                total = (int) ((total - getHeight()) + total * size / getHeight());
-            }
-            float position = (float) getHeight() * current / total;
-            drawVerticalScrollBar(canvas, position, size);
+            float[] thumb = ScrollGeometry.getScrollBarThumb(extent[0], extent[1], getHeight(),
+                    SCROLLBAR_MIN_THUMB_SIZE);
+            drawVerticalScrollBar(canvas, thumb[0], thumb[1]);
         } else if (!scrollMode || count == 1) {
             if (view.getMeasuredHeight() > getHeight()) {
                 float position = (float) getHeight() * -view.getTop() / view.getMeasuredHeight();
@@ -500,13 +628,28 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        for (int i = 0; i < childViews.size(); i++) {
-            measureView(childViews.valueAt(i));
+        PageContentTrace.begin(PageContentTrace.MEASURE);
+        try {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            for (int i = 0; i < childViews.size(); i++) {
+                measureView(childViews.valueAt(i));
+            }
+        } finally {
+            PageContentTrace.end();
         }
     }
 
     private void doLayout() {
+        layoutPassesSinceDraw++;
+        PageContentTrace.begin(PageContentTrace.LAYOUT);
+        try {
+            layoutChildViews();
+        } finally {
+            PageContentTrace.end();
+        }
+    }
+
+    private void layoutChildViews() {
         if (currentIndex == PageContentView.NO_INDEX) {
             return;
         }
@@ -514,6 +657,9 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         PageContentView cv = childViews.get(currentIndex);
         Point cvOffset;
 
+        updateDraftOnlyRendering();
+        updateIdleWorkPaused();
+
         if (requestedScale != DEFAULT_SCALE) {
             scale = requestedScale;
             requestedScale = DEFAULT_SCALE;
@@ -531,11 +677,16 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
                 }
             }
 
+            if (scrollMode) {
+                prefetchWindow.update(getWidth(), getHeight(), scale, getScrollerVelocityY(), lastScrollDirectionY);
+            }
+
             // Remove not needed children and hold them for reuse
             for (int i = childViews.size() - 1; i >= 0; i--) {
                 int index = childViews.keyAt(i);
                 PageContentView v = childViews.get(index);
-                if (scrollMode && (v.getTop() > getHeight() * 2 * scale || v.getBottom() < -getHeight() * scale)
+                if (scrollMode && (v.getTop() > getHeight() + prefetchWindow.getBelow()
+                                   || v.getBottom() < -prefetchWindow.getAbove())
                     || (!scrollMode && (index < currentIndex - 1 || index > currentIndex + 1))) {
                     v.clear();
                     viewCache.add(v);
@@ -546,6 +697,8 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         } else {
             resetLayout = false;
             scrollOffsetX = scrollOffsetY = 0;
+            lastScrollDirectionY = 0;
+            prefetchWindow.update(getWidth(), getHeight(), scale, 0, 0);
 
             // Remove all children and hold them for reuse
             for (int i = 0; i < childViews.size(); i++) {
@@ -670,7 +823,7 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
             while (isLeftOrUpIndexAvailable(cv.getIndex())) {
                 int lvLeft, lvTop, lvRight, lvBottom;
                 lvBottom = cv.getTop() - margin;
-                if (lvBottom < -getHeight() * scale) {
+                if (lvBottom < -prefetchWindow.getAbove()) {
                     break;
                 }
                 int index = reverseMode ? cv.getIndex() + 1 : cv.getIndex() - 1;
@@ -701,7 +854,7 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
             while (isRightOrDownIndexAvailable(cv.getIndex())) {
                 int rvLeft, rvTop, rvRight, rvBottom;
                 rvTop = cv.getBottom() + margin;
-                if (rvTop > getHeight() * 2 * scale) {
+                if (rvTop > getHeight() + prefetchWindow.getBelow()) {
                     break;
                 }
                 int index = reverseMode ? cv.getIndex() - 1 : cv.getIndex() + 1;
@@ -766,17 +919,60 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         }
     }
 
+    // 미리 그려둔 bitmap이 모두 버려지므로 범위가 같더라도 다음 layout에서 read-ahead와 미리 그리기를 다시 시작함
+    private void clearRenderScheduler() {
+        adapter.getRenderScheduler().clear();
+        viewportFirstIndex = viewportLastIndex = PageContentView.NO_INDEX;
+    }
+
+    private void notifyViewportIfChanged() {
+        if (adapter == null || childViews.size() == 0) {
+            return;
+        }
+
+        // SparseArray의 key는 오름차순으로 정렬되어 있음
+        int first = childViews.keyAt(0);
+        int last = childViews.keyAt(childViews.size() - 1);
+        if (first != viewportFirstIndex || last != viewportLastIndex) {
+            viewportFirstIndex = first;
+            viewportLastIndex = last;
+            PageContentProvider provider = adapter.getPageContentProvider();
+            if (provider instanceof ViewportAwarePageContentProvider) {
+                ((ViewportAwarePageContentProvider) provider).onViewportChanged(first, last);
+            }
+            adapter.readAhead(first, last);
+            adapter.startExpensiveRendering(first, last, getWidth(), getHeight());
+        }
+    }
+
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
 
         doLayout();
+        notifyViewportIfChanged();
 
         invalidate();
     }
     
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            touching = true;
+        } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            touching = false;
+        }
+        boolean handled = super.dispatchTouchEvent(event);
+        updateIdleWorkPaused();
+        return handled;
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordTouch(event);
+        }
         if (!isExternalGestureMode) {
             scaleGestureDetector.onTouchEvent(event);
         }
@@ -854,7 +1050,76 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         return true;
     }
     
+    // fling이 끝났을 때 화면 가운데에 올 페이지를 미리 렌더링하고, 그 사이의 페이지는 렌더링을 미룸
+    private void prefetchFlingLandingPage(int distanceY) {
+        int landingIndex = predictLandingIndex(distanceY);
+        if (landingIndex == PageContentView.NO_INDEX || landingIndex == currentIndex) {
+            return;
+        }
+
+        boolean movingDown = distanceY < 0;
+        int step = (movingDown != reverseMode) ? 1 : -1;
+        int neighbourIndex = landingIndex + step;
+
+        RenderScheduler scheduler = adapter.getRenderScheduler();
+        if (Math.abs(landingIndex - currentIndex) > 2) {
+            scheduler.setPassThroughRange(currentIndex + step * 2, landingIndex - step * 2);
+        }
+        prefetchIfDetached(landingIndex);
+        if (neighbourIndex >= 0 && neighbourIndex < adapter.getCount()) {
+            prefetchIfDetached(neighbourIndex);
+        }
+    }
+
+    // 이미 붙어 있는 페이지는 그 view가 불러오고 그리므로 같은 PageContent를 한 번 더 읽지 않음
+    private void prefetchIfDetached(int index) {
+        if (childViews.get(index) == null) {
+            adapter.prefetch(index, getWidth(), getHeight());
+        }
+    }
+
+    private int predictLandingIndex(int distanceY) {
+        PageContentView cv = childViews.get(currentIndex);
+        if (cv == null) {
+            return PageContentView.NO_INDEX;
+        }
+
+        int margin = (int) (pageGapPixels * scale);
+        int target = getHeight() / 2;
+        int index = currentIndex;
+        int top = cv.getTop() + scrollOffsetY + distanceY;
+        int height = cv.getMeasuredHeight();
+        while (top + height + margin <= target && isRightOrDownIndexAvailable(index)) {
+            top += height + margin;
+            index = reverseMode ? index - 1 : index + 1;
+            height = getScaledPageHeight(index, cv);
+        }
+        while (top > target && isLeftOrUpIndexAvailable(index)) {
+            index = reverseMode ? index + 1 : index - 1;
+            height = getScaledPageHeight(index, cv);
+            top -= height + margin;
+        }
+        return index;
+    }
+
+    private int getScaledPageHeight(int index, PageContentView reference) {
+        PageContentView view = childViews.get(index);
+        if (view != null) {
+            return view.getMeasuredHeight();
+        }
+        if (flexibleContentSize) {
+            SizeF contentSize = adapter.getPageContentSize(index);
+            if (contentSize != null) {
+                float fitScale = adapter.getFitPolicy().calculateScale(getWidth(), getHeight(), contentSize);
+                return (int) (contentSize.height * fitScale * scale);
+            }
+        }
+        return reference.getMeasuredHeight();
+    }
+
     private void settleOrUnsettleViews() {
+        adapter.getRenderScheduler().clearPassThroughRange();
+
         List<PageContentView> toBeSettled = new ArrayList<>();
         for (int i = 0; i < childViews.size(); i++) {
             PageContentView view = childViews.valueAt(i);
@@ -882,12 +1147,148 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     public void setAdapter(PageContentViewAdapter adapter) {
         if (this.adapter != null) {
             this.adapter.unregisterDataSetObserver(dataSetObserver);
+            this.adapter.unregisterPageContentObserver(pageContentObserver);
+            if (adaptiveController != null) {
+                // 떼어내는 adapter의 provider는 AdaptiveRenderController를 붙이기 전 용량으로 돌려놓음
+                restoreContentCacheCapacity();
+            }
         }
         this.adapter = adapter;
         refresh();
         adapter.registerDataSetObserver(dataSetObserver);
+        adapter.registerPageContentObserver(pageContentObserver);
+        if (adaptiveController != null) {
+            rememberContentCacheCapacity();
+        }
+        updateRenderSettings();
     }
     
+    // 두쪽보기 구성(첫페이지 싱글, 역방향)이나 provider가 바뀌어 index만 다시 매겨진 경우에 사용
+    // refresh()와 달리 재사용할 view는 유지하며, 렌더링은 provider 쪽 cache(PageBitmapCache 등)에서 다시 합성됨
+    public void notifyPageLayoutRemapped(int newCurrentIndex) {
+        clearRenderScheduler();
+        for (int i = 0; i < childViews.size(); i++) {
+            PageContentView v = childViews.valueAt(i);
+            v.clear();
+            viewCache.add(v);
+            removeViewInLayout(v);
+        }
+        childViews.clear();
+
+        if (newCurrentIndex >= 0 && newCurrentIndex < adapter.getCount()) {
+            currentIndex = newCurrentIndex;
+        } else {
+            currentIndex = Math.max(Math.min(currentIndex, adapter.getCount() - 1), 0);
+        }
+        listener.onCurrentIndexChanged();
+        scale = DEFAULT_SCALE;
+        resetLayout = true;
+        requestLayout();
+    }
+
+    private void reloadPageContent(int index) {
+        adapter.getRenderScheduler().invalidate(index);
+        PageContentProvider provider = adapter.getPageContentProvider();
+        if (provider instanceof CachedPageContentProvider) {
+            ((CachedPageContentProvider) provider).invalidate(index);
+        }
+        DoublePageContentProvider doubleProvider = findDoublePageContentProvider(provider);
+        if (doubleProvider != null) {
+            doubleProvider.invalidate(index);
+        }
+
+        PageContentView view = childViews.get(index);
+        if (view != null) {
+            view.reloadPageContent();
+            requestLayout();
+        }
+    }
+
+    private void shiftPageContents(int start, int count) {
+        clearRenderScheduler();
+        PageContentProvider provider = adapter.getPageContentProvider();
+        if (provider instanceof CachedPageContentProvider) {
+            ((CachedPageContentProvider) provider).shiftIndices(start, count);
+        }
+        DoublePageContentProvider doubleProvider = findDoublePageContentProvider(provider);
+        if (doubleProvider != null) {
+            doubleProvider.shiftIndices(start, count);
+        }
+
+        SparseArray<PageContentView> shifted = new SparseArray<>(childViews.size());
+        for (int i = 0; i < childViews.size(); i++) {
+            int index = childViews.keyAt(i);
+            PageContentView view = childViews.valueAt(i);
+            if (index >= start) {
+                index += count;
+                view.moveToIndex(index);
+            }
+            shifted.put(index, view);
+        }
+        childViews = shifted;
+
+        // 보고 있던 페이지를 계속 보도록 함
+        if (currentIndex != PageContentView.NO_INDEX && currentIndex >= start) {
+            currentIndex += count;
+            listener.onCurrentIndexChanged();
+        }
+        requestLayout();
+    }
+
+    private void removePageContents(int start, int count) {
+        clearRenderScheduler();
+        PageContentProvider provider = adapter.getPageContentProvider();
+        if (provider instanceof CachedPageContentProvider) {
+            CachedPageContentProvider cachedProvider = (CachedPageContentProvider) provider;
+            for (int index = start; index < start + count; index++) {
+                cachedProvider.invalidate(index);
+            }
+            cachedProvider.shiftIndices(start + count, -count);
+        }
+        DoublePageContentProvider doubleProvider = findDoublePageContentProvider(provider);
+        if (doubleProvider != null) {
+            for (int index = start; index < start + count; index++) {
+                doubleProvider.invalidate(index);
+            }
+            doubleProvider.shiftIndices(start + count, -count);
+        }
+
+        SparseArray<PageContentView> shifted = new SparseArray<>(childViews.size());
+        for (int i = 0; i < childViews.size(); i++) {
+            int index = childViews.keyAt(i);
+            PageContentView view = childViews.valueAt(i);
+            if (index >= start + count) {
+                index -= count;
+                view.moveToIndex(index);
+            } else if (index >= start) {
+                view.clear();
+                viewCache.add(view);
+                removeViewInLayout(view);
+                continue;
+            }
+            shifted.put(index, view);
+        }
+        childViews = shifted;
+
+        if (currentIndex != PageContentView.NO_INDEX && currentIndex >= start) {
+            if (currentIndex >= start + count) {
+                currentIndex -= count;
+            } else {
+                currentIndex = Math.max(Math.min(start, adapter.getCount() - 1), 0);
+            }
+            listener.onCurrentIndexChanged();
+        }
+        requestLayout();
+    }
+
+    // 두쪽보기라면 single page 렌더링 결과를 들고 있는 provider, CachedPageContentProvider에 감싸여 있어도 찾음
+    private static DoublePageContentProvider findDoublePageContentProvider(PageContentProvider provider) {
+        if (provider instanceof CachedPageContentProvider) {
+            provider = ((CachedPageContentProvider) provider).getProvider();
+        }
+        return provider instanceof DoublePageContentProvider ? (DoublePageContentProvider) provider : null;
+    }
+
     private void refresh() {
         for (int i = 0; i < childViews.size(); i++) {
             PageContentView v = childViews.valueAt(i);
@@ -897,6 +1298,9 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         childViews.clear();
         viewCache.clear();
         removeAllViewsInLayout();
+        if (adapter != null) {
+            clearRenderScheduler();
+        }
         scale = DEFAULT_SCALE;
         resetLayout = true;
         requestLayout();
@@ -966,6 +1370,15 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
 
     @Override
     public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+        PageContentTrace.begin(PageContentTrace.SCROLL);
+        try {
+            return handleScroll(e1, e2, distanceX, distanceY);
+        } finally {
+            PageContentTrace.end();
+        }
+    }
+
+    private boolean handleScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
         if (!scrollDisabled) {
             if (scale == DEFAULT_SCALE && !scrollMode && !scaleGestureDetector.isInProgress()) {
                 boolean result = listener.onScrollWithoutScaling(e1, e2, distanceX, distanceY);
@@ -979,9 +1392,11 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
                 scrollOffsetX -= distanceX;
             } else if (Math.abs(distanceY) > 1.5f * Math.abs(distanceX)) {
                 scrollOffsetY -= distanceY;
+                lastScrollDirectionY = (int) -Math.signum(distanceY);
             } else {
                 scrollOffsetX -= distanceX;
                 scrollOffsetY -= distanceY;
+                lastScrollDirectionY = (int) -Math.signum(distanceY);
             }
             requestLayout();
         }
@@ -989,11 +1404,15 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     }
 
     public void scrollVerticalInScrollMode(int offset) {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordScrollVertical(offset);
+        }
         if (!scrollMode) {
             return;
         }
         
         scrollOffsetY -= offset;
+        lastScrollDirectionY = -Integer.signum(offset);
         requestLayout();
 
         PageContentView cv = childViews.get(currentIndex);
@@ -1006,7 +1425,7 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         int cvTop = cv.getTop() + scrollOffsetY;
 
         if (!isRightOrDownIndexAvailable() && cvTop < cvOffset.y) {
-            listener.onTryOverLastPage();
+            notifyTryOverLastPage();
         }
     }
 
@@ -1015,6 +1434,25 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     public void onLongPress(MotionEvent e) {
     }
 
+    // 아직 받는 중인 책이면 지금까지 받은 페이지의 끝은 책의 끝이 아님
+    private void notifyTryOverLastPage() {
+        if (!isStreamingInProgress()) {
+            listener.onTryOverLastPage();
+        }
+    }
+
+    public boolean isStreamingInProgress() {
+        if (adapter == null) {
+            return false;
+        }
+        PageContentProvider provider = adapter.getPageContentProvider();
+        if (provider instanceof StreamingPageContentProvider) {
+            StreamingPageContentProvider streamingProvider = (StreamingPageContentProvider) provider;
+            return streamingProvider.getAvailablePageContentCount() < streamingProvider.getExpectedPageContentCount();
+        }
+        return false;
+    }
+
     private boolean isViewingPrevPageByGestureAvailable() {
         return scale == DEFAULT_SCALE
                 || (touchStartOffset != null && touchStartOffset.first == 0);
@@ -1028,6 +1466,15 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     @Override
     public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX,
             float velocityY) {
+        PageContentTrace.begin(PageContentTrace.FLING);
+        try {
+            return handleFling(e1, e2, velocityX, velocityY);
+        } finally {
+            PageContentTrace.end();
+        }
+    }
+
+    private boolean handleFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
         if (scrollDisabled || e1 == null || e2 == null) {
             return false;
         }
@@ -1048,6 +1495,7 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
             int minY = -maxY;
             
             scroller.fling(0, 0, (int) velocityX, (int) velocityY, minX, maxX, minY, maxY);
+            prefetchFlingLandingPage(scroller.getFinalY());
             post(scrollProcessor);
             return true;
         }
@@ -1108,8 +1556,13 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
 
     @Override
     public boolean onScale(ScaleGestureDetector detector) {
-        doScaling(scale * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
-        return true;
+        PageContentTrace.begin(PageContentTrace.SCALE);
+        try {
+            doScaling(scale * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+            return true;
+        } finally {
+            PageContentTrace.end();
+        }
     }
 
     @Override
@@ -1119,6 +1572,15 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
 
     @Override
     public boolean onDoubleTap(MotionEvent e) {
+        PageContentTrace.begin(PageContentTrace.DOUBLE_TAP);
+        try {
+            return handleDoubleTap(e);
+        } finally {
+            PageContentTrace.end();
+        }
+    }
+
+    private boolean handleDoubleTap(MotionEvent e) {
         if (!canScaling()) {
             onSingleTapConfirmed(e);
             return true;
@@ -1189,7 +1651,12 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
 
     @Override
     public boolean onSingleTapConfirmed(MotionEvent e) {
-        return listener.onSingleTapUp(e);
+        PageContentTrace.begin(PageContentTrace.SINGLE_TAP);
+        try {
+            return listener.onSingleTapUp(e);
+        } finally {
+            PageContentTrace.end();
+        }
     }
 
     private boolean canScaling() {
@@ -1330,6 +1797,11 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         
         childViews.clear();
         viewCache.clear();
+
+        if (adaptiveController != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(trimMemoryCallbacks);
+            adaptiveController = null;
+        }
     }
 
     private void keepScrollOffsetIfNeeded() {
@@ -1342,6 +1814,9 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
     }
 
     public void requestScale(float scale, Point scrollOffset) {
+        if (sessionRecorder != null) {
+            sessionRecorder.recordRequestScale(scale, scrollOffset);
+        }
         requestedScale = scale;
         if (keepScrollOffsetEnabled && scrollOffset != null) {
             keptScrollOffset = scrollOffset;
@@ -1383,6 +1858,154 @@ public class PageContentReaderView extends AdapterView<PageContentViewAdapter>
         }
     }
 
+    // 텔레메트리로 내보낼 수 있는 렌더링 파이프라인 지표, 어댑터가 없으면 null
+    public RenderMetrics getRenderMetrics() {
+        if (adapter == null) {
+            return null;
+        }
+
+        RenderScheduler scheduler = adapter.getRenderScheduler();
+        long residentBytes = getResidentBitmapBytes();
+
+        long contentCacheHits = 0, contentCacheMisses = 0;
+        PageContentProvider provider = adapter.getPageContentProvider();
+        if (provider instanceof CachedPageContentProvider) {
+            contentCacheHits = ((CachedPageContentProvider) provider).getHitCount();
+            contentCacheMisses = ((CachedPageContentProvider) provider).getMissCount();
+        }
+
+        return scheduler.getMetrics().snapshot(scheduler.getIoQueueDepth(), scheduler.getRenderQueueDepth(),
+                contentCacheHits, contentCacheMisses, residentBytes);
+    }
+
+    private long getResidentBitmapBytes() {
+        long bytes = 0;
+        for (int i = 0; i < childViews.size(); i++) {
+            bytes += childViews.valueAt(i).getResidentBitmapBytes();
+        }
+        return bytes + adapter.getRenderScheduler().getPrefetchedBytes();
+    }
+
+    public void resetRenderMetrics() {
+        if (adapter == null) {
+            return;
+        }
+
+        adapter.getRenderScheduler().getMetrics().reset();
+        PageContentProvider provider = adapter.getPageContentProvider();
+        if (provider instanceof CachedPageContentProvider) {
+            ((CachedPageContentProvider) provider).resetCounts();
+        }
+    }
+
+    // 렌더링 시간, 페이지 넘김 간격, 메모리 상황에 맞춰 미리 읽을 페이지 수, 미리 그려둘 bitmap 예산,
+    // HQ patch 해상도와 CachedPageContentProvider의 용량을 바꿈, null을 넘기면 원래 값으로 돌아감
+    public void setAdaptiveRenderController(AdaptiveRenderController controller) {
+        if (adaptiveController != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(trimMemoryCallbacks);
+            restoreContentCacheCapacity();
+        }
+        adaptiveController = controller;
+        if (controller != null) {
+            getContext().getApplicationContext().registerComponentCallbacks(trimMemoryCallbacks);
+            controller.update();
+            rememberContentCacheCapacity();
+        }
+        updateRenderSettings();
+    }
+
+    public AdaptiveRenderController getAdaptiveRenderController() {
+        return adaptiveController;
+    }
+
+    // 기기가 뜨겁거나 절전 모드이면 HQ patch 해상도, 미리 읽을 페이지 수, 렌더링 스레드 수를 줄임
+    // 상태는 페이지가 넘어가거나 움직임이 멈출 때마다 다시 확인함, 보통은 DeviceStatusSource.Platform을 넘기면 됨
+    public void setDeviceStatusSource(DeviceStatusSource deviceStatusSource) {
+        this.deviceStatusSource = deviceStatusSource;
+        updateRenderSettings();
+    }
+
+    private void rememberContentCacheCapacity() {
+        PageContentProvider provider = adapter != null ? adapter.getPageContentProvider() : null;
+        contentCacheCapacity = provider instanceof CachedPageContentProvider
+                ? ((CachedPageContentProvider) provider).getCapacity() : 0;
+    }
+
+    private void restoreContentCacheCapacity() {
+        PageContentProvider provider = adapter != null ? adapter.getPageContentProvider() : null;
+        if (provider instanceof CachedPageContentProvider && contentCacheCapacity > 0) {
+            ((CachedPageContentProvider) provider).setCapacity(contentCacheCapacity);
+        }
+    }
+
+    // 기기 상태를 다시 확인해서 상한이 바뀌었거나 AdaptiveRenderController의 결정이 바뀌었을 때에만 반영함
+    private void pollRenderSettings(boolean decisionsChanged) {
+        if (decisionsChanged || RenderThrottle.of(deviceStatusSource) != appliedThrottle) {
+            updateRenderSettings();
+        }
+    }
+
+    // AdaptiveRenderController의 결정(없으면 기본값)에 기기 상태에 따른 상한을 씌워 adapter와 scheduler에 반영
+    private void updateRenderSettings() {
+        if (adapter == null) {
+            return;
+        }
+
+        int lookAhead = PageContentViewAdapter.READ_AHEAD_COUNT;
+        long prefetchBudget = RenderScheduler.MAX_PREFETCHED_BYTES;
+        float highQualityScale = 1.0f;
+        if (adaptiveController != null) {
+            AdaptiveRenderController.Decisions decisions = adaptiveController.getDecisions();
+            lookAhead = decisions.getLookAhead();
+            prefetchBudget = decisions.getCacheBudgetBytes();
+            highQualityScale = decisions.getHighQualityScale();
+        }
+        RenderThrottle throttle = RenderThrottle.of(deviceStatusSource);
+        appliedThrottle = throttle;
+        lookAhead = Math.min(lookAhead, throttle.maxLookAhead);
+        highQualityScale = Math.min(highQualityScale, throttle.highQualityScale);
+
+        adapter.setReadAheadCount(lookAhead);
+        RenderScheduler scheduler = adapter.getRenderScheduler();
+        scheduler.setAdaptiveController(adaptiveController);
+        scheduler.setPrefetchBudgetBytes(prefetchBudget);
+        scheduler.setHighQualityScale(highQualityScale);
+        scheduler.setRenderThreadLimit(throttle.maxRenderThreads);
+        PageContentProvider provider = adapter.getPageContentProvider();
+        if (adaptiveController != null && provider instanceof CachedPageContentProvider) {
+            // 화면에 붙은 현재와 양옆 페이지에 앞뒤로 미리 읽는 페이지를 더한 만큼,
+            // 앱이 처음 정한 용량보다 줄이지는 않음
+            ((CachedPageContentProvider) provider).setCapacity(Math.max(lookAhead * 2 + 3, contentCacheCapacity));
+        }
+    }
+
+    // 이후의 터치와 setCurrentIndex, requestScale, setViewMode, scrollVerticalInScrollMode 호출을
+    // ReadingSessionReplayer로 재생할 수 있는 형태로 out에 기록함, 이미 기록 중이면 앞의 기록을 먼저 닫음
+    public ReadingSessionRecorder startSessionRecording(OutputStream out) throws IOException {
+        stopSessionRecording();
+        sessionRecorder = new ReadingSessionRecorder(out, getWidth(), getHeight());
+        return sessionRecorder;
+    }
+
+    public void stopSessionRecording() throws IOException {
+        ReadingSessionRecorder recorder = sessionRecorder;
+        if (recorder != null) {
+            sessionRecorder = null;
+            recorder.close();
+        }
+    }
+
+    // 화면 좌표(현재 확대율, 스크롤 위치 반영)에 있는 링크를 찾음
+    public Link findLinkAt(float x, float y) {
+        for (int i = 0; i < childViews.size(); i++) {
+            PageContentView view = childViews.valueAt(i);
+            if (x >= view.getLeft() && x < view.getRight() && y >= view.getTop() && y < view.getBottom()) {
+                return view.findLinkAt(x - view.getLeft(), y - view.getTop());
+            }
+        }
+        return null;
+    }
+
     public boolean isCurrentViewExist() {
         return childViews.get(currentIndex) != null;
     }
@@ -0,0 +1,18 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+final class PageContentReleaser {
+    private PageContentReleaser() {
+    }
+
+    static void release(PageContentProvider provider, int index, PageContent pageContent) {
+        if (pageContent == null) {
+            return;
+        }
+
+        if (provider instanceof ReleasablePageContentProvider) {
+            ((ReleasablePageContentProvider) provider).releasePageContent(index, pageContent);
+        } else if (pageContent instanceof ReleasablePageContent) {
+            ((ReleasablePageContent) pageContent).release();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.os.Build;
+import android.os.Looper;
+import android.os.Trace;
+import android.support.annotation.MainThread;
+
+// systrace/Perfetto에서 볼 수 있도록 레이아웃, 그리기, 제스처, 불러오기, 렌더링 구간에 trace section을 남김
+// 기본은 꺼져 있으며, 켜고 끄는 것은 tracing을 시작하기 전에 해야 section의 시작과 끝이 어긋나지 않음
+public final class PageContentTrace {
+    public interface FrameOverrunListener {
+        // stage는 그 프레임 동안 UI 스레드를 가장 오래 쓴 구간, 이 라이브러리 밖에서 시간을 썼으면 null
+        void onFrameOverrun(long frameMillis, String stage, long stageMillis);
+    }
+
+    static final String MEASURE         = "PageContentReaderView#onMeasure";
+    static final String LAYOUT          = "PageContentReaderView#doLayout";
+    static final String DRAW            = "PageContentReaderView#dispatchDraw";
+    static final String DRAW_SCROLLBARS = "PageContentReaderView#drawScrollBars";
+    static final String SCROLL          = "PageContentReaderView#onScroll";
+    static final String FLING           = "PageContentReaderView#onFling";
+    static final String SCALE           = "PageContentReaderView#onScale";
+    static final String DOUBLE_TAP      = "PageContentReaderView#onDoubleTap";
+    static final String SINGLE_TAP      = "PageContentReaderView#onSingleTapConfirmed";
+    static final String SET_CONTENT     = "PageContentView#setPageContent";
+    static final String LOAD            = "PageContent#load";
+    static final String RENDER          = "PageContent#render";
+    static final String POST_PROCESS    = "BitmapPostProcessor#process";
+
+    private static final boolean TRACE_AVAILABLE = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static volatile boolean enabled;
+    private static volatile FrameWatchdog watchdog;
+
+    private PageContentTrace() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        PageContentTrace.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // 매 프레임 간격을 재서 budgetMillis를 넘으면 listener를 부름, Choreographer가 없는 API 15에서는 아무것도 하지 않음
+    @MainThread
+    public static void startFrameWatchdog(long budgetMillis, FrameOverrunListener listener) {
+        stopFrameWatchdog();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            FrameWatchdog newWatchdog = new FrameWatchdog(budgetMillis, listener);
+            watchdog = newWatchdog;
+            newWatchdog.start();
+        }
+    }
+
+    @MainThread
+    public static void stopFrameWatchdog() {
+        FrameWatchdog oldWatchdog = watchdog;
+        if (oldWatchdog != null) {
+            watchdog = null;
+            oldWatchdog.stop();
+        }
+    }
+
+    static void begin(String section) {
+        if (enabled && TRACE_AVAILABLE) {
+            Trace.beginSection(section);
+        }
+        enterStage(section);
+    }
+
+    // 백그라운드 작업처럼 어느 페이지의 것인지가 중요한 구간용
+    static void begin(String section, int index) {
+        if (enabled && TRACE_AVAILABLE) {
+            Trace.beginSection(section + " #" + index);
+        }
+        enterStage(section);
+    }
+
+    static void end() {
+        if (enabled && TRACE_AVAILABLE) {
+            Trace.endSection();
+        }
+        FrameWatchdog currentWatchdog = watchdog;
+        if (currentWatchdog != null && isMainThread()) {
+            currentWatchdog.exitStage();
+        }
+    }
+
+    private static void enterStage(String section) {
+        FrameWatchdog currentWatchdog = watchdog;
+        if (currentWatchdog != null && isMainThread()) {
+            currentWatchdog.enterStage(section);
+        }
+    }
+
+    private static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+}
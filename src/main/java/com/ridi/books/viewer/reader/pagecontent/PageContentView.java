@@ -4,8 +4,11 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Rect;
 import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.support.annotation.ColorInt;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.View;
 import android.view.ViewGroup;
 
 public class PageContentView extends ViewGroup {
@@ -16,10 +19,13 @@ public class PageContentView extends ViewGroup {
     @ColorInt private int paperColor;
     private FitPolicy fitPolicy;
     private BackgroundTaskListener backgroundTaskListener;
+    private RenderScheduler scheduler;
 
     private Size size;
     
+    private PageContentProvider provider;
     private PageContent pageContent;
+    private PageContentHandle contentHandle;
     private AsyncTask<Void, Void, PageContent> contentLoadTask;
 
     private PageContentImageView fullView;
@@ -27,13 +33,21 @@ public class PageContentView extends ViewGroup {
     private PageContentImageView hqView;  // high quality view
     private AsyncTask<HighQualityInfo, Void, HighQualityInfo> hqRenderingTask;
     private HighQualityInfo hqInfo;
+    private SlicedPageContentImageView sliceView;  // sliceThreshold보다 긴 페이지용
+    private SparseArray<AsyncTask<Void, Void, Bitmap>> sliceRenderingTasks = new SparseArray<>();
+    private int sliceThreshold;
+    private ResolutionPolicy resolutionPolicy;
     private BitmapPostProcessor postProcessor;
     
     private boolean rendered;
+    private boolean draft;  // 움직이는 중이라 저해상도로만 렌더링된 상태
+    private boolean renderingDraft;  // fullRenderingTask가 draft를 그리는 중
+    private PageContentProvider deferredProvider;  // 지나가기만 할 페이지라 로딩을 미뤄둔 경우
 
     PageContentView(Context context, int canvasWidth, int canvasHeight, @ColorInt int paperColor,
                     FitPolicy fitPolicy, BackgroundTaskListener backgroundTaskListener,
-                    BitmapPostProcessor postProcessor) {
+                    BitmapPostProcessor postProcessor, RenderScheduler scheduler, int sliceThreshold,
+                    ResolutionPolicy resolutionPolicy) {
         this(context, null);
         this.index = NO_INDEX;
         this.canvasSize = new Size(canvasWidth, canvasHeight);
@@ -41,6 +55,9 @@ public class PageContentView extends ViewGroup {
         this.fitPolicy = fitPolicy;
         this.backgroundTaskListener = backgroundTaskListener;
         this.postProcessor = postProcessor;
+        this.scheduler = scheduler;
+        this.sliceThreshold = sliceThreshold;
+        this.resolutionPolicy = resolutionPolicy;
 
         size = canvasSize;
         fullView = new PageContentImageView(context);
@@ -54,14 +71,26 @@ public class PageContentView extends ViewGroup {
     }
 
     void clear() {
+        clear(false);
+    }
+
+    // keepDisplayed이면 새 내용이 렌더링될 때까지 크기와 지금 보이는 bitmap을 유지함
+    private void clear(boolean keepDisplayed) {
+        releasePageContent();
         index = NO_INDEX;
+        deferredProvider = null;
         if (contentLoadTask != null) {
             contentLoadTask.cancel(true);
             contentLoadTask = null;
         }
         
+        provider = null;
         pageContent = null;
-        rendered = false;
+        if (!keepDisplayed) {
+            rendered = false;
+        }
+        draft = false;
+        renderingDraft = false;
         
         if (fullRenderingTask != null) {
             fullRenderingTask.cancel(true);
@@ -73,13 +102,35 @@ public class PageContentView extends ViewGroup {
             hqRenderingTask = null;
         }
 
+        for (int i = 0; i < sliceRenderingTasks.size(); i++) {
+            sliceRenderingTasks.valueAt(i).cancel(true);
+        }
+        sliceRenderingTasks.clear();
+
+        if (keepDisplayed) {
+            hideHqViewIfExists();
+            return;
+        }
+
         size = canvasSize;
 
         fullView.setImageBitmap(null);
         fullView.setVisibility(INVISIBLE);
+        if (sliceView != null) {
+            sliceView.clearSlices();
+            sliceView.setVisibility(INVISIBLE);
+        }
         hideHqViewIfExists();
     }
     
+    private void releasePageContent() {
+        if (contentHandle != null) {
+            // 렌더링 중이면 그 작업이 끝난 뒤에 해제됨
+            contentHandle.close();
+            contentHandle = null;
+        }
+    }
+
     private void onStartBackgroundTask() {
         if (backgroundTaskListener != null) {
             backgroundTaskListener.onStartBackgroundTask();
@@ -124,6 +175,10 @@ public class PageContentView extends ViewGroup {
         int height = bottom - top;
 
         fullView.layout(0, 0, width, height);
+        if (sliceView != null) {
+            sliceView.layout(0, 0, width, height);
+            updateResidentSlices(top, height);
+        }
 
         if (hqInfo != null) {
             if (hqInfo.size.width != width || hqInfo.size.height != height) {
@@ -136,11 +191,46 @@ public class PageContentView extends ViewGroup {
         }
     }
     
-    void loadPageContent(final PageContentProvider provider, final int index) {
-        clear();
+    void loadPageContent(PageContentProvider provider, int index) {
+        load(provider, index, false);
+    }
+
+    // 같은 페이지의 내용이 바뀌었을 때 크기와 화면을 유지한 채 다시 불러옴
+    void reloadPageContent() {
+        PageContentProvider provider = deferredProvider != null ? deferredProvider : this.provider;
+        if (provider != null && index != NO_INDEX) {
+            load(provider, index, true);
+        }
+    }
+
+    // 앞쪽에 페이지가 추가/삭제되어 이 view가 가리키는 index만 바뀐 경우
+    void moveToIndex(int newIndex) {
+        if (contentLoadTask != null && provider != null) {
+            // 이전 index로 불러오는 중이었으므로 새 index로 다시 불러옴
+            load(provider, newIndex, true);
+        } else {
+            index = newIndex;
+        }
+    }
+
+    private void load(final PageContentProvider provider, final int index, boolean keepDisplayed) {
+        clear(keepDisplayed);
 
         this.index = index;
+        this.provider = provider;
+        if (scheduler.isPassThrough(index)) {
+            deferredProvider = provider;
+            return;
+        }
+
+        if (!PageContentAvailability.isAvailable(provider, index)) {
+            showPlaceholder(provider.getPageContentSize(index));
+            return;
+        }
+
         contentLoadTask = new AsyncTask<Void, Void, PageContent>() {
+            private final long requestTime = SystemClock.uptimeMillis();
+
             @Override
             protected void onPreExecute() {
                 onStartBackgroundTask();
@@ -148,22 +238,122 @@ public class PageContentView extends ViewGroup {
             
             @Override
             protected PageContent doInBackground(Void... params) {
-                return provider.getPageContent(index);
+                RenderRequestRegistry registry = scheduler.getRequestRegistry();
+                PageContent pageContent = registry.adoptContent(provider, index);
+                if (pageContent != null) {
+                    return pageContent;
+                }
+
+                PageContentTrace.begin(PageContentTrace.LOAD, index);
+                try {
+                    pageContent = provider.getPageContent(index);
+                } finally {
+                    PageContentTrace.end();
+                }
+                if (pageContent != null && isCancelled()) {
+                    // 같은 페이지가 곧 다시 붙을 수 있으므로 바로 해제하지 않고 맡겨둠
+                    registry.parkContent(provider, index, pageContent);
+                    return null;
+                }
+                return pageContent;
             }
             
             @Override
             protected void onPostExecute(PageContent result) {
                 onCompleteBackgroundTask();
-                setPageContent(result);
+                contentLoadTask = null;
+                scheduler.getMetrics().recordContentLoad(SystemClock.uptimeMillis() - requestTime);
+                if (result != null) {
+                    contentHandle = new PageContentHandle(provider, index, result,
+                            scheduler.ioExecutorFor(RenderScheduler.PRIORITY_IMMEDIATE));
+                }
+                PageContentTrace.begin(PageContentTrace.SET_CONTENT, index);
+                try {
+                    setPageContent(result);
+                } finally {
+                    PageContentTrace.end();
+                }
+                buildLinkIndex();
             }
             
             @Override
-            protected void onCancelled() {
+            protected void onCancelled(PageContent result) {
                 onCompleteBackgroundTask();
+                PageContentReleaser.release(provider, index, result);
             }
         };
         
-        contentLoadTask.execute();
+        contentLoadTask.executeOnExecutor(scheduler.ioExecutorFor(RenderScheduler.PRIORITY_VISIBLE));
+    }
+
+    // 아직 내용이 도착하지 않은 페이지를 알려진 크기만큼 paper color로 채워둠
+    private void showPlaceholder(SizeF contentSize) {
+        if (contentSize != null) {
+            size = calculateSize(contentSize);
+        }
+        fullView.setImageBitmap(null);
+        fullView.setVisibility(VISIBLE);
+        requestLayout();
+    }
+
+    private Size calculateSize(SizeF contentSize) {
+        float scale = fitPolicy.calculateScale(canvasSize.width, canvasSize.height, contentSize);
+        return new Size((int) (contentSize.width * scale), (int) (contentSize.height * scale));
+    }
+
+    private void buildLinkIndex() {
+        final PageContentHandle handle = contentHandle;
+        if (handle == null || LinkIndex.peek(handle.getPageContent()) != null) {
+            return;
+        }
+
+        // 링크 색인은 탭할 때에만 필요하므로 렌더링보다 낮은 우선순위로 움직이지 않을 때 만들어 둠
+        scheduler.renderExecutorFor(RenderScheduler.PRIORITY_IDLE).execute(new Runnable() {
+            @Override
+            public void run() {
+                PageContent pageContent = handle.use();
+                if (pageContent != null) {
+                    try {
+                        LinkIndex.of(pageContent);
+                    } finally {
+                        handle.done();
+                    }
+                }
+            }
+        });
+    }
+
+    Link findLinkAt(float x, float y) {
+        PageContent pageContent = this.pageContent;
+        if (pageContent == null || getWidth() == 0 || getHeight() == 0) {
+            return null;
+        }
+
+        SizeF contentSize = pageContent.getSize();
+        float contentX = x * contentSize.width / getWidth();
+        float contentY = y * contentSize.height / getHeight();
+
+        LinkIndex linkIndex = LinkIndex.peek(pageContent);
+        if (linkIndex != null) {
+            return linkIndex.find(contentX, contentY);
+        }
+        return LinkIndex.findLinear(pageContent.getLinkList(), contentX, contentY);
+    }
+
+    void resumeFullQuality() {
+        if (deferredProvider != null) {
+            loadPageContent(deferredProvider, index);
+        } else if ((draft || renderingDraft) && pageContent != null) {
+            // 아직 끝나지 않은 draft도 기다리지 않고 원래 해상도로 바꿔 그림
+            startFullRendering(false);
+        } else if (sliceView != null && pageContent != null) {
+            // 그리는 중인 draft slice는 끝난 뒤 onPostExecute에서 이어서 그림
+            for (int i = 0; i < sliceView.getSliceCount(); i++) {
+                if (sliceView.isDraftSlice(i) && sliceRenderingTasks.get(i) == null) {
+                    startSliceRendering(i, false);
+                }
+            }
+        }
     }
     
     private void setPageContent(PageContent pageContent) {
@@ -171,18 +361,131 @@ public class PageContentView extends ViewGroup {
             return;
         }
         
+        this.pageContent = pageContent;
+        // Calculate scaled size that fits within the screen limits
+        // This is the size at minimum zoom
+        size = calculateSize(pageContent.getSize());
+
+        // Already rendered ahead of time, e.g. as the landing page of a fling
+        Bitmap prefetched = scheduler.takePrefetchedBitmap(index, resolutionPolicy.calculateRenderSize(size));
+        if (prefetched != null) {
+            fullView.setImageBitmap(prefetched);
+            fullView.setVisibility(VISIBLE);
+            rendered = true;
+
+            requestLayout();
+            return;
+        }
+
+        if (size.height > sliceThreshold) {
+            startSlicedRendering();
+            return;
+        }
+
+        // 오래 걸리는 페이지는 draft를 먼저 보여준 뒤 이어서 원래 해상도로 그림
+        startFullRendering(scheduler.isDraftOnly()
+                || scheduler.isExpensive(contentHandle.getProvider(), index, pageContent));
+    }
+
+    private void startSlicedRendering() {
+        if (sliceView == null) {
+            sliceView = new SlicedPageContentImageView(getContext());
+            sliceView.setPaperColor(paperColor);
+            addView(sliceView, indexOfChild(fullView) + 1);
+        }
+        sliceView.setSlicing(size.height, canvasSize.height);
+        sliceView.setVisibility(VISIBLE);
+
+        // Slices near the viewport are rendered from onLayout once the new size is laid out
+        requestLayout();
+    }
+
+    // 화면 근처(위아래로 한 화면)의 slice만 렌더링해서 들고 있고 나머지는 버림
+    private void updateResidentSlices(int top, int height) {
+        if (sliceView.getSliceCount() == 0 || pageContent == null || height == 0 || getParent() == null) {
+            return;
+        }
+
+        int[] visible = SliceLayout.getVisibleRange(top, height, ((View) getParent()).getHeight(), size.height);
+        int[] resident = SliceLayout.getResidentSlices(size.height, canvasSize.height,
+                visible[0], visible[1], canvasSize.height);
+
+        for (int i = 0; i < sliceView.getSliceCount(); i++) {
+            AsyncTask<Void, Void, Bitmap> task = sliceRenderingTasks.get(i);
+            if (i >= resident[0] && i <= resident[1]) {
+                if (sliceView.getSlice(i) == null && task == null) {
+                    startSliceRendering(i, scheduler.isDraftOnly());
+                }
+            } else {
+                if (task != null) {
+                    task.cancel(true);
+                    sliceRenderingTasks.remove(i);
+                }
+                if (sliceView.getSlice(i) != null) {
+                    sliceView.setSlice(i, null, false);
+                }
+            }
+        }
+    }
+
+    // 움직이는 동안에는 일반 페이지처럼 slice도 draft 크기로만 그림
+    private void startSliceRendering(final int slice, final boolean draft) {
+        int sliceTop = sliceView.getSliceTop(slice);
+        Size renderSize = resolutionPolicy.calculateRenderSize(
+                new Size(size.width, sliceView.getSliceBottom(slice) - sliceTop));
+        final int bitmapWidth = draft ? Math.max(renderSize.width / RenderScheduler.DRAFT_DOWNSCALE, 1)
+                                      : renderSize.width;
+        final int bitmapHeight = draft ? Math.max(renderSize.height / RenderScheduler.DRAFT_DOWNSCALE, 1)
+                                       : renderSize.height;
+        float factor = (float) bitmapWidth / size.width;
+        final int startY = (int) (-sliceTop * factor);
+        final int pageHeight = (int) (size.height * factor);
+
+        AsyncTask<Void, Void, Bitmap> task = new AsyncRenderingTask<Void, Void, Bitmap>() {
+            @Override
+            protected void onPreExecute() {
+                onStartBackgroundTask();
+            }
+
+            @Override
+            protected Bitmap doInBackground(Void... params) {
+                return render(draft ? BitmapLedger.ORIGIN_DRAFT : BitmapLedger.ORIGIN_SLICE,
+                        bitmapWidth, bitmapHeight, 0, startY, bitmapWidth, pageHeight, false);
+            }
+
+            @Override
+            protected void onPostExecute(Bitmap result) {
+                onCompleteBackgroundTask();
+                sliceRenderingTasks.remove(slice);
+                recordLatency(draft ? RenderMetrics.TIER_DRAFT : RenderMetrics.TIER_SLICE);
+                sliceView.setSlice(slice, result, draft);
+                rendered = true;
+                if (draft && !scheduler.isDraftOnly()) {
+                    startSliceRendering(slice, false);
+                }
+            }
+
+            @Override
+            protected void onCancelled() {
+                onCompleteBackgroundTask();
+            }
+        };
+        sliceRenderingTasks.put(slice, task);
+        task.executeOnExecutor(scheduler.renderExecutorFor(RenderScheduler.PRIORITY_VISIBLE));
+    }
+
+    private void startFullRendering(final boolean draft) {
         if (fullRenderingTask != null) {
             fullRenderingTask.cancel(true);
             fullRenderingTask = null;
         }
-        
-        this.pageContent = pageContent;
-        // Calculate scaled size that fits within the screen limits
-        // This is the size at minimum zoom
-        SizeF contentSize = pageContent.getSize();
-        float scale = fitPolicy.calculateScale(canvasSize.width, canvasSize.height, contentSize);
-        size = new Size((int) (contentSize.width * scale), (int) (contentSize.height * scale));
-        
+
+        // Oversized pages are rendered downsampled and scaled up by PageContentImageView
+        Size renderSize = resolutionPolicy.calculateRenderSize(size);
+        final int width = draft ? Math.max(renderSize.width / RenderScheduler.DRAFT_DOWNSCALE, 1) : renderSize.width;
+        final int height = draft ? Math.max(renderSize.height / RenderScheduler.DRAFT_DOWNSCALE, 1) : renderSize.height;
+        renderingDraft = draft;
+
         // Render the page in the background
         fullRenderingTask = new AsyncRenderingTask<Void, Void, Bitmap>() {
             @Override
@@ -192,25 +495,26 @@ public class PageContentView extends ViewGroup {
 
             @Override
             protected Bitmap doInBackground(Void... params) {
-                PageContent pageContent = PageContentView.this.pageContent;
-
-                if (pageContent != null) {
-                    Bitmap bitmap = pageContent.renderToBitmap(
-                            size.width, size.height, 0, 0, size.width, size.height, false);
-                    return applyPostProcessor(bitmap);
-                } else {
-                    return null;
-                }
+                return render(draft ? BitmapLedger.ORIGIN_DRAFT : BitmapLedger.ORIGIN_FULL,
+                        width, height, 0, 0, width, height, false);
             }
 
             @Override
             protected void onPostExecute(Bitmap result) {
                 onCompleteBackgroundTask();
+                fullRenderingTask = null;
+                renderingDraft = false;
+                recordLatency(draft ? RenderMetrics.TIER_DRAFT : RenderMetrics.TIER_FULL);
                 fullView.setImageBitmap(result);
                 fullView.setVisibility(VISIBLE);
                 rendered = true;
+                PageContentView.this.draft = draft;
 
                 requestLayout();
+                // 그리는 동안 멈췄거나, 멈춘 상태에서 오래 걸리는 페이지라 draft를 먼저 그린 경우
+                if (draft && !scheduler.isDraftOnly()) {
+                    startFullRendering(false);
+                }
             }
             
             @Override
@@ -219,14 +523,16 @@ public class PageContentView extends ViewGroup {
             }
         };
 
-        fullRenderingTask.execute();
+        fullRenderingTask.executeOnExecutor(scheduler.renderExecutorFor(RenderScheduler.PRIORITY_VISIBLE));
     }
     
     void updateHighQuality() {
         Rect viewArea = new Rect(getLeft(), getTop(), getRight(), getBottom());
         
-        // If the viewArea's size matches the unzoomed size, there is no need for an hq patch
-        if (viewArea.width() != size.width || viewArea.height() != size.height) {
+        // If the viewArea's size matches the rendered bitmap, there is no need for an hq patch
+        // ResolutionPolicy가 줄여서 그린 페이지는 확대하지 않았어도 patch로 선명하게 채움
+        Size renderSize = resolutionPolicy.calculateRenderSize(size);
+        if (viewArea.width() != renderSize.width || viewArea.height() != renderSize.height) {
             Size hqSize = new Size(viewArea.width(), viewArea.height());
             Rect hqArea = new Rect(0, 0, canvasSize.width, canvasSize.height);
 
@@ -262,40 +568,57 @@ public class PageContentView extends ViewGroup {
                 addView(hqView);
             }
 
+            final float hqScale = scheduler.getHighQualityScale();
             hqRenderingTask = new AsyncRenderingTask<HighQualityInfo, Void, HighQualityInfo>() {
+                @Override
+                protected void onPreExecute() {
+                    onStartBackgroundTask();
+                }
+
                 @Override
                 protected HighQualityInfo doInBackground(HighQualityInfo... params) {
                     HighQualityInfo info = params[0];
-
-                    if (pageContent != null) {
-                        int bitmapWidth = info.area.width();
-                        int bitmapHeight = info.area.height();
-                        int startX = -info.area.left;
-                        int startY = -info.area.top;
-                        int pageWidth = info.size.width;
-                        int pageHeight = info.size.height;
-
-                        Bitmap bitmap = pageContent.renderToBitmap(bitmapWidth, bitmapHeight,
-                                startX, startY, pageWidth, pageHeight, true);
-                        info.bitmap = applyPostProcessor(bitmap);
-                    }
-
+                    // hqScale이 1보다 작으면 작게 그린 것을 hqView가 늘려서 보여줌
+                    int bitmapWidth = Math.max((int) (info.area.width() * hqScale), 1);
+                    int bitmapHeight = Math.max((int) (info.area.height() * hqScale), 1);
+                    int startX = (int) (-info.area.left * hqScale);
+                    int startY = (int) (-info.area.top * hqScale);
+                    int pageWidth = (int) (info.size.width * hqScale);
+                    int pageHeight = (int) (info.size.height * hqScale);
+
+                    info.bitmap = render(BitmapLedger.ORIGIN_HIGH_QUALITY,
+                            bitmapWidth, bitmapHeight, startX, startY, pageWidth, pageHeight, true);
                     return info;
                 }
                 
                 @Override
-                protected void onPostExecute(HighQualityInfo result) {
-                    if (hqRenderingTask == this && result.bitmap != null) {
-                        hqInfo = result;
-                        hqView.setImageBitmap(result.bitmap);
-                        hqView.setVisibility(VISIBLE);
+                protected void onPostExecute(final HighQualityInfo result) {
+                    onCompleteBackgroundTask();
+                    recordLatency(RenderMetrics.TIER_HIGH_QUALITY);
+                    // 선명하게 바꾸는 것뿐이므로 애니메이션 프레임 사이에 끼어들지 않도록 UI 스레드가 한가할 때 붙임
+                    final AsyncTask<HighQualityInfo, Void, HighQualityInfo> task = this;
+                    scheduler.getIdleWork().postWhenIdle(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (hqRenderingTask == task && result.bitmap != null) {
+                                hqInfo = result;
+                                hqView.setImageBitmap(result.bitmap);
+                                hqView.setVisibility(VISIBLE);
+
+                                requestLayout();
+                            }
+                        }
+                    });
+                }
 
-                        requestLayout();
-                    }
+                @Override
+                protected void onCancelled() {
+                    onCompleteBackgroundTask();
                 }
             };
             
-            hqRenderingTask.execute(new HighQualityInfo(hqSize, hqArea));
+            hqRenderingTask.executeOnExecutor(scheduler.renderExecutorFor(RenderScheduler.PRIORITY_VISIBLE),
+                    new HighQualityInfo(hqSize, hqArea));
         }
     }
     
@@ -362,12 +685,87 @@ public class PageContentView extends ViewGroup {
 
     private abstract class AsyncRenderingTask<Params, Progress, Result>
             extends AsyncTask<Params, Progress, Result> {
-        protected Bitmap applyPostProcessor(Bitmap bitmap) {
-            if (!isCancelled() && postProcessor != null) {
-                Bitmap processed = postProcessor.process(bitmap);
+        // 작업을 만든 시점(UI 스레드)의 PageContent
+        private final PageContentHandle handle = contentHandle;
+        private final long requestTime = SystemClock.uptimeMillis();
+
+        protected void recordLatency(int tier) {
+            scheduler.getMetrics().recordRenderLatency(tier, SystemClock.uptimeMillis() - requestTime);
+        }
+
+        // 같은 렌더링이 이미 진행 중이거나 방금 취소된 작업이 끝내 두었으면 그 결과를 받음
+        protected Bitmap render(final int origin, final int bitmapWidth, final int bitmapHeight,
+                                final int startX, final int startY, final int pageWidth, final int pageHeight,
+                                final boolean forHighQuality) {
+            if (handle == null) {
+                return null;
+            }
+
+            RenderRequestRegistry.Key key = new RenderRequestRegistry.Key(handle.getProvider(), handle.getIndex(),
+                    bitmapWidth, bitmapHeight, startX, startY, pageWidth, pageHeight, forHighQuality);
+            return scheduler.getRequestRegistry().render(key, new RenderRequestRegistry.Work() {
+                @Override
+                public Bitmap render() {
+                    PageContent pageContent = handle.use();
+                    if (pageContent == null) {
+                        return null;
+                    }
+
+                    scheduler.getMetrics().recordRenderStarted();
+                    long cpuStart = SystemClock.currentThreadTimeMillis();
+                    try {
+                        Bitmap bitmap;
+                        long renderStart = SystemClock.uptimeMillis();
+                        PageContentTrace.begin(PageContentTrace.RENDER, handle.getIndex());
+                        try {
+                            if (origin == BitmapLedger.ORIGIN_DRAFT && pageContent instanceof DoublePageContent) {
+                                // draft 크기의 single page가 PageBitmapCache에 남지 않도록 함
+                                bitmap = ((DoublePageContent) pageContent).renderToBitmap(bitmapWidth, bitmapHeight,
+                                        startX, startY, pageWidth, pageHeight, forHighQuality, false);
+                            } else {
+                                bitmap = pageContent.renderToBitmap(bitmapWidth, bitmapHeight,
+                                        startX, startY, pageWidth, pageHeight, forHighQuality);
+                            }
+                        } finally {
+                            PageContentTrace.end();
+                        }
+                        if (origin == BitmapLedger.ORIGIN_FULL && bitmap != null) {
+                            scheduler.recordRenderCost(handle.getIndex(), SystemClock.uptimeMillis() - renderStart);
+                        }
+                        BitmapLedger.record(bitmap, origin, handle.getIndex());
+                        return applyPostProcessor(bitmap);
+                    } finally {
+                        handle.done();
+                        if (AsyncRenderingTask.this.isCancelled()) {
+                            scheduler.getMetrics().recordCancelledRender(
+                                    SystemClock.currentThreadTimeMillis() - cpuStart);
+                        } else {
+                            scheduler.getMetrics().recordRenderCompleted();
+                        }
+                    }
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return AsyncRenderingTask.this.isCancelled();
+                }
+            });
+        }
+
+        // 결과를 다른 작업이 넘겨받을 수 있으므로 취소되었어도 후처리함
+        private Bitmap applyPostProcessor(Bitmap bitmap) {
+            if (bitmap != null && postProcessor != null) {
+                Bitmap processed;
+                PageContentTrace.begin(PageContentTrace.POST_PROCESS, handle.getIndex());
+                try {
+                    processed = postProcessor.process(bitmap);
+                } finally {
+                    PageContentTrace.end();
+                }
                 if (processed != bitmap) {
                     bitmap.recycle();
                     bitmap = processed;
+                    BitmapLedger.record(bitmap, BitmapLedger.ORIGIN_POST_PROCESS, handle.getIndex());
                 }
             }
             return bitmap;
@@ -377,4 +775,19 @@ public class PageContentView extends ViewGroup {
     public Size getRenderSize() {
         return size;
     }
+
+    long getResidentBitmapBytes() {
+        long bytes = 0;
+        Bitmap bitmap = fullView.getImageBitmap();
+        if (bitmap != null) {
+            bytes += bitmap.getByteCount();
+        }
+        if (hqView != null && hqView.getImageBitmap() != null) {
+            bytes += hqView.getImageBitmap().getByteCount();
+        }
+        if (sliceView != null) {
+            bytes += sliceView.getResidentBytes();
+        }
+        return bytes;
+    }
 }
@@ -7,11 +7,39 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public abstract class PageContentViewAdapter extends BaseAdapter {
+    interface PageContentObserver {
+        void onPageContentChanged(int index);
+        void onPageContentRangeInserted(int start, int count);
+        void onPageContentRangeRemoved(int start, int count);
+    }
+
+    private static final int DEFAULT_SLICE_THRESHOLD_PIXELS = 4096;
+    private static final long DEFAULT_MAX_RENDER_PIXELS = 4096L * 4096L;
+    private static final int DEFAULT_MAX_BITMAP_DIMENSION = 4096;
+    static final int READ_AHEAD_COUNT = 2;
+
     private final Context context;
+    private final RenderScheduler renderScheduler;
+    private final ResolutionPolicy defaultResolutionPolicy =
+            new ResolutionPolicy.PixelBudget(DEFAULT_MAX_RENDER_PIXELS, DEFAULT_MAX_BITMAP_DIMENSION);
+    private final List<PageContentObserver> pageContentObservers = new ArrayList<>();
+    private int readAheadCount = READ_AHEAD_COUNT;
+    // startExpensiveRendering()이 매번 다시 쓰는 작업 공간
+    private int[] expensiveIndices = new int[READ_AHEAD_COUNT * 2];
+    private long[] expensiveCosts = new long[READ_AHEAD_COUNT * 2];
     
     public PageContentViewAdapter(Context context) {
+        this(context, new RenderScheduler());
+    }
+
+    // 테스트에서 렌더링 스레드 대신 직접 실행하는 scheduler를 넣을 때 씀
+    PageContentViewAdapter(Context context, RenderScheduler renderScheduler) {
         this.context = context;
+        this.renderScheduler = renderScheduler;
     }
 
     @Override
@@ -35,7 +63,8 @@ public abstract class PageContentViewAdapter extends BaseAdapter {
         if (convertView == null) {
             view = new PageContentView(context, parent.getWidth(), parent.getHeight(),
                     getPaperColor(), getFitPolicy(),
-                    getBackgroundTaskListener(), getBitmapPostProcessor());
+                    getBackgroundTaskListener(), getBitmapPostProcessor(), renderScheduler,
+                    getSliceThresholdPixels(), getResolutionPolicy());
         } else {
             view = (PageContentView) convertView;
         }
@@ -43,10 +72,118 @@ public abstract class PageContentViewAdapter extends BaseAdapter {
         return view;
     }
 
+    void registerPageContentObserver(PageContentObserver observer) {
+        pageContentObservers.add(observer);
+    }
+
+    void unregisterPageContentObserver(PageContentObserver observer) {
+        pageContentObservers.remove(observer);
+    }
+
+    // notifyDataSetChanged()와 달리 해당 페이지만 다시 렌더링하고 스크롤 위치와 확대율은 유지함
+    public void notifyPageContentChanged(int index) {
+        for (PageContentObserver observer : pageContentObservers) {
+            observer.onPageContentChanged(index);
+        }
+    }
+
+    public void notifyPageContentRangeInserted(int start, int count) {
+        for (PageContentObserver observer : pageContentObservers) {
+            observer.onPageContentRangeInserted(start, count);
+        }
+    }
+
+    public void notifyPageContentRangeRemoved(int start, int count) {
+        for (PageContentObserver observer : pageContentObservers) {
+            observer.onPageContentRangeRemoved(start, count);
+        }
+    }
+
     SizeF getPageContentSize(int position) {
         return getPageContentProvider().getPageContentSize(position);
     }
 
+    RenderScheduler getRenderScheduler() {
+        return renderScheduler;
+    }
+
+    // PageContent를 읽는 I/O 스레드 수와 bitmap을 만드는 렌더링 스레드 수, 기본값은 각각 1
+    // 렌더링 스레드를 늘리려면 PageContent.renderToBitmap()이 여러 스레드에서 동시에 불려도 안전해야 함
+    public void setRenderPoolSizes(int ioThreads, int renderThreads) {
+        renderScheduler.setPoolSizes(ioThreads, renderThreads);
+    }
+
+    // AdaptiveRenderController가 정하는 값, 붙어 있지 않으면 READ_AHEAD_COUNT
+    void setReadAheadCount(int readAheadCount) {
+        this.readAheadCount = readAheadCount;
+    }
+
+    // 화면에 붙은 범위 바깥의 PageContent를 미리 읽어둠, getPageContentProvider()가 CachedPageContentProvider일 때에만 동작
+    void readAhead(int first, int last) {
+        PageContentProvider provider = getPageContentProvider();
+        if (!(provider instanceof CachedPageContentProvider)) {
+            return;
+        }
+        int count = provider.getPageContentCount();
+        for (int i = 1; i <= readAheadCount; i++) {
+            if (last + i < count) {
+                renderScheduler.readAhead((CachedPageContentProvider) provider, last + i);
+            }
+            if (first - i >= 0) {
+                renderScheduler.readAhead((CachedPageContentProvider) provider, first - i);
+            }
+        }
+    }
+
+    void prefetch(int position, int canvasWidth, int canvasHeight) {
+        prefetch(position, canvasWidth, canvasHeight, RenderScheduler.PRIORITY_IMMEDIATE);
+    }
+
+    private void prefetch(int position, int canvasWidth, int canvasHeight, int priority) {
+        renderScheduler.prefetch(getPageContentProvider(), position, getFitPolicy(),
+                canvasWidth, canvasHeight, getBitmapPostProcessor(),
+                getSliceThresholdPixels(), getResolutionPolicy(), priority);
+    }
+
+    // 화면에 붙은 범위 바로 바깥에서 렌더링이 오래 걸리는 페이지를 미리 그려둠, 비싼 페이지부터 시작함
+    // PageContentReaderView가 붙은 범위가 바뀔 때에만 UI 스레드에서 부르며, 할당 없이 끝냄
+    void startExpensiveRendering(int first, int last, int canvasWidth, int canvasHeight) {
+        PageContentProvider provider = getPageContentProvider();
+        int count = provider.getPageContentCount();
+        if (expensiveIndices.length < readAheadCount * 2) {
+            expensiveIndices = new int[readAheadCount * 2];
+            expensiveCosts = new long[readAheadCount * 2];
+        }
+        int found = 0;
+        for (int i = 1; i <= readAheadCount; i++) {
+            found = addIfExpensive(provider, count, last + i, found);
+            found = addIfExpensive(provider, count, first - i, found);
+        }
+        for (int i = 0; i < found; i++) {
+            prefetch(expensiveIndices[i], canvasWidth, canvasHeight, RenderScheduler.PRIORITY_IDLE);
+        }
+    }
+
+    // 비용이 큰 순서를 유지하도록 끼워 넣음, 비용이 같으면 먼저 찾은 것이 앞
+    private int addIfExpensive(PageContentProvider provider, int count, int index, int found) {
+        if (index < 0 || index >= count || !PageContentAvailability.isAvailable(provider, index)) {
+            return found;
+        }
+        long millis = renderScheduler.getEstimatedRenderMillis(provider, index, null);
+        if (millis <= RenderScheduler.EXPENSIVE_RENDER_MILLIS) {
+            return found;
+        }
+        int position = found;
+        while (position > 0 && expensiveCosts[position - 1] < millis) {
+            expensiveIndices[position] = expensiveIndices[position - 1];
+            expensiveCosts[position] = expensiveCosts[position - 1];
+            position--;
+        }
+        expensiveIndices[position] = index;
+        expensiveCosts[position] = millis;
+        return found + 1;
+    }
+
     protected abstract PageContentProvider getPageContentProvider();
 
     @ColorInt
@@ -57,4 +194,14 @@ public abstract class PageContentViewAdapter extends BaseAdapter {
     protected abstract BackgroundTaskListener getBackgroundTaskListener();
 
     protected abstract BitmapPostProcessor getBitmapPostProcessor();
+
+    // 렌더링 높이가 이 값보다 긴 페이지는 화면 높이 단위로 잘라서 필요한 부분만 렌더링함
+    protected int getSliceThresholdPixels() {
+        return DEFAULT_SLICE_THRESHOLD_PIXELS;
+    }
+
+    // 기본값은 16M 픽셀, 가로/세로 4096 픽셀까지이며 heap 최대 크기에 따라 더 줄어들 수 있음
+    protected ResolutionPolicy getResolutionPolicy() {
+        return defaultResolutionPolicy;
+    }
 }
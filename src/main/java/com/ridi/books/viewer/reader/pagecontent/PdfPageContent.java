@@ -0,0 +1,46 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+
+import java.util.Collections;
+import java.util.List;
+
+// PDF 한 페이지, 실제 렌더링은 provider의 렌더링 스레드에 맡김
+class PdfPageContent implements PageContent {
+    private final PdfRenderThread renderThread;
+    private final int index;
+    private final SizeF size;
+
+    PdfPageContent(PdfRenderThread renderThread, int index, SizeF size) {
+        this.renderThread = renderThread;
+        this.index = index;
+        this.size = size;
+    }
+
+    @Override
+    public SizeF getSize() {
+        return size;
+    }
+
+    @Override
+    public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                 int pageWidth, int pageHeight, boolean forHighQuality) {
+        if (bitmapWidth <= 0 || bitmapHeight <= 0 || pageWidth <= 0 || pageHeight <= 0) {
+            return null;
+        }
+
+        try {
+            return renderThread.render(index, bitmapWidth, bitmapHeight, startX, startY, pageWidth, pageHeight);
+        } catch (InterruptedException e) {
+            // 취소된 작업, interrupt 상태는 AsyncTask가 알 수 있도록 남겨둠
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public List<Link> getLinkList() {
+        // PdfRenderer는 링크 정보를 제공하지 않음
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.os.Build;
+import android.support.annotation.RequiresApi;
+import android.support.annotation.WorkerThread;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+// android.graphics.pdf.PdfRenderer로 PDF를 보여주는 provider
+// PdfRenderer는 thread-safe 하지 않고 한 번에 한 페이지만 열 수 있으므로, 전용 스레드 하나가 renderer를 소유하고
+// 렌더링 요청을 순서대로 처리함. 페이지 크기는 열 때 한 번에 읽어두므로 크기를 물을 때는 기다리지 않음
+public class PdfPageContentProvider implements PageContentProvider, Closeable {
+    private final PdfRenderThread renderThread;
+    private final SizeF[] sizes;
+
+    @WorkerThread
+    @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+    public PdfPageContentProvider(File file) throws IOException {
+        this(new PdfPageRenderer.Platform(file));
+    }
+
+    // renderer는 이 provider가 소유하며 close()할 때 함께 닫힘
+    @WorkerThread
+    public PdfPageContentProvider(PdfPageRenderer renderer) throws IOException {
+        renderThread = new PdfRenderThread(renderer);
+        renderThread.start();
+        try {
+            sizes = renderThread.awaitPageSizes();
+        } catch (InterruptedException e) {
+            renderThread.close();
+            throw new InterruptedIOException();
+        }
+        if (sizes == null) {
+            throw new IOException("Renderer closed before page sizes were read");
+        }
+    }
+
+    @Override
+    public int getPageContentCount() {
+        return sizes.length;
+    }
+
+    @Override
+    public SizeF getPageContentSize(int index) {
+        if (index < 0 || index >= sizes.length) {
+            return null;
+        }
+        return sizes[index];
+    }
+
+    @Override
+    public PageContent getPageContent(int index) {
+        SizeF size = getPageContentSize(index);
+        if (size == null) {
+            return null;
+        }
+        return new PdfPageContent(renderThread, index, size);
+    }
+
+    // 기다리던 렌더링은 모두 null을 받고, renderer는 렌더링 스레드에서 닫힘
+    @Override
+    public void close() {
+        renderThread.close();
+    }
+}
@@ -0,0 +1,83 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.graphics.pdf.PdfRenderer;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.RequiresApi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+// PdfPageContentProvider가 PDF를 그릴 때 쓰는 renderer
+// 모든 메소드는 provider의 렌더링 스레드 하나에서만 불리므로 구현은 thread-safe 하지 않아도 됨
+// 테스트에서는 PdfRenderer 대신 다른 구현을 넣어 쓸 수 있음
+public interface PdfPageRenderer extends Closeable {
+    int getPageCount();
+
+    // PDF point 단위
+    SizeF getPageSize(int index);
+
+    // transform은 page의 point 좌표를 bitmap의 pixel 좌표로 옮김
+    void render(int index, Bitmap bitmap, Matrix transform);
+
+    // PdfRenderer는 한 번에 한 페이지만 열 수 있으므로 마지막으로 연 페이지 하나를 열어둔 채로 재사용함
+    // 같은 페이지를 여러 조각으로 나눠 그리거나 draft 뒤에 다시 그릴 때 openPage()를 반복하지 않음
+    @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+    class Platform implements PdfPageRenderer {
+        private final ParcelFileDescriptor descriptor;
+        private final PdfRenderer renderer;
+        private PdfRenderer.Page openedPage;
+
+        public Platform(File file) throws IOException {
+            descriptor = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+            try {
+                renderer = new PdfRenderer(descriptor);
+            } catch (IOException | RuntimeException e) {
+                descriptor.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public int getPageCount() {
+            return renderer.getPageCount();
+        }
+
+        @Override
+        public SizeF getPageSize(int index) {
+            PdfRenderer.Page page = openPage(index);
+            return new SizeF(page.getWidth(), page.getHeight());
+        }
+
+        @Override
+        public void render(int index, Bitmap bitmap, Matrix transform) {
+            openPage(index).render(bitmap, null, transform, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
+        }
+
+        private PdfRenderer.Page openPage(int index) {
+            if (openedPage != null && openedPage.getIndex() == index) {
+                return openedPage;
+            }
+            closePage();
+            openedPage = renderer.openPage(index);
+            return openedPage;
+        }
+
+        private void closePage() {
+            if (openedPage != null) {
+                openedPage.close();
+                openedPage = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closePage();
+            renderer.close();
+            descriptor.close();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.os.Process;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// PdfPageRenderer를 혼자 소유하는 스레드
+// 여러 렌더링 스레드에서 들어온 요청을 줄 세워 하나씩 그리고, 같은 요청이 겹치면 한 번만 그려서 나눠줌
+// 요청한 스레드가 interrupt 되면(AsyncTask.cancel(true)) 아직 시작하지 않은 요청은 버림
+class PdfRenderThread extends Thread {
+    private final PdfPageRenderer renderer;
+    private final Map<Request, Request> requests = new HashMap<>();    // 끝나지 않은 요청 전부
+    private final ArrayDeque<Request> queue = new ArrayDeque<>();       // 아직 시작하지 않은 요청
+    private SizeF[] pageSizes;
+    private boolean closed;
+
+    PdfRenderThread(PdfPageRenderer renderer) {
+        super("PdfRender");
+        this.renderer = renderer;
+    }
+
+    synchronized SizeF[] awaitPageSizes() throws InterruptedException {
+        while (pageSizes == null && !closed) {
+            wait();
+        }
+        return pageSizes;
+    }
+
+    Bitmap render(int index, int bitmapWidth, int bitmapHeight, int startX, int startY,
+                  int pageWidth, int pageHeight) throws InterruptedException {
+        Request key = new Request(index, bitmapWidth, bitmapHeight, startX, startY, pageWidth, pageHeight);
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+
+            Request request = requests.get(key);
+            if (request == null) {
+                request = key;
+                requests.put(request, request);
+                queue.add(request);
+                notifyAll();
+            }
+            request.waiters++;
+
+            try {
+                while (!request.done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                if (--request.waiters == 0 && !request.started) {
+                    requests.remove(request);
+                    queue.remove(request);
+                }
+                throw e;
+            }
+
+            // 마지막으로 받아가는 스레드가 원본을, 나머지는 복사본을 가져감
+            Bitmap result = request.result;
+            if (--request.waiters == 0 || result == null) {
+                return result;
+            }
+            return result.copy(result.getConfig(), true);
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+        // 페이지 크기는 처음에 한 번에 읽어둠, 이후 크기를 묻는 쪽은 이 스레드를 기다리지 않음
+        SizeF[] sizes;
+        try {
+            int count = renderer.getPageCount();
+            sizes = new SizeF[count];
+            for (int i = 0; i < count && !isClosed(); i++) {
+                sizes[i] = renderer.getPageSize(i);
+            }
+        } catch (RuntimeException e) {
+            sizes = null;
+        }
+        synchronized (this) {
+            pageSizes = sizes;
+            if (sizes == null) {
+                closed = true;
+            }
+            notifyAll();
+        }
+        if (sizes == null) {
+            closeRenderer();
+            return;
+        }
+
+        Matrix transform = new Matrix();
+        while (true) {
+            Request request;
+            synchronized (this) {
+                while (!closed && queue.isEmpty()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                if (closed) {
+                    break;
+                }
+                request = queue.poll();
+                request.started = true;
+            }
+
+            Bitmap bitmap = renderNow(request, sizes[request.index], transform);
+
+            synchronized (this) {
+                requests.remove(request);
+                if (request.waiters == 0) {
+                    // 기다리던 쪽이 모두 취소함
+                    if (bitmap != null) {
+                        bitmap.recycle();
+                    }
+                } else {
+                    request.result = bitmap;
+                }
+                request.done = true;
+                notifyAll();
+            }
+        }
+
+        synchronized (this) {
+            for (Iterator<Request> iterator = requests.values().iterator(); iterator.hasNext(); ) {
+                iterator.next().done = true;
+                iterator.remove();
+            }
+            queue.clear();
+            notifyAll();
+        }
+        closeRenderer();
+    }
+
+    private void closeRenderer() {
+        try {
+            renderer.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private Bitmap renderNow(Request request, SizeF pageSize, Matrix transform) {
+        if (pageSize == null || pageSize.width <= 0 || pageSize.height <= 0) {
+            return null;
+        }
+
+        // renderToBitmap()의 인자를 page point -> bitmap pixel 변환으로 옮김
+        // page를 pageWidth x pageHeight로 늘린 뒤 (startX, startY)만큼 옮긴 것이 bitmap에 그려짐
+        transform.setScale(request.pageWidth / pageSize.width, request.pageHeight / pageSize.height);
+        transform.postTranslate(request.startX, request.startY);
+
+        try {
+            Bitmap bitmap = Bitmap.createBitmap(request.bitmapWidth, request.bitmapHeight, Bitmap.Config.ARGB_8888);
+            // PdfRenderer는 배경을 칠하지 않음
+            bitmap.eraseColor(Color.WHITE);
+            renderer.render(request.index, bitmap, transform);
+            return bitmap;
+        } catch (OutOfMemoryError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static class Request {
+        final int index;
+        final int bitmapWidth;
+        final int bitmapHeight;
+        final int startX;
+        final int startY;
+        final int pageWidth;
+        final int pageHeight;
+
+        int waiters;
+        boolean started;
+        boolean done;
+        Bitmap result;
+
+        Request(int index, int bitmapWidth, int bitmapHeight, int startX, int startY,
+                int pageWidth, int pageHeight) {
+            this.index = index;
+            this.bitmapWidth = bitmapWidth;
+            this.bitmapHeight = bitmapHeight;
+            this.startX = startX;
+            this.startY = startY;
+            this.pageWidth = pageWidth;
+            this.pageHeight = pageHeight;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Request)) {
+                return false;
+            }
+            Request other = (Request) o;
+            return index == other.index && bitmapWidth == other.bitmapWidth && bitmapHeight == other.bitmapHeight
+                    && startX == other.startX && startY == other.startY
+                    && pageWidth == other.pageWidth && pageHeight == other.pageHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = index;
+            result = 31 * result + bitmapWidth;
+            result = 31 * result + bitmapHeight;
+            result = 31 * result + startX;
+            result = 31 * result + startY;
+            result = 31 * result + pageWidth;
+            result = 31 * result + pageHeight;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Point;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+import android.view.MotionEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// PageContentReaderView에 들어온 터치와 API 호출을 시간과 함께 기록해서 ReadingSessionReplayer로 다시 재생할 수 있게 함
+// PageContentReaderView.startSessionRecording()으로 켜고, 기록은 UI 스레드에서 메모리에 쌓였다가
+// 일정 크기마다 전용 스레드가 stream에 씀. 쓰다가 실패하면 그 뒤로는 기록하지 않으며 getError()로 원인을 알 수 있음
+public final class ReadingSessionRecorder implements Closeable {
+    static final int MAGIC      = 0x52534553;   // "RSES"
+    static final int VERSION    = 1;
+
+    static final int TYPE_END                   = 0;
+    static final int TYPE_TOUCH                 = 1;
+    static final int TYPE_SET_CURRENT_INDEX     = 2;
+    static final int TYPE_REQUEST_SCALE         = 3;
+    static final int TYPE_SET_VIEW_MODE         = 4;
+    static final int TYPE_SCROLL_VERTICAL       = 5;
+
+    private static final int HAND_OFF_BYTES = 8 * 1024;
+
+    private final OutputStream stream;
+    private final ExecutorService writer;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    private final long startTime;
+    private volatile IOException error;
+    private boolean closed;
+
+    ReadingSessionRecorder(OutputStream stream, int viewWidth, int viewHeight) {
+        this.stream = stream;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, "ReadingSessionWriter");
+                    }
+                });
+        this.startTime = SystemClock.uptimeMillis();
+        try {
+            this.out.writeInt(MAGIC);
+            this.out.writeShort(VERSION);
+            this.out.writeInt(viewWidth);
+            this.out.writeInt(viewHeight);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    public IOException getError() {
+        return error;
+    }
+
+    // close() 뒤에 남은 기록이 모두 쓰이고 stream이 닫힐 때까지 기다림, 시간 안에 끝나면 true
+    // 기록한 파일을 바로 읽어야 할 때 사용하며, 쓰다가 실패했는지는 getError()로 확인함
+    @WorkerThread
+    public boolean awaitWritten(long timeoutMillis) throws InterruptedException {
+        return writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void recordTouch(MotionEvent event) {
+        if (!begin(TYPE_TOUCH, event.getEventTime())) {
+            return;
+        }
+        try {
+            out.writeInt((int) (event.getDownTime() - startTime));
+            out.writeShort(event.getAction());
+            int pointerCount = event.getPointerCount();
+            out.writeByte(pointerCount);
+            for (int i = 0; i < pointerCount; i++) {
+                out.writeByte(event.getPointerId(i));
+                out.writeFloat(event.getX(i));
+                out.writeFloat(event.getY(i));
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void recordSetCurrentIndex(int index) {
+        if (!begin(TYPE_SET_CURRENT_INDEX, SystemClock.uptimeMillis())) {
+            return;
+        }
+        try {
+            out.writeInt(index);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void recordRequestScale(float scale, Point scrollOffset) {
+        if (!begin(TYPE_REQUEST_SCALE, SystemClock.uptimeMillis())) {
+            return;
+        }
+        try {
+            out.writeFloat(scale);
+            out.writeBoolean(scrollOffset != null);
+            if (scrollOffset != null) {
+                out.writeInt(scrollOffset.x);
+                out.writeInt(scrollOffset.y);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void recordSetViewMode(boolean scrollMode, boolean reverseMode, boolean slidingEnabled) {
+        if (!begin(TYPE_SET_VIEW_MODE, SystemClock.uptimeMillis())) {
+            return;
+        }
+        try {
+            out.writeBoolean(scrollMode);
+            out.writeBoolean(reverseMode);
+            out.writeBoolean(slidingEnabled);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void recordScrollVertical(int offset) {
+        if (!begin(TYPE_SCROLL_VERTICAL, SystemClock.uptimeMillis())) {
+            return;
+        }
+        try {
+            out.writeInt(offset);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // 모든 기록은 종류(1 byte)와 기록 시작 시점부터의 시간(ms, 4 bytes)으로 시작함
+    // 앞의 기록들이 일정 크기를 넘었으면 먼저 writer 스레드로 넘김
+    private boolean begin(int type, long uptimeMillis) {
+        if (closed || error != null) {
+            return false;
+        }
+        if (buffer.size() >= HAND_OFF_BYTES) {
+            handOff(false);
+        }
+        try {
+            out.writeByte(type);
+            out.writeInt((int) (uptimeMillis - startTime));
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        }
+    }
+
+    // 지금까지 쌓인 기록을 writer 스레드에서 stream에 씀, last면 쓴 뒤에 stream을 닫음
+    private void handOff(final boolean last) {
+        final byte[] bytes = buffer.toByteArray();
+        buffer.reset();
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (error == null) {
+                        stream.write(bytes);
+                        if (last) {
+                            stream.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    fail(e);
+                } finally {
+                    if (last) {
+                        closeStream();
+                    }
+                }
+            }
+        });
+    }
+
+    private void closeStream() {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (error == null) {
+            error = e;
+        }
+    }
+
+    // stream은 writer 스레드에서 닫히므로 여기서는 그때까지 생긴 오류만 던짐
+    @MainThread
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (error == null) {
+            try {
+                out.writeByte(TYPE_END);
+                out.writeInt((int) (SystemClock.uptimeMillis() - startTime));
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        handOff(true);
+        writer.shutdown();
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Point;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.WorkerThread;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// ReadingSessionRecorder가 남긴 기록을 같은 시간 간격으로 PageContentReaderView에 다시 넣음
+// 기록할 때와 같은 크기의 view에서 재생해야 터치 좌표가 같은 의미를 가짐
+// 기록 전체를 만들 때 미리 읽어두므로 재생 중에는 UI 스레드에서 stream을 읽지 않음
+public final class ReadingSessionReplayer {
+    public interface Listener {
+        void onReplayFinished();
+    }
+
+    private final int recordedWidth;
+    private final int recordedHeight;
+    private final List<Event> events = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private PageContentReaderView view;
+    private Listener listener;
+    private long startTime;
+    private int nextEvent;
+    private Runnable pendingEvent;
+
+    // in은 끝(TYPE_END)까지 읽은 뒤 닫힘, 형식이 맞지 않거나 중간에 끊긴 기록이면 IOException
+    @WorkerThread
+    public ReadingSessionReplayer(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        try {
+            if (data.readInt() != ReadingSessionRecorder.MAGIC) {
+                throw new IOException("Not a reading session recording");
+            }
+            int version = data.readUnsignedShort();
+            if (version != ReadingSessionRecorder.VERSION) {
+                throw new IOException("Unsupported reading session version: " + version);
+            }
+            recordedWidth = data.readInt();
+            recordedHeight = data.readInt();
+
+            while (true) {
+                int type = data.readUnsignedByte();
+                int time = data.readInt();
+                Event event = readEvent(data, type, time);
+                if (event == null) {
+                    // 끝에도 시각이 있어서 마지막 동작 뒤에 기록이 이어진 시간만큼 기다렸다가 끝남
+                    events.add(new End(time));
+                    break;
+                }
+                events.add(event);
+            }
+        } finally {
+            data.close();
+        }
+    }
+
+    public int getRecordedWidth() {
+        return recordedWidth;
+    }
+
+    public int getRecordedHeight() {
+        return recordedHeight;
+    }
+
+    @MainThread
+    public void start(PageContentReaderView view, Listener listener) {
+        if (this.view != null) {
+            throw new IllegalStateException("Already started");
+        }
+        this.view = view;
+        this.listener = listener;
+        startTime = SystemClock.uptimeMillis();
+        scheduleNext();
+    }
+
+    @MainThread
+    public void stop() {
+        if (pendingEvent != null) {
+            handler.removeCallbacks(pendingEvent);
+            pendingEvent = null;
+        }
+    }
+
+    // 다음 기록 하나를 기록된 시각에 실행되도록 예약함
+    private void scheduleNext() {
+        final Event event = events.get(nextEvent++);
+        pendingEvent = new Runnable() {
+            @Override
+            public void run() {
+                pendingEvent = null;
+                event.run();
+                if (nextEvent < events.size()) {
+                    scheduleNext();
+                }
+            }
+        };
+        handler.postAtTime(pendingEvent, startTime + event.time);
+    }
+
+    // TYPE_END면 null
+    private Event readEvent(DataInputStream in, int type, int time) throws IOException {
+        switch (type) {
+            case ReadingSessionRecorder.TYPE_END:
+                return null;
+            case ReadingSessionRecorder.TYPE_TOUCH:
+                return readTouch(in, time);
+            case ReadingSessionRecorder.TYPE_SET_CURRENT_INDEX: {
+                final int index = in.readInt();
+                return new Event(time) {
+                    @Override
+                    void run() {
+                        view.setCurrentIndex(index);
+                    }
+                };
+            }
+            case ReadingSessionRecorder.TYPE_REQUEST_SCALE: {
+                final float scale = in.readFloat();
+                final Point scrollOffset = in.readBoolean() ? new Point(in.readInt(), in.readInt()) : null;
+                return new Event(time) {
+                    @Override
+                    void run() {
+                        view.requestScale(scale, scrollOffset);
+                    }
+                };
+            }
+            case ReadingSessionRecorder.TYPE_SET_VIEW_MODE: {
+                final boolean scrollMode = in.readBoolean();
+                final boolean reverseMode = in.readBoolean();
+                final boolean slidingEnabled = in.readBoolean();
+                return new Event(time) {
+                    @Override
+                    void run() {
+                        view.setViewMode(scrollMode, reverseMode, slidingEnabled);
+                    }
+                };
+            }
+            case ReadingSessionRecorder.TYPE_SCROLL_VERTICAL: {
+                final int offset = in.readInt();
+                return new Event(time) {
+                    @Override
+                    void run() {
+                        view.scrollVerticalInScrollMode(offset);
+                    }
+                };
+            }
+            default:
+                throw new IOException("Unknown reading session record: " + type);
+        }
+    }
+
+    private Event readTouch(DataInputStream in, final int time) throws IOException {
+        final int downTime = in.readInt();
+        final int action = in.readUnsignedShort();
+        int pointerCount = in.readUnsignedByte();
+        final MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointerCount];
+        final MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+        for (int i = 0; i < pointerCount; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = in.readUnsignedByte();
+            properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = in.readFloat();
+            coords[i].y = in.readFloat();
+            coords[i].pressure = 1.0f;
+            coords[i].size = 1.0f;
+        }
+        return new Event(time) {
+            @Override
+            void run() {
+                // 재생이 밀리더라도 fling 속도 계산이 맞도록 이벤트 시각은 기록된 간격을 따름
+                MotionEvent event = MotionEvent.obtain(startTime + downTime, startTime + time, action,
+                        properties.length, properties, coords, 0, 0, 1.0f, 1.0f, 0, 0,
+                        InputDevice.SOURCE_TOUCHSCREEN, 0);
+                view.dispatchTouchEvent(event);
+                event.recycle();
+            }
+        };
+    }
+
+    // 기록 시작 시점부터의 시간(ms)에 실행할 동작
+    private abstract static class Event {
+        final int time;
+
+        Event(int time) {
+            this.time = time;
+        }
+
+        abstract void run();
+    }
+
+    private class End extends Event {
+        End(int time) {
+            super(time);
+        }
+
+        @Override
+        void run() {
+            listener.onReplayFinished();
+        }
+    }
+}
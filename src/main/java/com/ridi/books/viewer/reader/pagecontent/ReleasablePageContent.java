@@ -0,0 +1,7 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 네이티브 문서 핸들 등을 들고 있는 PageContent
+// 더 이상 쓰지 않을 때 GC를 기다리지 않고 release()로 바로 해제됨
+public interface ReleasablePageContent extends PageContent {
+    void release();
+}
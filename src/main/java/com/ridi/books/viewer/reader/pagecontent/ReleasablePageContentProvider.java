@@ -0,0 +1,7 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// getPageContent()로 얻은(acquire) PageContent를 다 쓰면 releasePageContent()로 돌려받는 provider
+// 같은 PageContent를 여러 번 돌려줄 수 있으므로 reference counting은 provider가 책임짐
+public interface ReleasablePageContentProvider extends PageContentProvider {
+    void releasePageContent(int index, PageContent pageContent);
+}
@@ -0,0 +1,7 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 불러온 뒤에야 렌더링 비용을 알 수 있는 PageContent용, provider가 값을 주면 그쪽이 우선함
+public interface RenderCostAwarePageContent extends PageContent {
+    // 화면 크기의 일반 렌더링 한 번에 걸리는 시간(ms), 모르면 RenderCostAwarePageContentProvider.UNKNOWN_COST
+    long getEstimatedRenderMillis();
+}
@@ -0,0 +1,11 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 페이지마다 렌더링에 걸릴 시간을 미리 알려주는 provider
+// 이전 렌더링에서 잰 값이나 문서 구조(벡터 개수 등)로 추정하면 되고, 모르면 UNKNOWN_COST를 돌려줌
+// getPageContentSize()처럼 UI 스레드에서 불리므로 바로 돌려줄 수 있어야 함
+public interface RenderCostAwarePageContentProvider extends PageContentProvider {
+    long UNKNOWN_COST = -1;
+
+    // 화면 크기의 일반 렌더링 한 번에 걸리는 시간(ms)
+    long getEstimatedRenderMillis(int index);
+}
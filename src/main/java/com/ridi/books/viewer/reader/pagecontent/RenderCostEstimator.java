@@ -0,0 +1,23 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+final class RenderCostEstimator {
+    private RenderCostEstimator() {
+    }
+
+    // pageContent는 아직 불러오지 않았으면 null
+    static long estimate(PageContentProvider provider, int index, PageContent pageContent) {
+        if (provider instanceof RenderCostAwarePageContentProvider) {
+            long millis = ((RenderCostAwarePageContentProvider) provider).getEstimatedRenderMillis(index);
+            if (millis >= 0) {
+                return millis;
+            }
+        }
+        if (pageContent instanceof RenderCostAwarePageContent) {
+            long millis = ((RenderCostAwarePageContent) pageContent).getEstimatedRenderMillis();
+            if (millis >= 0) {
+                return millis;
+            }
+        }
+        return RenderCostAwarePageContentProvider.UNKNOWN_COST;
+    }
+}
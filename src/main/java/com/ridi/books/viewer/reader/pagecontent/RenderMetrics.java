@@ -0,0 +1,150 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// PageContentReaderView.getRenderMetrics()가 돌려주는 렌더링 파이프라인 지표의 snapshot
+// 누적 값은 PageContentReaderView.resetRenderMetrics()를 부르기 전까지 계속 쌓임
+public class RenderMetrics {
+    public static final int TIER_DRAFT          = 0;
+    public static final int TIER_FULL           = 1;
+    public static final int TIER_SLICE          = 2;
+    public static final int TIER_HIGH_QUALITY   = 3;
+    public static final int TIER_PREFETCH       = 4;
+    static final int TIER_COUNT                 = 5;
+
+    private final LatencyHistogram contentLoadLatency;
+    private final LatencyHistogram[] renderLatencies;
+    private final int ioQueueDepth;
+    private final int renderQueueDepth;
+    private final long cancelledRenderCount;
+    private final long cancelledRenderCpuMillis;
+    private final long coalescedRenderCount;
+    private final long prefetchHitCount;
+    private final long prefetchMissCount;
+    private final long contentCacheHitCount;
+    private final long contentCacheMissCount;
+    private final long residentBitmapBytes;
+    private final long renderStartedCount;
+    private final long renderCompletedCount;
+    private final LatencyHistogram timeToFirstPixel;
+    private final long frameCount;
+    private final long layoutPassCount;
+    private final int maxLayoutPassesPerFrame;
+    private final long peakResidentBitmapBytes;
+
+    RenderMetrics(LatencyHistogram contentLoadLatency, LatencyHistogram[] renderLatencies,
+                  int ioQueueDepth, int renderQueueDepth,
+                  long cancelledRenderCount, long cancelledRenderCpuMillis, long coalescedRenderCount,
+                  long prefetchHitCount, long prefetchMissCount,
+                  long contentCacheHitCount, long contentCacheMissCount, long residentBitmapBytes,
+                  long renderStartedCount, long renderCompletedCount, LatencyHistogram timeToFirstPixel,
+                  long frameCount, long layoutPassCount, int maxLayoutPassesPerFrame,
+                  long peakResidentBitmapBytes) {
+        this.contentLoadLatency = contentLoadLatency;
+        this.renderLatencies = renderLatencies;
+        this.ioQueueDepth = ioQueueDepth;
+        this.renderQueueDepth = renderQueueDepth;
+        this.cancelledRenderCount = cancelledRenderCount;
+        this.cancelledRenderCpuMillis = cancelledRenderCpuMillis;
+        this.coalescedRenderCount = coalescedRenderCount;
+        this.prefetchHitCount = prefetchHitCount;
+        this.prefetchMissCount = prefetchMissCount;
+        this.contentCacheHitCount = contentCacheHitCount;
+        this.contentCacheMissCount = contentCacheMissCount;
+        this.residentBitmapBytes = residentBitmapBytes;
+        this.renderStartedCount = renderStartedCount;
+        this.renderCompletedCount = renderCompletedCount;
+        this.timeToFirstPixel = timeToFirstPixel;
+        this.frameCount = frameCount;
+        this.layoutPassCount = layoutPassCount;
+        this.maxLayoutPassesPerFrame = maxLayoutPassesPerFrame;
+        this.peakResidentBitmapBytes = peakResidentBitmapBytes;
+    }
+
+    // 요청부터 UI 스레드에 PageContent가 도착하기까지
+    public LatencyHistogram getContentLoadLatency() {
+        return contentLoadLatency;
+    }
+
+    // 요청부터 UI 스레드에 bitmap이 도착하기까지, tier는 TIER_* 중 하나
+    public LatencyHistogram getRenderLatency(int tier) {
+        return renderLatencies[tier];
+    }
+
+    public int getIoQueueDepth() {
+        return ioQueueDepth;
+    }
+
+    public int getRenderQueueDepth() {
+        return renderQueueDepth;
+    }
+
+    // 그리는 도중 또는 다 그린 뒤에 취소되어 버려진 렌더링
+    public long getCancelledRenderCount() {
+        return cancelledRenderCount;
+    }
+
+    public long getCancelledRenderCpuMillis() {
+        return cancelledRenderCpuMillis;
+    }
+
+    // 진행 중이던 같은 렌더링이나 취소된 렌더링의 결과를 넘겨받아 새로 그리지 않은 횟수
+    public long getCoalescedRenderCount() {
+        return coalescedRenderCount;
+    }
+
+    // fling 착지 페이지를 미리 그려둔 bitmap을 쓴 횟수와 쓰지 못한 횟수
+    public long getPrefetchHitCount() {
+        return prefetchHitCount;
+    }
+
+    public long getPrefetchMissCount() {
+        return prefetchMissCount;
+    }
+
+    // adapter의 provider가 CachedPageContentProvider일 때에만 집계됨
+    public long getContentCacheHitCount() {
+        return contentCacheHitCount;
+    }
+
+    public long getContentCacheMissCount() {
+        return contentCacheMissCount;
+    }
+
+    // 화면에 붙어 있는 view들과 미리 그려둔 bitmap이 차지하는 메모리
+    public long getResidentBitmapBytes() {
+        return residentBitmapBytes;
+    }
+
+    // 백그라운드에서 새로 그리기 시작한 렌더링과 그중 취소되지 않고 끝난 렌더링
+    // 다른 작업의 결과를 넘겨받은 요청은 어느 쪽에도 들어가지 않고 getCoalescedRenderCount()로 셈
+    // 시작한 수에서 끝난 수와 getCancelledRenderCount()를 빼면 아직 진행 중인 렌더링
+    public long getRenderStartedCount() {
+        return renderStartedCount;
+    }
+
+    public long getRenderCompletedCount() {
+        return renderCompletedCount;
+    }
+
+    // 페이지가 넘어간 뒤 새 현재 페이지가 처음으로 그림을 가진 채 그려지기까지 (draft 포함)
+    public LatencyHistogram getTimeToFirstPixel() {
+        return timeToFirstPixel;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getLayoutPassCount() {
+        return layoutPassCount;
+    }
+
+    // 한 프레임 사이에 layout이 가장 많이 돈 횟수, 1을 넘으면 불필요한 requestLayout이 있다는 뜻
+    public int getMaxLayoutPassesPerFrame() {
+        return maxLayoutPassesPerFrame;
+    }
+
+    // 프레임마다 잰 getResidentBitmapBytes()의 최댓값
+    public long getPeakResidentBitmapBytes() {
+        return peakResidentBitmapBytes;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 렌더링 파이프라인 곳곳에서 지표를 모음, 켜둔 채로 써도 되도록 기록은 atomic 연산 몇 번으로 끝냄
+class RenderMetricsRecorder {
+    private final LatencyHistogram contentLoadLatency = new LatencyHistogram();
+    private final LatencyHistogram[] renderLatencies = new LatencyHistogram[RenderMetrics.TIER_COUNT];
+    private final AtomicLong cancelledRenderCount = new AtomicLong();
+    private final AtomicLong cancelledRenderCpuMillis = new AtomicLong();
+    private final AtomicLong coalescedRenderCount = new AtomicLong();
+    private final AtomicLong prefetchHitCount = new AtomicLong();
+    private final AtomicLong prefetchMissCount = new AtomicLong();
+    private final AtomicLong renderStartedCount = new AtomicLong();
+    private final AtomicLong renderCompletedCount = new AtomicLong();
+    private final LatencyHistogram timeToFirstPixel = new LatencyHistogram();
+    // 아래는 UI 스레드에서만 기록됨
+    private long frameCount;
+    private long layoutPassCount;
+    private int maxLayoutPassesPerFrame;
+    private long peakResidentBitmapBytes;
+
+    RenderMetricsRecorder() {
+        for (int i = 0; i < renderLatencies.length; i++) {
+            renderLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+    void recordContentLoad(long millis) {
+        contentLoadLatency.record(millis);
+    }
+
+    void recordRenderStarted() {
+        renderStartedCount.incrementAndGet();
+    }
+
+    // 새로 그린 작업이 취소되지 않고 끝났을 때, 넘겨받은 결과는 recordCoalescedRender()로 따로 셈
+    void recordRenderCompleted() {
+        renderCompletedCount.incrementAndGet();
+    }
+
+    void recordRenderLatency(int tier, long millis) {
+        renderLatencies[tier].record(millis);
+    }
+
+    void recordCancelledRender(long cpuMillis) {
+        cancelledRenderCount.incrementAndGet();
+        cancelledRenderCpuMillis.addAndGet(cpuMillis);
+    }
+
+    void recordCoalescedRender() {
+        coalescedRenderCount.incrementAndGet();
+    }
+
+    void recordPrefetch(boolean hit) {
+        (hit ? prefetchHitCount : prefetchMissCount).incrementAndGet();
+    }
+
+    // 페이지가 바뀐 뒤 그 페이지가 처음으로 그림을 가진 채 그려지기까지
+    void recordTimeToFirstPixel(long millis) {
+        timeToFirstPixel.record(millis);
+    }
+
+    void recordFrame(int layoutPasses, long residentBitmapBytes) {
+        frameCount++;
+        layoutPassCount += layoutPasses;
+        maxLayoutPassesPerFrame = Math.max(maxLayoutPassesPerFrame, layoutPasses);
+        peakResidentBitmapBytes = Math.max(peakResidentBitmapBytes, residentBitmapBytes);
+    }
+
+    RenderMetrics snapshot(int ioQueueDepth, int renderQueueDepth,
+                           long contentCacheHitCount, long contentCacheMissCount, long residentBitmapBytes) {
+        LatencyHistogram[] latencies = new LatencyHistogram[renderLatencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = renderLatencies[i].snapshot();
+        }
+        return new RenderMetrics(contentLoadLatency.snapshot(), latencies, ioQueueDepth, renderQueueDepth,
+                cancelledRenderCount.get(), cancelledRenderCpuMillis.get(), coalescedRenderCount.get(),
+                prefetchHitCount.get(), prefetchMissCount.get(),
+                contentCacheHitCount, contentCacheMissCount, residentBitmapBytes,
+                renderStartedCount.get(), renderCompletedCount.get(), timeToFirstPixel.snapshot(),
+                frameCount, layoutPassCount, maxLayoutPassesPerFrame,
+                Math.max(peakResidentBitmapBytes, residentBitmapBytes));
+    }
+
+    void reset() {
+        contentLoadLatency.reset();
+        for (LatencyHistogram latency : renderLatencies) {
+            latency.reset();
+        }
+        cancelledRenderCount.set(0);
+        cancelledRenderCpuMillis.set(0);
+        coalescedRenderCount.set(0);
+        prefetchHitCount.set(0);
+        prefetchMissCount.set(0);
+        renderStartedCount.set(0);
+        renderCompletedCount.set(0);
+        timeToFirstPixel.reset();
+        frameCount = 0;
+        layoutPassCount = 0;
+        maxLayoutPassesPerFrame = 0;
+        peakResidentBitmapBytes = 0;
+    }
+}
@@ -0,0 +1,283 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// 같은 페이지의 같은 영역을 같은 크기로 그리는 요청이 겹치면 한 번만 그리도록 함
+// refresh()나 스크롤 중 trim으로 view가 떼어졌다 바로 다시 붙으면, 취소된 작업이 만든 결과를 새 작업이 넘겨받음
+class RenderRequestRegistry {
+    interface Work {
+        Bitmap render();
+        boolean isCancelled();
+    }
+
+    private static final int MAX_ORPHAN_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 32,
+                                                               Integer.MAX_VALUE);
+
+    private final Map<Key, Job> jobs = new HashMap<>();
+    // 요청한 쪽이 모두 취소된 뒤에 끝난 렌더링 결과, 곧 같은 요청이 다시 올 가능성이 높음
+    private final LruCache<Key, Bitmap> orphans = new LruCache<Key, Bitmap>(MAX_ORPHAN_BYTES) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+    // 불러오는 도중에 취소된 PageContent, 같은 페이지를 다시 불러오면 getPageContent() 없이 넘겨줌
+    private final List<ParkedContent> parkedContents = new ArrayList<>();
+    private final Executor releaseExecutor;
+    private final RenderMetricsRecorder metrics;
+
+    RenderRequestRegistry(Executor releaseExecutor, RenderMetricsRecorder metrics) {
+        this.releaseExecutor = releaseExecutor;
+        this.metrics = metrics;
+    }
+
+    Bitmap render(Key key, Work work) {
+        Bitmap orphan = orphans.remove(key);
+        if (orphan != null) {
+            metrics.recordCoalescedRender();
+            return orphan;
+        }
+
+        Job job;
+        boolean owner = false;
+        synchronized (this) {
+            job = jobs.get(key);
+            if (job == null) {
+                job = new Job();
+                jobs.put(key, job);
+                owner = true;
+            } else {
+                metrics.recordCoalescedRender();
+            }
+            job.waiters++;
+        }
+
+        if (owner) {
+            Bitmap result = null;
+            try {
+                result = work.render();
+            } finally {
+                synchronized (this) {
+                    // clear() 이후 같은 key로 새로 시작된 작업은 건드리지 않음
+                    if (jobs.get(key) == job) {
+                        jobs.remove(key);
+                    }
+                    job.result = result;
+                    job.done = true;
+                    notifyAll();
+                }
+            }
+        } else {
+            // 그리는 쪽이 끝날 때까지 이 스레드를 잡고 기다리므로 pool의 스레드 하나를 차지함
+            // 결과를 AsyncTask의 doInBackground()에서 돌려줘야 해서 callback으로 바꾸지 않았고,
+            // 대신 view가 작업을 cancel(true)하면 interrupt되어 바로 빠져나가므로 취소된 요청이 스레드를 붙잡고 있지 않음
+            synchronized (this) {
+                while (!job.done) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        leave(key, job);
+                        return null;
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (work.isCancelled()) {
+                leave(key, job);
+                return null;
+            }
+            return take(job);
+        }
+    }
+
+    // 마지막으로 받아가는 쪽이 원본을, 나머지는 복사본을 가져감
+    private Bitmap take(Job job) {
+        Bitmap result = job.result;
+        if (--job.waiters == 0 || result == null) {
+            job.taken = true;
+            return result;
+        }
+        Bitmap copy = result.copy(result.getConfig(), true);
+        BitmapLedger.recordCopy(result, copy);
+        return copy;
+    }
+
+    private void leave(Key key, Job job) {
+        if (--job.waiters == 0 && job.done && !job.taken && job.result != null) {
+            job.taken = true;
+            orphans.put(key, job.result);
+        }
+    }
+
+    void parkContent(PageContentProvider provider, int index, PageContent pageContent) {
+        parkContent(provider, index, pageContent, releaseExecutor);
+    }
+
+    // releaseExecutor가 실행할 때까지 찾아가지 않으면 해제
+    void parkContent(final PageContentProvider provider, final int index, PageContent pageContent,
+                     Executor releaseExecutor) {
+        final ParkedContent parked = new ParkedContent(provider, index, pageContent);
+        synchronized (this) {
+            parkedContents.add(parked);
+        }
+        // 다시 붙는 view의 불러오기는 이보다 높은 우선순위로 먼저 실행되므로, 그때까지 찾아가지 않으면 해제
+        releaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean removed;
+                synchronized (RenderRequestRegistry.this) {
+                    removed = parkedContents.remove(parked);
+                }
+                if (removed) {
+                    PageContentReleaser.release(provider, index, parked.pageContent);
+                }
+            }
+        });
+    }
+
+    synchronized PageContent adoptContent(PageContentProvider provider, int index) {
+        for (int i = 0; i < parkedContents.size(); i++) {
+            ParkedContent parked = parkedContents.get(i);
+            if (parked.provider == provider && parked.index == index) {
+                parkedContents.remove(i);
+                return parked.pageContent;
+            }
+        }
+        return null;
+    }
+
+    // 진행 중인 작업은 그대로 끝나지만, 이후의 같은 요청은 새로 불러와서 그림
+    void invalidate(int index) {
+        for (Key key : orphans.snapshot().keySet()) {
+            if (key.index == index) {
+                orphans.remove(key);
+            }
+        }
+
+        List<ParkedContent> released = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<Key> iterator = jobs.keySet().iterator(); iterator.hasNext(); ) {
+                if (iterator.next().index == index) {
+                    iterator.remove();
+                }
+            }
+            for (Iterator<ParkedContent> iterator = parkedContents.iterator(); iterator.hasNext(); ) {
+                ParkedContent parked = iterator.next();
+                if (parked.index == index) {
+                    released.add(parked);
+                    iterator.remove();
+                }
+            }
+        }
+        release(released);
+    }
+
+    // 페이지가 추가/삭제되어 index가 바뀌었을 때에도 호출됨
+    void clear() {
+        orphans.evictAll();
+
+        List<ParkedContent> released;
+        synchronized (this) {
+            jobs.clear();
+            released = new ArrayList<>(parkedContents);
+            parkedContents.clear();
+        }
+        release(released);
+    }
+
+    private void release(final List<ParkedContent> released) {
+        if (released.isEmpty()) {
+            return;
+        }
+        releaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (ParkedContent parked : released) {
+                    PageContentReleaser.release(parked.provider, parked.index, parked.pageContent);
+                }
+            }
+        });
+    }
+
+    static class Key {
+        private final PageContentProvider provider;
+        private final int index;
+        private final int bitmapWidth;
+        private final int bitmapHeight;
+        private final int startX;
+        private final int startY;
+        private final int pageWidth;
+        private final int pageHeight;
+        private final boolean forHighQuality;
+
+        Key(PageContentProvider provider, int index, int bitmapWidth, int bitmapHeight,
+            int startX, int startY, int pageWidth, int pageHeight, boolean forHighQuality) {
+            this.provider = provider;
+            this.index = index;
+            this.bitmapWidth = bitmapWidth;
+            this.bitmapHeight = bitmapHeight;
+            this.startX = startX;
+            this.startY = startY;
+            this.pageWidth = pageWidth;
+            this.pageHeight = pageHeight;
+            this.forHighQuality = forHighQuality;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return provider == other.provider && index == other.index
+                    && bitmapWidth == other.bitmapWidth && bitmapHeight == other.bitmapHeight
+                    && startX == other.startX && startY == other.startY
+                    && pageWidth == other.pageWidth && pageHeight == other.pageHeight
+                    && forHighQuality == other.forHighQuality;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(provider);
+            result = 31 * result + index;
+            result = 31 * result + bitmapWidth;
+            result = 31 * result + bitmapHeight;
+            result = 31 * result + startX;
+            result = 31 * result + startY;
+            result = 31 * result + pageWidth;
+            result = 31 * result + pageHeight;
+            result = 31 * result + (forHighQuality ? 1 : 0);
+            return result;
+        }
+    }
+
+    private static class Job {
+        int waiters;
+        boolean done;
+        boolean taken;
+        Bitmap result;
+    }
+
+    private static class ParkedContent {
+        final PageContentProvider provider;
+        final int index;
+        final PageContent pageContent;
+
+        ParkedContent(PageContentProvider provider, int index, PageContent pageContent) {
+            this.provider = provider;
+            this.index = index;
+            this.pageContent = pageContent;
+        }
+    }
+}
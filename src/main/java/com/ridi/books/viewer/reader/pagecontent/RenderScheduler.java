@@ -0,0 +1,447 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.os.AsyncTask;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+import android.util.SparseBooleanArray;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// PageContentView들의 백그라운드 작업을 우선순위에 따라 실행
+// PageContent를 읽어오는 I/O 작업과 bitmap을 만드는 렌더링 작업은 서로 다른 pool에서 돌아서,
+// 다음 페이지를 읽는 동안에도 현재 페이지 렌더링이 막히지 않음
+// 스크롤 모드의 fling 착지 페이지를 미리 렌더링해 두고, 지나가기만 할 페이지의 렌더링은 미룸
+class RenderScheduler {
+    static final int PRIORITY_IMMEDIATE = 0;
+    static final int PRIORITY_VISIBLE   = 1;
+    static final int PRIORITY_PREFETCH  = 2;
+    // 사용자가 움직이는 동안에는 시작하지 않음, IdleWorkQueue 참고
+    static final int PRIORITY_IDLE      = 3;
+
+    // 움직이는 동안에는 가로, 세로를 이 값으로 나눈 크기로만 렌더링
+    static final int DRAFT_DOWNSCALE    = 4;
+
+    static final int MAX_PREFETCHED_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 16,
+                                                           Integer.MAX_VALUE);
+
+    // 이보다 오래 걸리는 페이지는 draft를 먼저 보여주고, 닿기 전에 미리 렌더링을 시작함
+    static final long EXPENSIVE_RENDER_MILLIS = 100;
+    private static final int OBSERVED_COST_CAPACITY = 256;
+
+    static final int DEFAULT_IO_THREADS     = 1;
+    static final int DEFAULT_RENDER_THREADS = 1;
+    // adapter마다 pool이 생기므로 일이 없으면 스레드를 내려놓음, 다음 작업이 오면 다시 만듦
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 10;
+
+    private final ThreadPoolExecutor ioExecutor;
+    private final ThreadPoolExecutor renderExecutor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final IdleWorkQueue idleWork = new IdleWorkQueue();
+
+    private final RenderMetricsRecorder metrics = new RenderMetricsRecorder();
+    private final RenderRequestRegistry requestRegistry;
+    private final LruCache<Integer, Bitmap> prefetchedBitmaps;
+    private final SparseBooleanArray prefetchingIndices = new SparseBooleanArray();
+    // provider가 비용을 알려주지 않을 때 쓰는, 일반 렌더링에 실제로 걸린 시간
+    private final LruCache<Integer, Long> observedRenderMillis = new LruCache<>(OBSERVED_COST_CAPACITY);
+    private int passThroughFrom = PageContentView.NO_INDEX;
+    private int passThroughTo = PageContentView.NO_INDEX;
+    private boolean draftOnly;
+    private long prefetchBudgetBytes = MAX_PREFETCHED_BYTES;
+    private float highQualityScale = 1.0f;
+    private int renderThreads = DEFAULT_RENDER_THREADS;
+    private int renderThreadLimit = Integer.MAX_VALUE;
+    private volatile AdaptiveRenderController adaptiveController;
+
+    RenderScheduler() {
+        this(newPool(DEFAULT_IO_THREADS, "PageContentIO"), newPool(DEFAULT_RENDER_THREADS, "PageContentRender"));
+    }
+
+    // 테스트에서 스레드 없이 쌓아두었다가 직접 실행하는 pool을 넣을 때 씀
+    // 두 pool 모두 PriorityBlockingQueue를 써야 하며, 들어오는 작업은 우선순위 순서로 비교할 수 있음
+    RenderScheduler(ThreadPoolExecutor ioExecutor, ThreadPoolExecutor renderExecutor) {
+        this.ioExecutor = ioExecutor;
+        this.renderExecutor = renderExecutor;
+        requestRegistry = new RenderRequestRegistry(ioExecutorFor(PRIORITY_PREFETCH), metrics);
+        prefetchedBitmaps = new LruCache<Integer, Bitmap>(MAX_PREFETCHED_BYTES) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new RenderThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // PageContent를 읽고 돌려주는 작업용
+    Executor ioExecutorFor(int priority) {
+        return pausableIfIdle(prioritized(ioExecutor, priority), priority);
+    }
+
+    // renderToBitmap, 후처리 등 CPU 작업용
+    Executor renderExecutorFor(int priority) {
+        return pausableIfIdle(prioritized(renderExecutor, priority), priority);
+    }
+
+    private Executor pausableIfIdle(Executor executor, int priority) {
+        return priority == PRIORITY_IDLE ? idleWork.pausable(executor) : executor;
+    }
+
+    IdleWorkQueue getIdleWork() {
+        return idleWork;
+    }
+
+    private Executor prioritized(final ThreadPoolExecutor executor, final int priority) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                executor.execute(new PrioritizedRunnable(command, priority, sequence.getAndIncrement()));
+            }
+        };
+    }
+
+    RenderRequestRegistry getRequestRegistry() {
+        return requestRegistry;
+    }
+
+    RenderMetricsRecorder getMetrics() {
+        return metrics;
+    }
+
+    int getIoQueueDepth() {
+        return ioExecutor.getQueue().size();
+    }
+
+    int getRenderQueueDepth() {
+        return renderExecutor.getQueue().size();
+    }
+
+    long getPrefetchedBytes() {
+        return prefetchedBitmaps.size();
+    }
+
+    void setPoolSizes(int ioThreads, int renderThreads) {
+        this.renderThreads = renderThreads;
+        resize(ioExecutor, ioThreads);
+        resize(renderExecutor, Math.min(renderThreads, renderThreadLimit));
+    }
+
+    // 기기가 뜨거울 때 setPoolSizes()로 정한 렌더링 스레드 수를 이 값까지 줄임
+    void setRenderThreadLimit(int limit) {
+        renderThreadLimit = limit;
+        resize(renderExecutor, Math.min(renderThreads, renderThreadLimit));
+    }
+
+    private static void resize(ThreadPoolExecutor executor, int threads) {
+        threads = Math.max(threads, 1);
+        // core <= max 를 항상 만족하도록 순서를 맞춤
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    // 곧 보일 페이지의 PageContent를 I/O pool에서 미리 읽어 provider의 cache에 올려둠
+    void readAhead(final CachedPageContentProvider provider, final int index) {
+        if (provider.isCached(index) || !PageContentAvailability.isAvailable(provider, index)) {
+            return;
+        }
+        ioExecutorFor(PRIORITY_IDLE).execute(new Runnable() {
+            @Override
+            public void run() {
+                provider.prefetch(index);
+            }
+        });
+    }
+
+    // 렌더링 스레드에서 불림
+    void recordRenderCost(int index, long millis) {
+        observedRenderMillis.put(index, millis);
+        AdaptiveRenderController controller = adaptiveController;
+        if (controller != null) {
+            controller.onRenderCost(millis);
+        }
+    }
+
+    void setAdaptiveController(AdaptiveRenderController adaptiveController) {
+        this.adaptiveController = adaptiveController;
+    }
+
+    // 미리 그려둔 bitmap이 쓸 수 있는 메모리, MAX_PREFETCHED_BYTES를 넘을 수는 없음
+    void setPrefetchBudgetBytes(long bytes) {
+        prefetchBudgetBytes = Math.min(bytes, MAX_PREFETCHED_BYTES);
+        trimPrefetchedBitmaps();
+    }
+
+    // 오래된 것부터 내보냄, LruCache.trimToSize()는 API 17부터라서 snapshot의 순서를 씀
+    private void trimPrefetchedBitmaps() {
+        while (prefetchedBitmaps.size() > prefetchBudgetBytes) {
+            Iterator<Integer> eldest = prefetchedBitmaps.snapshot().keySet().iterator();
+            if (!eldest.hasNext()) {
+                break;
+            }
+            prefetchedBitmaps.remove(eldest.next());
+        }
+    }
+
+    // HQ patch를 화면 해상도의 몇 배로 그릴지
+    void setHighQualityScale(float highQualityScale) {
+        this.highQualityScale = highQualityScale;
+    }
+
+    float getHighQualityScale() {
+        return highQualityScale;
+    }
+
+    // pageContent는 아직 불러오지 않았으면 null
+    long getEstimatedRenderMillis(PageContentProvider provider, int index, PageContent pageContent) {
+        long millis = RenderCostEstimator.estimate(provider, index, pageContent);
+        if (millis >= 0) {
+            return millis;
+        }
+        Long observed = observedRenderMillis.get(index);
+        return observed != null ? observed : RenderCostAwarePageContentProvider.UNKNOWN_COST;
+    }
+
+    boolean isExpensive(PageContentProvider provider, int index, PageContent pageContent) {
+        return getEstimatedRenderMillis(provider, index, pageContent) > EXPENSIVE_RENDER_MILLIS;
+    }
+
+    void prefetch(PageContentProvider provider, int index, FitPolicy fitPolicy,
+                  int canvasWidth, int canvasHeight, BitmapPostProcessor postProcessor,
+                  int sliceThreshold, ResolutionPolicy resolutionPolicy, int priority) {
+        if (prefetchingIndices.get(index) || prefetchedBitmaps.get(index) != null
+                || !PageContentAvailability.isAvailable(provider, index)) {
+            return;
+        }
+        prefetchingIndices.put(index, true);
+
+        new PrefetchRequest(provider, index, fitPolicy, canvasWidth, canvasHeight, postProcessor,
+                sliceThreshold, resolutionPolicy, priority).load();
+    }
+
+    Bitmap takePrefetchedBitmap(int index, PageContentView.Size size) {
+        Bitmap bitmap = prefetchedBitmaps.remove(index);
+        if (bitmap != null && (bitmap.getWidth() != size.width || bitmap.getHeight() != size.height)) {
+            metrics.recordPrefetch(false);
+            return null;
+        }
+        if (bitmap != null) {
+            metrics.recordPrefetch(true);
+        } else if (prefetchingIndices.get(index)) {
+            // 미리 그리기 시작했지만 늦음
+            metrics.recordPrefetch(false);
+        }
+        return bitmap;
+    }
+
+    void invalidate(int index) {
+        prefetchedBitmaps.remove(index);
+        observedRenderMillis.remove(index);
+        requestRegistry.invalidate(index);
+    }
+
+    void setPassThroughRange(int from, int to) {
+        passThroughFrom = Math.min(from, to);
+        passThroughTo = Math.max(from, to);
+    }
+
+    void clearPassThroughRange() {
+        passThroughFrom = passThroughTo = PageContentView.NO_INDEX;
+    }
+
+    boolean isPassThrough(int index) {
+        return passThroughFrom != PageContentView.NO_INDEX && index >= passThroughFrom && index <= passThroughTo;
+    }
+
+    void setDraftOnly(boolean draftOnly) {
+        this.draftOnly = draftOnly;
+    }
+
+    boolean isDraftOnly() {
+        return draftOnly;
+    }
+
+    void clear() {
+        clearPassThroughRange();
+        draftOnly = false;
+        prefetchedBitmaps.evictAll();
+        observedRenderMillis.evictAll();
+        requestRegistry.clear();
+    }
+
+    // 읽기는 I/O pool에서, 그리기는 렌더링 pool에서 해서 다른 페이지의 읽기나 렌더링을 막지 않음
+    private class PrefetchRequest {
+        private final PageContentProvider provider;
+        private final int index;
+        private final FitPolicy fitPolicy;
+        private final int canvasWidth;
+        private final int canvasHeight;
+        private final BitmapPostProcessor postProcessor;
+        private final int sliceThreshold;
+        private final ResolutionPolicy resolutionPolicy;
+        private final int priority;
+        private final long requestTime = SystemClock.uptimeMillis();
+
+        PrefetchRequest(PageContentProvider provider, int index, FitPolicy fitPolicy,
+                        int canvasWidth, int canvasHeight, BitmapPostProcessor postProcessor,
+                        int sliceThreshold, ResolutionPolicy resolutionPolicy, int priority) {
+            this.provider = provider;
+            this.index = index;
+            this.fitPolicy = fitPolicy;
+            this.canvasWidth = canvasWidth;
+            this.canvasHeight = canvasHeight;
+            this.postProcessor = postProcessor;
+            this.sliceThreshold = sliceThreshold;
+            this.resolutionPolicy = resolutionPolicy;
+            this.priority = priority;
+        }
+
+        void load() {
+            new AsyncTask<Void, Void, PageContent>() {
+                @Override
+                protected PageContent doInBackground(Void... params) {
+                    PageContent pageContent = requestRegistry.adoptContent(provider, index);
+                    return pageContent != null ? pageContent : provider.getPageContent(index);
+                }
+
+                @Override
+                protected void onPostExecute(PageContent result) {
+                    if (result == null) {
+                        prefetchingIndices.delete(index);
+                        return;
+                    }
+                    render(result);
+                }
+
+                @Override
+                protected void onCancelled() {
+                    prefetchingIndices.delete(index);
+                }
+            }.executeOnExecutor(ioExecutorFor(priority));
+        }
+
+        private void render(final PageContent pageContent) {
+            new AsyncTask<Void, Void, Bitmap>() {
+                @Override
+                protected Bitmap doInBackground(Void... params) {
+                    try {
+                        return renderBitmap(pageContent);
+                    } finally {
+                        // 이 페이지의 view가 붙으면 다시 읽지 않고 넘겨받도록 맡겨둠
+                        // 움직이는 동안에는 해제하지 않고, 멈춘 뒤 붙은 view의 불러오기보다 늦게 해제함
+                        requestRegistry.parkContent(provider, index, pageContent, ioExecutorFor(PRIORITY_IDLE));
+                    }
+                }
+
+                @Override
+                protected void onPostExecute(Bitmap result) {
+                    prefetchingIndices.delete(index);
+                    if (result != null) {
+                        prefetchedBitmaps.put(index, result);
+                        trimPrefetchedBitmaps();
+                        metrics.recordRenderLatency(RenderMetrics.TIER_PREFETCH, SystemClock.uptimeMillis() - requestTime);
+                    }
+                }
+
+                @Override
+                protected void onCancelled() {
+                    prefetchingIndices.delete(index);
+                }
+            }.executeOnExecutor(renderExecutorFor(priority));
+        }
+
+        private Bitmap renderBitmap(PageContent pageContent) {
+            SizeF contentSize = pageContent.getSize();
+            float scale = fitPolicy.calculateScale(canvasWidth, canvasHeight, contentSize);
+            PageContentView.Size size = new PageContentView.Size(
+                    (int) (contentSize.width * scale), (int) (contentSize.height * scale));
+            if (size.height > sliceThreshold) {
+                // Sliced pages render only the slices near the viewport, there is nothing to take
+                return null;
+            }
+            PageContentView.Size renderSize = resolutionPolicy.calculateRenderSize(size);
+            int width = renderSize.width;
+            int height = renderSize.height;
+            metrics.recordRenderStarted();
+            long renderStart = SystemClock.uptimeMillis();
+            Bitmap bitmap = pageContent.renderToBitmap(width, height, 0, 0, width, height, false);
+            metrics.recordRenderCompleted();
+            recordRenderCost(index, SystemClock.uptimeMillis() - renderStart);
+            BitmapLedger.record(bitmap, BitmapLedger.ORIGIN_PREFETCH, index);
+            if (bitmap != null && postProcessor != null) {
+                Bitmap processed = postProcessor.process(bitmap);
+                if (processed != bitmap) {
+                    bitmap.recycle();
+                    bitmap = processed;
+                    BitmapLedger.record(bitmap, BitmapLedger.ORIGIN_POST_PROCESS, index);
+                }
+            }
+            return bitmap;
+        }
+    }
+
+    private static class PrioritizedRunnable implements Runnable, Comparable<PrioritizedRunnable> {
+        private final Runnable runnable;
+        private final int priority;
+        private final long sequence;
+
+        PrioritizedRunnable(Runnable runnable, int priority, long sequence) {
+            this.runnable = runnable;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public int compareTo(@NonNull PrioritizedRunnable other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private static class RenderThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        RenderThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, name + " #" + count.getAndIncrement());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 기기가 뜨겁거나 절전 모드일 때 HQ patch 해상도, 미리 읽을 페이지 수, 렌더링 스레드 수의 상한을 정함
+// 상태마다 인스턴스가 하나뿐이므로 ==로 바뀌었는지 알 수 있음
+final class RenderThrottle {
+    static final RenderThrottle NONE = new RenderThrottle(1.0f, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private static final RenderThrottle WARM = new RenderThrottle(0.75f, 1, 1);
+    private static final RenderThrottle HOT = new RenderThrottle(0.5f, 0, 1);
+
+    final float highQualityScale;
+    final int maxLookAhead;
+    final int maxRenderThreads;
+
+    private RenderThrottle(float highQualityScale, int maxLookAhead, int maxRenderThreads) {
+        this.highQualityScale = highQualityScale;
+        this.maxLookAhead = maxLookAhead;
+        this.maxRenderThreads = maxRenderThreads;
+    }
+
+    static RenderThrottle of(DeviceStatusSource source) {
+        if (source == null) {
+            return NONE;
+        }
+        int thermalStatus = source.getThermalStatus();
+        if (thermalStatus >= DeviceStatusSource.THERMAL_STATUS_SEVERE) {
+            return HOT;
+        }
+        if (thermalStatus >= DeviceStatusSource.THERMAL_STATUS_MODERATE || source.isPowerSaveMode()) {
+            return WARM;
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 주어진 크기로 배치되는 페이지를 실제로 몇 픽셀짜리 bitmap으로 그릴지 정함
+// 작게 그린 bitmap은 그릴 때 늘려서 보여주고, 선명함은 HQ patch가 채움
+// 같은 크기에는 언제나 같은 값을 돌려줘야 같은 렌더링을 합치거나 미리 그린 bitmap을 넘겨받을 수 있음
+public interface ResolutionPolicy {
+    PageContentView.Size calculateRenderSize(PageContentView.Size size);
+
+    class PixelBudget implements ResolutionPolicy {
+        private static final int BYTES_PER_PIXEL = 4;
+        private static final int HEAP_SHARE_DIVISOR = 8;
+
+        private final long budget;
+        private final int maxDimension;
+
+        public PixelBudget(long maxPixels, int maxDimension) {
+            this(maxPixels, maxDimension, Runtime.getRuntime().maxMemory());
+        }
+
+        // bitmap 하나가 heap 최대 크기의 1/8 이상을 차지하지 않도록 함
+        // 지금 남은 heap은 호출할 때마다 달라지므로 보지 않음
+        PixelBudget(long maxPixels, int maxDimension, long maxHeapBytes) {
+            this.budget = Math.min(maxPixels, maxHeapBytes / BYTES_PER_PIXEL / HEAP_SHARE_DIVISOR);
+            this.maxDimension = maxDimension;
+        }
+
+        @Override
+        public PageContentView.Size calculateRenderSize(PageContentView.Size size) {
+            float factor = 1.0f;
+            long pixels = (long) size.width * size.height;
+            if (pixels > budget) {
+                factor = (float) Math.sqrt((double) budget / pixels);
+            }
+            factor = Math.min(factor, (float) maxDimension / Math.max(size.width, 1));
+            factor = Math.min(factor, (float) maxDimension / Math.max(size.height, 1));
+
+            if (factor >= 1.0f) {
+                return size;
+            }
+            return new PageContentView.Size(Math.max((int) (size.width * factor), 1),
+                                            Math.max((int) (size.height * factor), 1));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// PageContentReaderView의 스크롤 범위, 위치 보정, 스크롤바 계산
+// benchmark 모듈이 JVM만으로 이 파일을 컴파일하므로 android.* 에 의존하면 안 됨
+final class ScrollGeometry {
+    interface PageSizes {
+        SizeF getPageContentSize(int index);
+    }
+
+    private ScrollGeometry() {
+    }
+
+    // {xMin, yMin, xMax, yMax}, 화면보다 작은 쪽은 가운데(스크롤 모드의 세로는 0)로 고정
+    static int[] getScrollBounds(int width, int height, int left, int top, int right, int bottom,
+                                 boolean scrollMode) {
+        int xMin = width - right;
+        int xMax = -left;
+        int yMin = height - bottom;
+        int yMax = -top;
+
+        // In either dimension, if view smaller than screen then
+        // constrain it to be central
+        if (xMin > xMax) {
+            xMin = xMax = (xMin + xMax) / 2;
+        }
+        if (yMin > yMax) {
+            if (scrollMode) {
+                yMin = yMax = 0;
+            } else {
+                yMin = yMax = (yMin + yMax) / 2;
+            }
+        }
+
+        return new int[] {xMin, yMin, xMax, yMax};
+    }
+
+    // 0을 [min, max] 범위로 당겼을 때의 값, 범위 밖으로 나간 만큼 되돌릴 거리
+    static int getCorrection(int min, int max) {
+        return Math.min(Math.max(0, min), max);
+    }
+
+    // 페이지 크기가 제각각인 스크롤 모드에서 {현재 위치, 전체 길이}, 페이지 수만큼 반복하므로 매 프레임 부르기엔 비쌈
+    static long[] getFlexibleScrollExtent(PageSizes pageSizes, FitPolicy fitPolicy, int count, int currentIndex,
+                                          int width, int height, float scale, int pageGapPixels, int currentTop) {
+        long current = -currentTop, total = 0L;
+        for (int i = 0; i < count; i++) {
+            SizeF contentSize = pageSizes.getPageContentSize(i);
+            float fitScale = fitPolicy.calculateScale(width, height, contentSize);
+            float pageHeight = contentSize.height * fitScale * scale + pageGapPixels * scale;
+            total += pageHeight;
+            if (i < currentIndex) {
+                current += pageHeight;
+            }
+        }
+        return new long[] {current, total};
+    }
+
+    // 페이지 크기가 모두 같은 스크롤 모드에서 {현재 위치, 전체 길이}
+    static long[] getUniformScrollExtent(int count, int currentIndex, boolean reverseMode, int offsetY,
+                                         int pageHeight, float scale, int pageGapPixels, int currentTop) {
+        int prevCount = reverseMode ? count - currentIndex - 1 : currentIndex;
+        long total = (int) (offsetY * 2 + pageHeight * count + pageGapPixels * scale * (count - 1));
+        long current = (int) (offsetY + prevCount * (pageHeight + pageGapPixels * scale) - currentTop);
+        return new long[] {current, total};
+    }
+
+    // {thumb 위치, thumb 길이}, thumb가 최소 길이보다 짧아지면 늘린 만큼 전체 길이를 보정함
+    static float[] getScrollBarThumb(long current, long total, int viewLength, float minThumbSize) {
+        float size = (float) viewLength * viewLength / total;
+        if (size < minThumbSize) {
+            size = minThumbSize;
+            total = (int) ((total - viewLength) + total * size / viewLength);
+        }
+        float position = (float) viewLength * current / total;
+        return new float[] {position, size};
+    }
+}
@@ -0,0 +1,66 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 스크롤 모드에서 화면 밖에 child view를 붙여둘 범위(above/below)를 스크롤 속도와 방향에 따라 계산
+// 진행 방향 쪽은 넓게, 지나온 쪽은 좁게 잡고, 전체 범위는 메모리 예산을 넘지 않도록 함
+class ScrollPrefetchWindow {
+    private static final float LOOKAHEAD_SECONDS    = 0.5f;
+    private static final float MAX_AHEAD_SCREENS    = 4.0f;
+    private static final float BEHIND_RATIO         = 0.5f;
+    private static final int BYTES_PER_PIXEL        = 4;
+
+    private long memoryBudgetBytes = Runtime.getRuntime().maxMemory() / 4;
+    private int above;
+    private int below;
+
+    void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * @param velocityY content velocity in pixels per second, positive when the content moves down
+     *                  (i.e. the pages above are coming into the screen)
+     * @param directionY sign of the last user scroll, in the same convention as velocityY
+     */
+    void update(int viewWidth, int viewHeight, float scale, float velocityY, int directionY) {
+        int screen = (int) (viewHeight * scale);
+        int direction = velocityY != 0 ? (int) Math.signum(velocityY) : directionY;
+
+        int ahead, behind;
+        if (direction == 0) {
+            ahead = behind = screen;
+        } else {
+            ahead = (int) Math.min(screen + Math.abs(velocityY) * LOOKAHEAD_SECONDS, screen * MAX_AHEAD_SCREENS);
+            behind = (int) (screen * BEHIND_RATIO);
+        }
+
+        // Rendered bitmaps are sized at the minimum zoom, so one window pixel costs 1 / scale rows
+        if (viewWidth > 0 && scale > 0) {
+            long bytesPerRow = (long) viewWidth * BYTES_PER_PIXEL;
+            long allowed = (long) (memoryBudgetBytes / bytesPerRow * scale) - viewHeight;
+            if (ahead + behind > allowed) {
+                behind = (int) Math.max(Math.min(behind, allowed - ahead), 0);
+                ahead = (int) Math.max(Math.min(ahead, allowed - behind), 0);
+            }
+        }
+
+        if (direction > 0) {
+            above = ahead;
+            below = behind;
+        } else {
+            above = behind;
+            below = ahead;
+        }
+    }
+
+    int getAbove() {
+        return above;
+    }
+
+    int getBelow() {
+        return below;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// SlicedPageContentImageView의 slice 경계와 들고 있을 slice 범위 계산
+// 좌표는 모두 확대하지 않은 렌더링 크기 기준
+final class SliceLayout {
+    private SliceLayout() {
+    }
+
+    static int getSliceCount(int renderHeight, int sliceHeight) {
+        return (renderHeight + sliceHeight - 1) / sliceHeight;
+    }
+
+    static int getSliceTop(int slice, int sliceHeight) {
+        return slice * sliceHeight;
+    }
+
+    static int getSliceBottom(int slice, int sliceHeight, int renderHeight) {
+        return Math.min((slice + 1) * sliceHeight, renderHeight);
+    }
+
+    // {위, 아래}, 화면에 놓인 view의 top과 높이로 보이는 부분을 렌더링 좌표로 바꿈
+    static int[] getVisibleRange(int top, int height, int parentHeight, int renderHeight) {
+        float ratio = (float) renderHeight / height;
+        int visibleTop = (int) (Math.max(-top, 0) * ratio);
+        int visibleBottom = (int) (Math.min(parentHeight - top, height) * ratio);
+        return new int[] {visibleTop, visibleBottom};
+    }
+
+    // {처음, 끝}, 보이는 부분에서 위아래로 margin 안에 걸치는 slice, 하나도 없으면 처음 > 끝
+    static int[] getResidentSlices(int renderHeight, int sliceHeight, int visibleTop, int visibleBottom,
+                                   int margin) {
+        int count = getSliceCount(renderHeight, sliceHeight);
+        int first = count, last = -1;
+        for (int i = 0; i < count; i++) {
+            if (getSliceBottom(i, sliceHeight, renderHeight) > visibleTop - margin
+                    && getSliceTop(i, sliceHeight) < visibleBottom + margin) {
+                first = Math.min(first, i);
+                last = i;
+            }
+        }
+        return new int[] {first, last};
+    }
+}
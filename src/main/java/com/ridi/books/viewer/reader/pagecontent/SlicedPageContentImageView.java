@@ -0,0 +1,117 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.annotation.ColorInt;
+import android.util.AttributeSet;
+import android.view.View;
+
+// 세로로 매우 긴 페이지(웹툰 등)를 가로로 잘린 여러 장의 bitmap으로 나누어 그리는 view
+// 각 slice는 독립적으로 렌더링되고 버려질 수 있으며, 비어있는 slice는 paper color로 채워짐
+// 움직이는 동안 그린 slice는 draft로 표시해 두고 멈추면 원래 해상도로 다시 그림
+// 미리 그리기(RenderScheduler.prefetch)는 slice를 만들지 않음, 화면에 붙은 뒤 보이는 근처만 그림
+class SlicedPageContentImageView extends View {
+    @ColorInt private int paperColor;
+    private int renderHeight;
+    private int sliceHeight;
+    private Bitmap[] slices = new Bitmap[0];
+    private boolean[] draftSlices = new boolean[0];
+    private Rect rect = new Rect();
+
+    SlicedPageContentImageView(Context context) {
+        this(context, null);
+    }
+
+    private SlicedPageContentImageView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    void setPaperColor(@ColorInt int paperColor) {
+        this.paperColor = paperColor;
+    }
+
+    void setSlicing(int renderHeight, int sliceHeight) {
+        this.renderHeight = renderHeight;
+        this.sliceHeight = sliceHeight;
+        detachSlices();
+        this.slices = new Bitmap[SliceLayout.getSliceCount(renderHeight, sliceHeight)];
+        this.draftSlices = new boolean[slices.length];
+        invalidate();
+    }
+
+    int getSliceCount() {
+        return slices.length;
+    }
+
+    int getSliceTop(int slice) {
+        return SliceLayout.getSliceTop(slice, sliceHeight);
+    }
+
+    int getSliceBottom(int slice) {
+        return SliceLayout.getSliceBottom(slice, sliceHeight, renderHeight);
+    }
+
+    Bitmap getSlice(int slice) {
+        return slices[slice];
+    }
+
+    boolean isDraftSlice(int slice) {
+        return slices[slice] != null && draftSlices[slice];
+    }
+
+    void setSlice(int slice, Bitmap bitmap, boolean draft) {
+        if (slices[slice] != null && slices[slice] != bitmap) {
+            BitmapLedger.markDetached(slices[slice]);
+        }
+        BitmapLedger.markAttached(bitmap);
+        slices[slice] = bitmap;
+        draftSlices[slice] = draft;
+        invalidate();
+    }
+
+    long getResidentBytes() {
+        long bytes = 0;
+        for (Bitmap slice : slices) {
+            if (slice != null) {
+                bytes += slice.getByteCount();
+            }
+        }
+        return bytes;
+    }
+
+    void clearSlices() {
+        detachSlices();
+        slices = new Bitmap[0];
+        draftSlices = new boolean[0];
+        invalidate();
+    }
+
+    private void detachSlices() {
+        for (Bitmap slice : slices) {
+            if (slice != null) {
+                BitmapLedger.markDetached(slice);
+            }
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        canvas.drawColor(paperColor);
+
+        if (renderHeight == 0) {
+            return;
+        }
+
+        float ratio = (float) getHeight() / renderHeight;
+        for (int i = 0; i < slices.length; i++) {
+            if (slices[i] != null) {
+                rect.set(0, (int) (getSliceTop(i) * ratio), getWidth(), (int) (getSliceBottom(i) * ratio));
+                canvas.drawBitmap(slices[i], null, rect, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// 다운로드가 끝나기 전부터 보여주는 책처럼 페이지 수가 읽는 도중에 늘어나는 provider
+// getPageContentCount()는 크기를 알고 있어 배치할 수 있는(known) 페이지 수이며,
+// 아직 내용을 불러올 수 없는 페이지는 그 크기의 placeholder로 표시됨
+// 내용이 도착하면 PageContentViewAdapter.notifyPageContentChanged(),
+// 페이지 수가 늘어나면 notifyPageContentRangeInserted()로 알려주어야 함
+public interface StreamingPageContentProvider extends PageContentProvider {
+    // 다운로드가 끝났을 때의 전체 페이지 수
+    int getExpectedPageContentCount();
+    // 지금 getPageContent()로 불러올 수 있는 페이지 수
+    int getAvailablePageContentCount();
+    boolean isPageContentAvailable(int index);
+}
@@ -0,0 +1,7 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+// PageContentReaderView가 붙여두고 있는 페이지의 범위가 바뀔 때마다 알림을 받는 provider
+// 문서를 미리 열거나 멀어진 문서를 닫는 등의 자원 관리에 사용
+public interface ViewportAwarePageContentProvider extends PageContentProvider {
+    void onViewportChanged(int firstIndex, int lastIndex);
+}
@@ -0,0 +1,177 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+// memory-mapped ZIP 파일의 central directory를 한번만 읽어 entry 목록을 만듦 (ZIP64는 지원하지 않음)
+class ZipCentralDirectory {
+    private static final int EOCD_SIGNATURE                = 0x06054b50;
+    private static final int CENTRAL_HEADER_SIGNATURE      = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE        = 0x04034b50;
+    private static final int EOCD_MIN_LENGTH               = 22;
+    private static final int MAX_COMMENT_LENGTH            = 0xffff;
+    private static final int LOCAL_HEADER_LENGTH           = 30;
+    private static final int CENTRAL_HEADER_LENGTH         = 46;
+
+    static final int METHOD_STORED                          = 0;
+    static final int METHOD_DEFLATED                        = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static class Entry {
+        final String name;
+        final int method;
+        final int compressedSize;
+        final int size;
+        final int localHeaderOffset;
+
+        Entry(String name, int method, int compressedSize, int size, int localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final List<Entry> entries = new ArrayList<>();
+
+    ZipCentralDirectory(ByteBuffer mapped) throws IOException {
+        buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        int eocd = findEndOfCentralDirectory();
+        int count = buffer.getShort(eocd + 10) & 0xffff;
+        int offset = buffer.getInt(eocd + 16);
+
+        for (int i = 0; i < count; i++) {
+            if (buffer.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header");
+            }
+            int method = buffer.getShort(offset + 10) & 0xffff;
+            int compressedSize = buffer.getInt(offset + 20);
+            int size = buffer.getInt(offset + 24);
+            int nameLength = buffer.getShort(offset + 28) & 0xffff;
+            int extraLength = buffer.getShort(offset + 30) & 0xffff;
+            int commentLength = buffer.getShort(offset + 32) & 0xffff;
+            int localHeaderOffset = buffer.getInt(offset + 42);
+
+            byte[] name = new byte[nameLength];
+            ByteBuffer nameBuffer = buffer.duplicate();
+            nameBuffer.position(offset + CENTRAL_HEADER_LENGTH);
+            nameBuffer.get(name);
+
+            entries.add(new Entry(new String(name, UTF_8), method, compressedSize, size, localHeaderOffset));
+            offset += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+    }
+
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    // entry의 압축되지 않은 내용 (stored면 복사 없이 mapped buffer를 가리키는 stream)
+    InputStream openStream(Entry entry) throws IOException {
+        ByteBuffer data = dataOf(entry);
+        InputStream stream = new ByteBufferInputStream(data);
+        if (entry.method == METHOD_STORED) {
+            return stream;
+        } else if (entry.method == METHOD_DEFLATED) {
+            return new InflaterInputStream(stream, new Inflater(true));
+        }
+        throw new ZipException("Unsupported compression method: " + entry.method);
+    }
+
+    byte[] read(Entry entry) throws IOException {
+        ByteBuffer data = dataOf(entry);
+        if (entry.method == METHOD_STORED) {
+            byte[] bytes = new byte[entry.size];
+            data.get(bytes);
+            return bytes;
+        } else if (entry.method == METHOD_DEFLATED) {
+            byte[] compressed = new byte[entry.compressedSize];
+            data.get(compressed);
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(compressed);
+                byte[] bytes = new byte[entry.size];
+                int length = 0;
+                while (length < bytes.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(bytes, length, bytes.length - length);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                return bytes;
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        }
+        throw new ZipException("Unsupported compression method: " + entry.method);
+    }
+
+    private ByteBuffer dataOf(Entry entry) throws IOException {
+        int offset = entry.localHeaderOffset;
+        if (buffer.getInt(offset) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local file header");
+        }
+        int nameLength = buffer.getShort(offset + 26) & 0xffff;
+        int extraLength = buffer.getShort(offset + 28) & 0xffff;
+        int dataOffset = offset + LOCAL_HEADER_LENGTH + nameLength + extraLength;
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(dataOffset);
+        data.limit(dataOffset + entry.compressedSize);
+        return data.slice();
+    }
+
+    private int findEndOfCentralDirectory() throws IOException {
+        int limit = Math.max(buffer.capacity() - EOCD_MIN_LENGTH - MAX_COMMENT_LENGTH, 0);
+        for (int offset = buffer.capacity() - EOCD_MIN_LENGTH; offset >= limit; offset--) {
+            if (buffer.getInt(offset) == EOCD_SIGNATURE) {
+                return offset;
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.content.ComponentCallbacks2;
+import android.os.SystemClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// 시간은 SystemClock.sleep()으로 흘려보내므로 Robolectric에서는 가상 시계만 움직임
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AdaptiveRenderControllerTest {
+    private static final long MIN_CACHE_BYTES = 100;
+    private static final long MAX_CACHE_BYTES = 300;
+
+    @Test
+    public void startsFromDefaultsWithoutMeasurements() {
+        FakeHeapController controller = newController(1.0f);
+        controller.update();
+
+        AdaptiveRenderController.Decisions decisions = controller.getDecisions();
+        assertEquals(AdaptiveRenderController.PRESSURE_NONE, decisions.getMemoryPressure());
+        assertEquals(2, decisions.getLookAhead());
+        assertEquals(MAX_CACHE_BYTES, decisions.getCacheBudgetBytes());
+        assertEquals(1.0f, decisions.getHighQualityScale(), 0);
+    }
+
+    @Test
+    public void lookAheadCoversRenderTimeAtReadingSpeed() {
+        FakeHeapController controller = newController(1.0f);
+        turnPages(controller, 200);
+        controller.onRenderCost(300);
+        controller.update();
+
+        // 300ms 걸리는 렌더링은 200ms마다 넘기면 2페이지 앞에서 시작해야 하고, 지금 페이지 하나를 더함
+        assertEquals(3, controller.getDecisions().getLookAhead());
+    }
+
+    @Test
+    public void lookAheadStaysInConfiguredRange() {
+        FakeHeapController controller = newController(1.0f);
+        turnPages(controller, 200);
+        controller.onRenderCost(5000);
+        controller.setLookAheadRange(1, 4);
+        controller.update();
+        assertEquals(4, controller.getDecisions().getLookAhead());
+
+        controller = newController(1.0f);
+        turnPages(controller, 1000);
+        controller.onRenderCost(10);
+        controller.setLookAheadRange(3, 6);
+        controller.update();
+        assertEquals(3, controller.getDecisions().getLookAhead());
+    }
+
+    @Test
+    public void slowRenderLowersHighQualityScaleWithoutPressure() {
+        FakeHeapController controller = newController(1.0f);
+        controller.onRenderCost(RenderScheduler.EXPENSIVE_RENDER_MILLIS + 50);
+        controller.update();
+
+        assertEquals(AdaptiveRenderController.PRESSURE_NONE, controller.getDecisions().getMemoryPressure());
+        assertEquals(0.75f, controller.getDecisions().getHighQualityScale(), 0);
+        assertEquals(MAX_CACHE_BYTES, controller.getDecisions().getCacheBudgetBytes());
+    }
+
+    @Test
+    public void moderatePressureHalvesEveryRange() {
+        FakeHeapController controller = newController(0.2f);
+        turnPages(controller, 200);
+        controller.onRenderCost(5000);
+        controller.update();
+
+        AdaptiveRenderController.Decisions decisions = controller.getDecisions();
+        assertEquals(AdaptiveRenderController.PRESSURE_MODERATE, decisions.getMemoryPressure());
+        assertEquals(3, decisions.getLookAhead());
+        assertEquals((MIN_CACHE_BYTES + MAX_CACHE_BYTES) / 2, decisions.getCacheBudgetBytes());
+        assertEquals(0.75f, decisions.getHighQualityScale(), 0);
+    }
+
+    @Test
+    public void highPressureFallsToMinimums() {
+        FakeHeapController controller = newController(0.1f);
+        turnPages(controller, 200);
+        controller.onRenderCost(5000);
+        controller.update();
+
+        AdaptiveRenderController.Decisions decisions = controller.getDecisions();
+        assertEquals(AdaptiveRenderController.PRESSURE_HIGH, decisions.getMemoryPressure());
+        assertEquals(1, decisions.getLookAhead());
+        assertEquals(MIN_CACHE_BYTES, decisions.getCacheBudgetBytes());
+        assertEquals(0.5f, decisions.getHighQualityScale(), 0);
+    }
+
+    @Test
+    public void trimMemoryLevelsMapToPressure() {
+        assertEquals(AdaptiveRenderController.PRESSURE_MODERATE,
+                pressureAfterTrim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(AdaptiveRenderController.PRESSURE_HIGH,
+                pressureAfterTrim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+        assertEquals(AdaptiveRenderController.PRESSURE_HIGH,
+                pressureAfterTrim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+        // 백그라운드로 간 것만으로는 심각하지 않음
+        assertEquals(AdaptiveRenderController.PRESSURE_MODERATE,
+                pressureAfterTrim(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(AdaptiveRenderController.PRESSURE_HIGH,
+                pressureAfterTrim(ComponentCallbacks2.TRIM_MEMORY_MODERATE));
+    }
+
+    @Test
+    public void trimMemoryPressureExpires() {
+        FakeHeapController controller = newController(1.0f);
+        controller.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        controller.update();
+        assertEquals(AdaptiveRenderController.PRESSURE_HIGH, controller.getDecisions().getMemoryPressure());
+
+        SystemClock.sleep(30000);
+        controller.update();
+        assertEquals(AdaptiveRenderController.PRESSURE_NONE, controller.getDecisions().getMemoryPressure());
+    }
+
+    @Test
+    public void updateReportsOnlyChangedDecisions() {
+        FakeHeapController controller = newController(1.0f);
+        controller.update();
+        assertFalse(controller.update());
+
+        controller.headroom = 0.1f;
+        assertTrue(controller.update());
+        assertFalse(controller.update());
+    }
+
+    @Test
+    public void rangesAreSanitized() {
+        FakeHeapController controller = newController(1.0f);
+        controller.setLookAheadRange(-1, -5);
+        controller.setCacheBudgetRange(500, 100);
+        controller.setHighQualityScaleRange(0, 2);
+        controller.update();
+
+        AdaptiveRenderController.Decisions decisions = controller.getDecisions();
+        assertEquals(0, decisions.getLookAhead());
+        assertEquals(500, decisions.getCacheBudgetBytes());
+        assertEquals(1.0f, decisions.getHighQualityScale(), 0);
+
+        controller.headroom = 0.1f;
+        controller.update();
+        assertEquals(0.1f, controller.getDecisions().getHighQualityScale(), 0.0001f);
+    }
+
+    @Test
+    public void viewNeverShrinksContentCacheBelowAppCapacity() {
+        CachedPageContentProvider provider = newCachedProvider(20);
+        ReaderViewHarness harness = new ReaderViewHarness(provider, false);
+        FakeHeapController controller = newController(1.0f);
+        controller.setLookAheadRange(1, 2);
+        harness.view.setAdaptiveRenderController(controller);
+        assertEquals(20, provider.getCapacity());
+
+        controller.setLookAheadRange(12, 12);
+        harness.view.setAdaptiveRenderController(controller);
+        assertEquals(12 * 2 + 3, provider.getCapacity());
+
+        harness.view.setAdaptiveRenderController(null);
+        assertEquals(20, provider.getCapacity());
+    }
+
+    @Test
+    public void replacedAdapterGetsItsCapacityBack() {
+        CachedPageContentProvider provider = newCachedProvider(5);
+        ReaderViewHarness harness = new ReaderViewHarness(provider, false);
+        FakeHeapController controller = newController(1.0f);
+        controller.setLookAheadRange(4, 4);
+        harness.view.setAdaptiveRenderController(controller);
+        assertEquals(4 * 2 + 3, provider.getCapacity());
+
+        CachedPageContentProvider nextProvider = newCachedProvider(30);
+        harness.view.setAdapter(new ReaderViewHarness.Adapter(harness.activity, nextProvider,
+                new RenderScheduler(new ReaderViewHarness.ManualExecutor(), new ReaderViewHarness.ManualExecutor())));
+        assertEquals(5, provider.getCapacity());
+        assertEquals(30, nextProvider.getCapacity());
+    }
+
+    private static CachedPageContentProvider newCachedProvider(int capacity) {
+        return new CachedPageContentProvider(new SyntheticPageContentProvider(10,
+                new SizeF[] {new SizeF(600, 800)}, 0, 0, 0), capacity);
+    }
+
+    private static FakeHeapController newController(float headroom) {
+        FakeHeapController controller = new FakeHeapController();
+        controller.headroom = headroom;
+        controller.setLookAheadRange(1, 6);
+        controller.setCacheBudgetRange(MIN_CACHE_BYTES, MAX_CACHE_BYTES);
+        controller.setHighQualityScaleRange(0.5f, 1.0f);
+        return controller;
+    }
+
+    private static int pressureAfterTrim(int level) {
+        FakeHeapController controller = newController(1.0f);
+        controller.onTrimMemory(level);
+        controller.update();
+        return controller.getDecisions().getMemoryPressure();
+    }
+
+    // 처음 한 번은 간격을 재기 시작만 하므로 세 번 넘김
+    private static void turnPages(AdaptiveRenderController controller, long intervalMillis) {
+        for (int i = 0; i < 3; i++) {
+            controller.onPageTurn();
+            SystemClock.sleep(intervalMillis);
+        }
+    }
+
+    // heap 사용량을 정해줄 수 있는 controller
+    private static class FakeHeapController extends AdaptiveRenderController {
+        float headroom;
+
+        @Override
+        float measureHeapHeadroom() {
+            return headroom;
+        }
+    }
+}
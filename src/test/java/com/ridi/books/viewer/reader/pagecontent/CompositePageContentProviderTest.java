@@ -0,0 +1,288 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompositePageContentProviderTest {
+    private static final SizeF PAGE = new SizeF(600, 800);
+    private static final int PAGES_PER_VOLUME = 10;
+
+    @Test
+    public void mapsIndicesAcrossVolumes() {
+        FakeVolume[] volumes = newVolumes(3);
+        CompositePageContentProvider provider = newProvider(volumes, new ManualExecutor());
+        assertEquals(30, provider.getPageContentCount());
+        assertEquals(0, provider.getVolumeIndex(9));
+        assertEquals(1, provider.getVolumeIndex(10));
+        assertEquals(20, provider.getFirstIndexOfVolume(2));
+    }
+
+    @Test
+    public void volumeOpenedWhileViewportMovesAwayIsClosed() {
+        FakeVolume[] volumes = newVolumes(3);
+        ManualExecutor executor = new ManualExecutor();
+        CompositePageContentProvider provider = newProvider(volumes, executor);
+
+        provider.onViewportChanged(0, 0);
+        // 첫 권을 여는 작업이 실행되기 전에 마지막 권으로 이동함
+        provider.onViewportChanged(25, 25);
+        executor.runPendingWork();
+
+        assertEquals(1, volumes[0].openCount.get());
+        assertEquals(1, volumes[0].closeCount.get());
+        assertEquals(1, volumes[2].openCount.get());
+        assertEquals(0, volumes[2].closeCount.get());
+        assertEquals(0, volumes[1].openCount.get());
+    }
+
+    @Test
+    public void volumeInUseIsClosedWhenLastContentIsReleased() {
+        FakeVolume[] volumes = newVolumes(3);
+        ManualExecutor executor = new ManualExecutor();
+        CompositePageContentProvider provider = newProvider(volumes, executor);
+        provider.onViewportChanged(0, 0);
+        executor.runPendingWork();
+
+        PageContent first = provider.getPageContent(3);
+        PageContent second = provider.getPageContent(4);
+        provider.onViewportChanged(25, 25);
+        executor.runPendingWork();
+        // 아직 쓰는 중이므로 멀어져도 닫지 않음
+        assertEquals(0, volumes[0].closeCount.get());
+
+        provider.releasePageContent(3, first);
+        executor.runPendingWork();
+        assertEquals(0, volumes[0].closeCount.get());
+
+        provider.releasePageContent(4, second);
+        executor.runPendingWork();
+        assertEquals(1, volumes[0].closeCount.get());
+        // 닫기 전에 안쪽 provider에 돌려줌
+        assertEquals(Arrays.asList(3, 4), volumes[0].lastProvider.releasedIndices);
+    }
+
+    @Test
+    public void releaseOnNearVolumeKeepsItOpen() {
+        FakeVolume[] volumes = newVolumes(2);
+        ManualExecutor executor = new ManualExecutor();
+        CompositePageContentProvider provider = newProvider(volumes, executor);
+        provider.onViewportChanged(0, 0);
+        executor.runPendingWork();
+
+        provider.releasePageContent(1, provider.getPageContent(1));
+        executor.runPendingWork();
+        assertEquals(0, volumes[0].closeCount.get());
+    }
+
+    @Test
+    public void repeatedHandOutsAreCountedUntilEveryRelease() {
+        FakeVolume[] volumes = newVolumes(2);
+        volumes[0].shareContents = true;
+        ManualExecutor executor = new ManualExecutor();
+        CompositePageContentProvider provider = newProvider(volumes, executor);
+        provider.onViewportChanged(0, 0);
+        executor.runPendingWork();
+
+        PageContent first = provider.getPageContent(2);
+        PageContent second = provider.getPageContent(2);
+        assertSame(first, second);
+        provider.onViewportChanged(15, 15);
+        executor.runPendingWork();
+
+        provider.releasePageContent(2, first);
+        executor.runPendingWork();
+        assertEquals(0, volumes[0].closeCount.get());
+        assertEquals(Collections.singletonList(2), volumes[0].lastProvider.releasedIndices);
+
+        provider.releasePageContent(2, second);
+        executor.runPendingWork();
+        assertEquals(1, volumes[0].closeCount.get());
+        assertEquals(Arrays.asList(2, 2), volumes[0].lastProvider.releasedIndices);
+
+        // 이미 모두 돌려받은 것은 무시함
+        provider.releasePageContent(2, second);
+        assertEquals(2, volumes[0].lastProvider.releasedIndices.size());
+    }
+
+    @Test
+    public void getPageContentWaitsForBackgroundOpen() throws InterruptedException {
+        FakeVolume[] volumes = newVolumes(2);
+        final CountDownLatch openStarted = new CountDownLatch(1);
+        final CountDownLatch openGate = new CountDownLatch(1);
+        volumes[0].openStarted = openStarted;
+        volumes[0].openGate = openGate;
+        final CompositePageContentProvider provider = newProvider(volumes, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                new Thread(command).start();
+            }
+        });
+
+        provider.onViewportChanged(0, 0);
+        assertTrue(openStarted.await(5, TimeUnit.SECONDS));
+
+        final AtomicReference<PageContent> loaded = new AtomicReference<>();
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loaded.set(provider.getPageContent(1));
+            }
+        });
+        worker.start();
+        worker.join(100);
+        // 여는 중인 권을 다시 열지 않고 기다림
+        assertTrue(worker.isAlive());
+
+        openGate.countDown();
+        worker.join(5000);
+        assertNotNull(loaded.get());
+        assertEquals(1, volumes[0].openCount.get());
+    }
+
+    private static CompositePageContentProvider newProvider(FakeVolume[] volumes, Executor executor) {
+        return new CompositePageContentProvider(Arrays.<CompositePageContentProvider.Volume>asList(volumes), 0,
+                executor);
+    }
+
+    private static FakeVolume[] newVolumes(int count) {
+        FakeVolume[] volumes = new FakeVolume[count];
+        for (int i = 0; i < count; i++) {
+            volumes[i] = new FakeVolume();
+        }
+        return volumes;
+    }
+
+    // 실행하지 않고 쌓아두었다가 runPendingWork()를 부른 스레드에서 실행함
+    private static class ManualExecutor implements Executor {
+        private final Queue<Runnable> pending = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        void runPendingWork() {
+            Runnable command;
+            while ((command = pending.poll()) != null) {
+                command.run();
+            }
+        }
+    }
+
+    // 열고 닫은 횟수를 세는 권, openGate가 있으면 열리기 전에 기다림
+    private static class FakeVolume implements CompositePageContentProvider.Volume {
+        final AtomicInteger openCount = new AtomicInteger();
+        final AtomicInteger closeCount = new AtomicInteger();
+        volatile boolean shareContents;
+        volatile CountDownLatch openStarted;
+        volatile CountDownLatch openGate;
+        volatile FakeProvider lastProvider;
+
+        @Override
+        public int getPageContentCount() {
+            return PAGES_PER_VOLUME;
+        }
+
+        @Override
+        public SizeF getPageContentSize(int index) {
+            return PAGE;
+        }
+
+        @Override
+        public PageContentProvider open() {
+            openCount.incrementAndGet();
+            if (openStarted != null) {
+                openStarted.countDown();
+            }
+            if (openGate != null) {
+                try {
+                    openGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            lastProvider = new FakeProvider(shareContents);
+            return lastProvider;
+        }
+
+        @Override
+        public void close(PageContentProvider provider) {
+            closeCount.incrementAndGet();
+        }
+    }
+
+    // shareContents이면 cache처럼 같은 index에 같은 PageContent를 돌려줌
+    private static class FakeProvider implements ReleasablePageContentProvider {
+        private final boolean shareContents;
+        private final Map<Integer, PageContent> contents = new HashMap<>();
+        final List<Integer> releasedIndices = Collections.synchronizedList(new ArrayList<Integer>());
+
+        FakeProvider(boolean shareContents) {
+            this.shareContents = shareContents;
+        }
+
+        @Override
+        public int getPageContentCount() {
+            return PAGES_PER_VOLUME;
+        }
+
+        @Override
+        public SizeF getPageContentSize(int index) {
+            return PAGE;
+        }
+
+        @Override
+        public synchronized PageContent getPageContent(int index) {
+            PageContent pageContent = shareContents ? contents.get(index) : null;
+            if (pageContent == null) {
+                pageContent = new FakePageContent();
+                contents.put(index, pageContent);
+            }
+            return pageContent;
+        }
+
+        @Override
+        public void releasePageContent(int index, PageContent pageContent) {
+            releasedIndices.add(index);
+        }
+    }
+
+    private static class FakePageContent implements PageContent {
+        @Override
+        public SizeF getSize() {
+            return PAGE;
+        }
+
+        @Override
+        public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                     int pageWidth, int pageHeight, boolean forHighQuality) {
+            return null;
+        }
+
+        @Override
+        public List<Link> getLinkList() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DoublePageContentProviderTest {
+    private static final SizeF PAGE = new SizeF(600, 800);
+
+    @Test
+    public void nonStreamingProviderIsFullyAvailable() {
+        DoublePageContentProvider provider = newProvider(new FakeProvider(5), false);
+        assertEquals(3, provider.getExpectedPageContentCount());
+        assertEquals(3, provider.getAvailablePageContentCount());
+        assertTrue(provider.isPageContentAvailable(2));
+    }
+
+    @Test
+    public void mapsStreamingCountsToSpreads() {
+        FakeStreamingProvider single = new FakeStreamingProvider(6, 10, 3);
+        DoublePageContentProvider provider = newProvider(single, false);
+        assertEquals(5, provider.getExpectedPageContentCount());
+        assertEquals(1, provider.getAvailablePageContentCount());
+
+        provider.setSingleOnFirstPage(true);
+        assertEquals(6, provider.getExpectedPageContentCount());
+        // 0, 1-2까지 받음
+        assertEquals(2, provider.getAvailablePageContentCount());
+    }
+
+    @Test
+    public void spreadNeedsBothHalves() {
+        FakeStreamingProvider single = new FakeStreamingProvider(6, 10, 3);
+        DoublePageContentProvider provider = newProvider(single, false);
+        assertTrue(provider.isPageContentAvailable(0));
+        // 2는 받았지만 3은 아직
+        assertFalse(provider.isPageContentAvailable(1));
+        assertFalse(provider.isPageContentAvailable(2));
+
+        single.available = 4;
+        assertTrue(provider.isPageContentAvailable(1));
+        assertTrue(PageContentAvailability.isAvailable(provider, 1));
+        assertFalse(PageContentAvailability.isAvailable(provider, 2));
+    }
+
+    @Test
+    public void emptyHalfOfFirstSpreadIsIgnored() {
+        FakeStreamingProvider single = new FakeStreamingProvider(6, 10, 1);
+        DoublePageContentProvider provider = newProvider(single, false);
+        provider.setSingleOnFirstPage(true);
+        assertTrue(provider.isPageContentAvailable(0));
+        assertFalse(provider.isPageContentAvailable(1));
+        // 역방향에서는 빈 쪽이 오른쪽으로 감
+        provider.setReverseMode(true);
+        assertTrue(provider.isPageContentAvailable(0));
+        assertFalse(provider.isPageContentAvailable(1));
+    }
+
+    @Test
+    public void lastSpreadWithoutKnownPairIsAvailable() {
+        FakeStreamingProvider single = new FakeStreamingProvider(5, 10, 5);
+        DoublePageContentProvider provider = newProvider(single, false);
+        assertEquals(3, provider.getPageContentCount());
+        assertEquals(3, provider.getAvailablePageContentCount());
+        assertTrue(provider.isPageContentAvailable(2));
+    }
+
+    private static DoublePageContentProvider newProvider(PageContentProvider single, boolean reverseMode) {
+        return new DoublePageContentProvider(single, reverseMode, false, DoublePageSizePolicy.Presets.SMALLER_FIT);
+    }
+
+    private static class FakeProvider implements PageContentProvider {
+        private final int count;
+
+        FakeProvider(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int getPageContentCount() {
+            return count;
+        }
+
+        @Override
+        public SizeF getPageContentSize(int index) {
+            return PAGE;
+        }
+
+        @Override
+        public PageContent getPageContent(int index) {
+            return new PageContent() {
+                @Override
+                public SizeF getSize() {
+                    return PAGE;
+                }
+
+                @Override
+                public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                             int pageWidth, int pageHeight, boolean forHighQuality) {
+                    return null;
+                }
+
+                @Override
+                public List<Link> getLinkList() {
+                    return Collections.emptyList();
+                }
+            };
+        }
+    }
+
+    // 앞에서부터 available개의 페이지만 받은 provider
+    private static class FakeStreamingProvider extends FakeProvider implements StreamingPageContentProvider {
+        private final int expected;
+        int available;
+
+        FakeStreamingProvider(int count, int expected, int available) {
+            super(count);
+            this.expected = expected;
+            this.available = available;
+        }
+
+        @Override
+        public int getExpectedPageContentCount() {
+            return expected;
+        }
+
+        @Override
+        public int getAvailablePageContentCount() {
+            return available;
+        }
+
+        @Override
+        public boolean isPageContentAvailable(int index) {
+            return index < available;
+        }
+    }
+}
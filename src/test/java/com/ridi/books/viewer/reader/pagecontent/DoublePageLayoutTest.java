@@ -0,0 +1,129 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DoublePageLayoutTest {
+    private static final SizeF PAGE = new SizeF(600, 800);
+    private static final SizeF SPREAD = new SizeF(1200, 800);
+
+    @Test
+    public void countsSpreads() {
+        assertEquals(2, DoublePageLayout.getPageContentCount(4, false));
+        assertEquals(3, DoublePageLayout.getPageContentCount(5, false));
+        // 첫 페이지를 혼자 두면 짝수 권은 한 장이 늘어남
+        assertEquals(3, DoublePageLayout.getPageContentCount(4, true));
+        assertEquals(3, DoublePageLayout.getPageContentCount(5, true));
+        assertEquals(0, DoublePageLayout.getPageContentCount(0, false));
+    }
+
+    @Test
+    public void mapsSinglePageToSpread() {
+        assertEquals(0, DoublePageLayout.getPageContentIndexOfSinglePage(1, false));
+        assertEquals(1, DoublePageLayout.getPageContentIndexOfSinglePage(2, false));
+        assertEquals(0, DoublePageLayout.getPageContentIndexOfSinglePage(0, true));
+        assertEquals(1, DoublePageLayout.getPageContentIndexOfSinglePage(1, true));
+        assertEquals(1, DoublePageLayout.getPageContentIndexOfSinglePage(2, true));
+    }
+
+    @Test
+    public void countsAvailableSpreads() {
+        // 3번째 페이지까지 받았으면 0-1만 합성할 수 있음
+        assertEquals(1, DoublePageLayout.getAvailablePageContentCount(3, 10, false));
+        assertEquals(2, DoublePageLayout.getAvailablePageContentCount(4, 10, false));
+        assertEquals(1, DoublePageLayout.getAvailablePageContentCount(2, 10, true));
+        assertEquals(0, DoublePageLayout.getAvailablePageContentCount(0, 10, true));
+        // 알고 있는 페이지를 다 받았으면 짝 없는 마지막 장도 불러올 수 있음
+        assertEquals(3, DoublePageLayout.getAvailablePageContentCount(5, 5, false));
+    }
+
+    @Test
+    public void mapsSpreadToSinglePages() {
+        assertEquals(2, DoublePageLayout.getLeftPageIndex(1, false, false));
+        assertEquals(3, DoublePageLayout.getRightPageIndex(1, false, false));
+        // 첫 장의 왼쪽은 비어 있음
+        assertEquals(-1, DoublePageLayout.getLeftPageIndex(0, false, true));
+        assertEquals(0, DoublePageLayout.getRightPageIndex(0, false, true));
+        // 오른쪽에서 왼쪽으로 읽을 때는 좌우가 바뀜
+        assertEquals(3, DoublePageLayout.getLeftPageIndex(1, true, false));
+        assertEquals(2, DoublePageLayout.getRightPageIndex(1, true, false));
+        assertEquals(0, DoublePageLayout.getLeftPageIndex(0, true, true));
+        assertEquals(-1, DoublePageLayout.getRightPageIndex(0, true, true));
+    }
+
+    @Test
+    public void combinesSizesWithMissingPage() {
+        DoublePageSizePolicy policy = DoublePageSizePolicy.Presets.SMALLER_FIT;
+
+        assertNull(DoublePageLayout.combineSizes(null, null, true, policy));
+        assertSame(PAGE, DoublePageLayout.combineSizes(null, PAGE, false, policy));
+        assertSame(PAGE, DoublePageLayout.combineSizes(PAGE, null, false, policy));
+
+        SizeF withDummy = DoublePageLayout.combineSizes(null, PAGE, true, policy);
+        assertEquals(1200, withDummy.width, 0);
+        assertEquals(800, withDummy.height, 0);
+    }
+
+    @Test
+    public void splitsWholeSpread() {
+        DoublePageLayout.Split split = DoublePageLayout.split(SPREAD, PAGE, PAGE, 1200, 800, 0, 0, 1200, 800);
+
+        assertTrue(split.hasLeft);
+        assertTrue(split.hasRight);
+        assertEquals(600, split.leftBitmapWidth);
+        assertEquals(800, split.leftBitmapHeight);
+        assertEquals(600, split.rightBitmapWidth);
+        assertEquals(800, split.rightBitmapHeight);
+        assertEquals(600, split.rightPageWidth);
+        assertEquals(0, split.rightStartX);
+    }
+
+    @Test
+    public void splitsRegionInsideOnePage() {
+        DoublePageLayout.Split left = DoublePageLayout.split(SPREAD, PAGE, PAGE, 500, 800, 0, 0, 1200, 800);
+        assertTrue(left.hasLeft);
+        assertFalse(left.hasRight);
+        assertEquals(500, left.leftBitmapWidth);
+
+        DoublePageLayout.Split right = DoublePageLayout.split(SPREAD, PAGE, PAGE, 400, 800, -700, 0, 1200, 800);
+        assertFalse(right.hasLeft);
+        assertTrue(right.hasRight);
+        assertEquals(0, right.leftBitmapWidth);
+        assertEquals(400, right.rightBitmapWidth);
+        // 오른쪽 페이지 안에서 100px 들어간 곳부터 그림
+        assertEquals(-100, right.rightStartX);
+    }
+
+    @Test
+    public void splitsRegionAcrossGutter() {
+        DoublePageLayout.Split split = DoublePageLayout.split(SPREAD, PAGE, PAGE, 400, 800, -400, 0, 1200, 800);
+
+        assertTrue(split.hasLeft);
+        assertTrue(split.hasRight);
+        assertEquals(200, split.leftBitmapWidth);
+        assertEquals(200, split.rightBitmapWidth);
+        assertEquals(0, split.rightStartX);
+    }
+
+    @Test
+    public void splitClipsHeightToShorterPage() {
+        SizeF shortPage = new SizeF(600, 400);
+        DoublePageLayout.Split split = DoublePageLayout.split(SPREAD, shortPage, PAGE,
+                1200, 400, 0, -300, 1200, 800);
+
+        assertTrue(split.hasLeft);
+        assertEquals(400, split.leftPageHeight);
+        assertEquals(100, split.leftBitmapHeight);
+        assertEquals(400, split.rightBitmapHeight);
+    }
+
+    @Test
+    public void rightPageOffsetIsLeftWidth() {
+        assertEquals(600, DoublePageLayout.getRightPageOffset(PAGE), 0);
+    }
+}
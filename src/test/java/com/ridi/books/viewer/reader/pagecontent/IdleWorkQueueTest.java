@@ -0,0 +1,180 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.os.SystemClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Robolectric의 looper가 idle handler를 부르는 시점은 정해져 있지 않으므로 queueIdle()을 직접 부름
+// 시간은 SystemClock.sleep()으로 흘려보내므로 가상 시계만 움직임
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class IdleWorkQueueTest {
+    private final IdleWorkQueue queue = new IdleWorkQueue();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    public void backgroundWorkRunsWhileNotPaused() {
+        ManualExecutor executor = new ManualExecutor();
+        queue.pausable(executor).execute(record("work"));
+
+        executor.runPendingWork();
+        assertEquals(Arrays.asList("work"), ran);
+    }
+
+    @Test
+    public void backgroundWorkReachedWhilePausedIsRequeuedOnResume() {
+        ManualExecutor executor = new ManualExecutor();
+        queue.pausable(executor).execute(record("work"));
+        queue.setPaused(true);
+
+        // 실행 차례가 왔지만 건너뜀
+        executor.runPendingWork();
+        assertTrue(ran.isEmpty());
+        assertFalse(executor.hasPendingWork());
+
+        queue.setPaused(false);
+        assertTrue(executor.hasPendingWork());
+        executor.runPendingWork();
+        assertEquals(Arrays.asList("work"), ran);
+    }
+
+    @Test
+    public void deferredWorkGoesBackToItsOwnExecutor() {
+        ManualExecutor io = new ManualExecutor(), render = new ManualExecutor();
+        queue.pausable(io).execute(record("io"));
+        queue.pausable(render).execute(record("render"));
+        queue.setPaused(true);
+        io.runPendingWork();
+        render.runPendingWork();
+
+        queue.setPaused(false);
+        render.runPendingWork();
+        assertEquals(Arrays.asList("render"), ran);
+        io.runPendingWork();
+        assertEquals(Arrays.asList("render", "io"), ran);
+    }
+
+    @Test
+    public void resumingTwiceDoesNotRunDeferredWorkTwice() {
+        ManualExecutor executor = new ManualExecutor();
+        queue.pausable(executor).execute(record("work"));
+        queue.setPaused(true);
+        executor.runPendingWork();
+
+        queue.setPaused(false);
+        queue.setPaused(false);
+        executor.runPendingWork();
+        assertEquals(Arrays.asList("work"), ran);
+    }
+
+    @Test
+    public void workPausedAgainBeforeItRunsIsDeferredAgain() {
+        ManualExecutor executor = new ManualExecutor();
+        queue.pausable(executor).execute(record("work"));
+        queue.setPaused(true);
+        executor.runPendingWork();
+        queue.setPaused(false);
+        queue.setPaused(true);
+
+        executor.runPendingWork();
+        assertTrue(ran.isEmpty());
+        queue.setPaused(false);
+        executor.runPendingWork();
+        assertEquals(Arrays.asList("work"), ran);
+    }
+
+    @Test
+    public void uiWorkRunsInOrderWhenIdle() {
+        queue.postWhenIdle(record("first"));
+        queue.postWhenIdle(record("second"));
+
+        // 다 했으면 idle handler를 뗌
+        assertFalse(queue.queueIdle());
+        assertEquals(Arrays.asList("first", "second"), ran);
+    }
+
+    @Test
+    public void uiWorkStopsAtIdleBudget() {
+        queue.postWhenIdle(record("first", 1));
+        queue.postWhenIdle(record("second", 5));
+        queue.postWhenIdle(record("third", 1));
+
+        // 4ms를 넘긴 뒤에는 다음에 비었을 때 이어서 함
+        assertTrue(queue.queueIdle());
+        assertEquals(Arrays.asList("first", "second"), ran);
+        assertFalse(queue.queueIdle());
+        assertEquals(Arrays.asList("first", "second", "third"), ran);
+    }
+
+    @Test
+    public void longUiWorkRunsAlone() {
+        queue.postWhenIdle(record("long", 10));
+        queue.postWhenIdle(record("next"));
+
+        assertTrue(queue.queueIdle());
+        assertEquals(Arrays.asList("long"), ran);
+    }
+
+    @Test
+    public void uiWorkWaitsWhilePaused() {
+        queue.postWhenIdle(record("work"));
+        queue.setPaused(true);
+
+        assertFalse(queue.queueIdle());
+        assertTrue(ran.isEmpty());
+
+        queue.setPaused(false);
+        assertFalse(queue.queueIdle());
+        assertEquals(Arrays.asList("work"), ran);
+    }
+
+    private Runnable record(String name) {
+        return record(name, 0);
+    }
+
+    private Runnable record(final String name, final long millis) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                SystemClock.sleep(millis);
+                ran.add(name);
+            }
+        };
+    }
+
+    private static class ManualExecutor implements Executor {
+        private final Queue<Runnable> pending = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        boolean hasPendingWork() {
+            return !pending.isEmpty();
+        }
+
+        // 실행하는 동안 새로 들어온 작업은 다음에 실행함
+        void runPendingWork() {
+            Queue<Runnable> running = new LinkedList<>(pending);
+            pending.clear();
+            for (Runnable command : running) {
+                command.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ImageRegionLayoutTest {
+    private static final SizeF IMAGE = new SizeF(1200, 1600);
+
+    @Test
+    public void wholePageMapsToWholeImage() {
+        int[] region = ImageRegionLayout.getSourceRegion(IMAGE, 600, 800, 0, 0, 600, 800);
+        assertArrayEquals(new int[] {0, 0, 1200, 1600}, region);
+        assertArrayEquals(new float[] {0, 0, 600, 800},
+                ImageRegionLayout.getDestination(IMAGE, region, 0, 0, 600, 800), 0.001f);
+    }
+
+    @Test
+    public void zoomedRegionMapsInsideImage() {
+        // 4배로 확대한 페이지의 가운데 일부
+        int[] region = ImageRegionLayout.getSourceRegion(IMAGE, 300, 400, -600, -800, 2400, 3200);
+        assertArrayEquals(new int[] {300, 400, 450, 600}, region);
+        assertArrayEquals(new float[] {0, 0, 300, 400},
+                ImageRegionLayout.getDestination(IMAGE, region, -600, -800, 2400, 3200), 0.001f);
+    }
+
+    @Test
+    public void fractionalEdgesAreRoundedOutward() {
+        SizeF image = new SizeF(1000, 1000);
+        int[] region = ImageRegionLayout.getSourceRegion(image, 100, 100, -1, -1, 300, 300);
+        assertArrayEquals(new int[] {3, 3, 337, 337}, region);
+        // 바깥쪽으로 늘린 만큼 bitmap 경계를 조금 넘어서 그림
+        float[] destination = ImageRegionLayout.getDestination(image, region, -1, -1, 300, 300);
+        assertEquals(-0.1f, destination[0], 0.001f);
+        assertEquals(100.1f, destination[2], 0.001f);
+    }
+
+    @Test
+    public void regionIsClippedToImage() {
+        int[] region = ImageRegionLayout.getSourceRegion(IMAGE, 600, 800, -300, 0, 600, 800);
+        assertArrayEquals(new int[] {600, 0, 1200, 1600}, region);
+        assertArrayEquals(new float[] {0, 0, 300, 800},
+                ImageRegionLayout.getDestination(IMAGE, region, -300, 0, 600, 800), 0.001f);
+    }
+
+    @Test
+    public void regionOutsideImageIsNull() {
+        assertNull(ImageRegionLayout.getSourceRegion(IMAGE, 100, 100, -700, 0, 600, 800));
+        assertNull(ImageRegionLayout.getSourceRegion(IMAGE, 100, 100, 0, 100, 600, 800));
+    }
+
+    @Test
+    public void sampleSizeKeepsDecodedImageAtLeastRequested() {
+        assertEquals(1, ImageRegionLayout.calculateSampleSize(1000, 1000, 1000, 1000));
+        assertEquals(1, ImageRegionLayout.calculateSampleSize(1500, 1500, 1000, 1000));
+        assertEquals(2, ImageRegionLayout.calculateSampleSize(500, 500, 1000, 1000));
+        assertEquals(4, ImageRegionLayout.calculateSampleSize(250, 250, 1000, 1000));
+        assertEquals(2, ImageRegionLayout.calculateSampleSize(251, 251, 1000, 1000));
+        // 더 크게 필요한 쪽에 맞춤
+        assertEquals(2, ImageRegionLayout.calculateSampleSize(100, 500, 1000, 1000));
+    }
+}
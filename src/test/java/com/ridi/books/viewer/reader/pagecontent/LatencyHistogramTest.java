@@ -0,0 +1,93 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+    @Test
+    public void recordsIntoBucketBelowUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(4);
+        histogram.record(2047);
+
+        assertEquals(1, histogram.getCount(0));     // < 1ms
+        assertEquals(1, histogram.getCount(1));     // < 2ms
+        assertEquals(1, histogram.getCount(2));     // < 4ms
+        assertEquals(1, histogram.getCount(3));     // < 8ms
+        assertEquals(1, histogram.getCount(11));    // < 2048ms
+        assertEquals(5, histogram.getTotalCount());
+    }
+
+    @Test
+    public void longLatenciesFallIntoLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int last = histogram.getBucketCount() - 1;
+        histogram.record(2048);
+        histogram.record(60000);
+
+        assertEquals(2, histogram.getCount(last));
+        assertEquals(Long.MAX_VALUE, histogram.getBucketUpperBoundMillis(last));
+    }
+
+    @Test
+    public void percentileReturnsUpperBoundOfBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);    // < 8ms
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100);  // < 128ms
+        }
+
+        assertEquals(8, histogram.getPercentileMillis(50));
+        assertEquals(8, histogram.getPercentileMillis(90));
+        assertEquals(128, histogram.getPercentileMillis(91));
+        assertEquals(128, histogram.getPercentileMillis(100));
+        assertEquals(8, histogram.getPercentileMillis(0));
+        // 범위 밖은 0 ~ 100으로 맞춤
+        assertEquals(128, histogram.getPercentileMillis(150));
+    }
+
+    @Test
+    public void emptyHistogramHasZeroPercentile() {
+        assertEquals(0, new LatencyHistogram().getPercentileMillis(99));
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByLaterRecords() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        LatencyHistogram snapshot = histogram.snapshot();
+        histogram.record(10);
+        histogram.reset();
+
+        assertEquals(1, snapshot.getTotalCount());
+        assertEquals(0, histogram.getTotalCount());
+    }
+
+    @Test
+    public void concurrentRecordsAreNotLost() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i % 3000);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, histogram.getTotalCount());
+    }
+}
@@ -0,0 +1,116 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+import android.net.Uri;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class LinkIndexTest {
+    private static final SizeF PAGE_SIZE = new SizeF(600, 800);
+
+    @Test
+    public void findsSameLinkAsLinearSearch() {
+        Random random = new Random(42);
+        List<Link> links = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            float left = random.nextFloat() * PAGE_SIZE.width;
+            float top = random.nextFloat() * PAGE_SIZE.height;
+            links.add(link(i, left, top, left + 5 + random.nextFloat() * 80, top + 5 + random.nextFloat() * 40));
+        }
+        PageContent pageContent = new LinkPageContent(links);
+        LinkIndex index = LinkIndex.of(pageContent);
+
+        for (int i = 0; i < 2000; i++) {
+            float x = random.nextFloat() * PAGE_SIZE.width;
+            float y = random.nextFloat() * PAGE_SIZE.height;
+            assertSame(LinkIndex.findLinear(links, x, y), index.find(x, y));
+        }
+    }
+
+    @Test
+    public void overlappingLinksResolveToFirstInList() {
+        Link first = link(0, 100, 100, 300, 300);
+        Link second = link(1, 200, 200, 400, 400);
+        LinkIndex index = LinkIndex.of(new LinkPageContent(list(first, second)));
+
+        assertSame(first, index.find(250, 250));
+        assertSame(second, index.find(350, 350));
+    }
+
+    @Test
+    public void pointsOutsideThePageFindNothing() {
+        LinkIndex index = LinkIndex.of(new LinkPageContent(list(link(0, 0, 0, 600, 800))));
+
+        assertNull(index.find(-1, 10));
+        assertNull(index.find(10, 801));
+    }
+
+    @Test
+    public void pageWithoutLinksFindsNothing() {
+        LinkIndex index = LinkIndex.of(new LinkPageContent(Collections.<Link>emptyList()));
+
+        assertNull(index.find(300, 400));
+    }
+
+    @Test
+    public void indexIsBuiltOncePerPageContent() {
+        PageContent pageContent = new LinkPageContent(list(link(0, 0, 0, 10, 10)));
+
+        assertNull(LinkIndex.peek(pageContent));
+        LinkIndex index = LinkIndex.of(pageContent);
+        assertSame(index, LinkIndex.peek(pageContent));
+        assertSame(index, LinkIndex.of(pageContent));
+        assertEquals(1, ((LinkPageContent) pageContent).linkListRequests);
+    }
+
+    private static Link link(int page, float left, float top, float right, float bottom) {
+        return new Link(LinkAction.INTERNAL_PAGE, Uri.parse("page://" + page), new RectF(left, top, right, bottom));
+    }
+
+    private static List<Link> list(Link... links) {
+        List<Link> list = new ArrayList<>();
+        Collections.addAll(list, links);
+        return list;
+    }
+
+    private static class LinkPageContent implements PageContent {
+        private final List<Link> links;
+        int linkListRequests;
+
+        LinkPageContent(List<Link> links) {
+            this.links = links;
+        }
+
+        @Override
+        public SizeF getSize() {
+            return PAGE_SIZE;
+        }
+
+        @Override
+        public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                     int pageWidth, int pageHeight, boolean forHighQuality) {
+            return null;
+        }
+
+        @Override
+        public List<Link> getLinkList() {
+            linkListRequests++;
+            return links;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PageBitmapCacheTest {
+    private static final int MAX_BYTES = 16 * 1024 * 1024;
+
+    @Test
+    public void sameSizeIsCovered() {
+        assertTrue(PageBitmapCache.covers(600, 800, 600, 800));
+    }
+
+    @Test
+    public void largerBitmapWithSameRatioIsCovered() {
+        assertTrue(PageBitmapCache.covers(600, 800, 300, 400));
+        // 짝이 바뀌어 조금 작게 그려지는 경우, 정수로 잘린 1px 차이
+        assertTrue(PageBitmapCache.covers(600, 800, 451, 601));
+    }
+
+    @Test
+    public void smallerBitmapIsNotCovered() {
+        assertFalse(PageBitmapCache.covers(150, 200, 600, 800));
+        assertFalse(PageBitmapCache.covers(600, 800, 601, 800));
+    }
+
+    @Test
+    public void differentRatioIsNotCovered() {
+        assertFalse(PageBitmapCache.covers(600, 800, 600, 400));
+        assertFalse(PageBitmapCache.covers(1200, 800, 300, 400));
+    }
+
+    @Test
+    public void invalidatedPageIsNotReturned() {
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        Bitmap bitmap = createBitmap();
+        cache.put(3, bitmap, cache.getGeneration());
+        cache.put(4, createBitmap(), cache.getGeneration());
+
+        cache.invalidate(3);
+
+        assertNull(cache.get(3, 60, 80));
+        assertNotNull(cache.get(4, 60, 80));
+    }
+
+    @Test
+    public void renderStartedBeforeInvalidateIsNotCached() {
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        int generation = cache.getGeneration();
+        // 이전 내용을 그리는 동안 내용이 바뀜
+        cache.invalidate(3);
+        cache.put(3, createBitmap(), generation);
+
+        assertNull(cache.get(3, 60, 80));
+    }
+
+    @Test
+    public void insertMovesBitmapsWithTheirPages() {
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        Bitmap second = createBitmap();
+        Bitmap third = createBitmap();
+        cache.put(1, second, cache.getGeneration());
+        cache.put(2, third, cache.getGeneration());
+
+        // 2 앞에 두 페이지가 들어옴
+        cache.shiftIndices(2, 2);
+
+        assertSame(second, cache.get(1, 60, 80));
+        assertNull(cache.get(2, 60, 80));
+        assertNull(cache.get(3, 60, 80));
+        assertSame(third, cache.get(4, 60, 80));
+    }
+
+    @Test
+    public void removeDropsRemovedPagesAndMovesTheRest() {
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        Bitmap first = createBitmap();
+        Bitmap fourth = createBitmap();
+        cache.put(0, first, cache.getGeneration());
+        cache.put(1, createBitmap(), cache.getGeneration());
+        cache.put(2, createBitmap(), cache.getGeneration());
+        cache.put(3, fourth, cache.getGeneration());
+
+        // 1, 2를 지움
+        cache.shiftIndices(3, -2);
+
+        assertSame(first, cache.get(0, 60, 80));
+        assertSame(fourth, cache.get(1, 60, 80));
+        assertNull(cache.get(2, 60, 80));
+        assertNull(cache.get(3, 60, 80));
+    }
+
+    @Test
+    public void renderStartedBeforeShiftIsNotCached() {
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        int generation = cache.getGeneration();
+        cache.shiftIndices(0, 1);
+        // 예전 0번을 그린 결과가 지금의 0번 자리에 들어가면 안 됨
+        cache.put(0, createBitmap(), generation);
+
+        assertNull(cache.get(0, 60, 80));
+    }
+
+    private static Bitmap createBitmap() {
+        return Bitmap.createBitmap(60, 80, Bitmap.Config.ARGB_8888);
+    }
+}
@@ -0,0 +1,274 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// PageContentViewAdapter.notifyPageContent*() 이후 현재 페이지, 페이지 view의 index, cache가 맞는지 확인함
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PageContentNotificationTest {
+    private static final int MAX_BYTES = 64 * 1024 * 1024;
+
+    @Test
+    public void insertBeforeCurrentPageKeepsShowingIt() {
+        EditablePageContentProvider provider = new EditablePageContentProvider(10);
+        ReaderViewHarness harness = new ReaderViewHarness(provider, false);
+        harness.view.setCurrentIndex(3);
+        harness.settle();
+        int shownId = provider.getId(3);
+        provider.loadedIds.clear();
+        harness.listener.calls.clear();
+
+        provider.insert(0, 2);
+        harness.adapter.notifyPageContentRangeInserted(0, 2);
+        harness.settle();
+
+        assertEquals(5, harness.view.getCurrentIndex());
+        assertTrue(harness.listener.calls.contains("onCurrentIndexChanged"));
+        assertTrue(getChildIndices(harness).contains(5));
+        // 옮겨진 view는 불러온 내용을 그대로 씀
+        assertFalse(provider.loadedIds.contains(shownId));
+    }
+
+    @Test
+    public void insertRekeysEveryPageView() {
+        EditablePageContentProvider provider = new EditablePageContentProvider(10);
+        ReaderViewHarness harness = new ReaderViewHarness(provider, false);
+        harness.view.setCurrentIndex(4);
+        harness.settle();
+        Set<Integer> before = getChildIndices(harness);
+
+        provider.insert(4, 3);
+        harness.adapter.notifyPageContentRangeInserted(4, 3);
+
+        // 다시 배치하기 전에도 겹치는 index 없이 옮겨져 있어야 함
+        Set<Integer> expected = new HashSet<>();
+        for (int index : before) {
+            expected.add(index >= 4 ? index + 3 : index);
+        }
+        assertEquals(expected, getChildIndices(harness));
+        assertEquals(7, harness.view.getCurrentIndex());
+    }
+
+    @Test
+    public void removeBeforeCurrentPageKeepsShowingIt() {
+        EditablePageContentProvider provider = new EditablePageContentProvider(10);
+        ReaderViewHarness harness = new ReaderViewHarness(provider, false);
+        harness.view.setCurrentIndex(5);
+        harness.settle();
+        int shownId = provider.getId(5);
+        provider.loadedIds.clear();
+
+        provider.remove(0, 2);
+        harness.adapter.notifyPageContentRangeRemoved(0, 2);
+        harness.settle();
+
+        assertEquals(3, harness.view.getCurrentIndex());
+        assertTrue(getChildIndices(harness).contains(3));
+        assertFalse(provider.loadedIds.contains(shownId));
+    }
+
+    @Test
+    public void removingCurrentPageClampsToRemainingPages() {
+        EditablePageContentProvider provider = new EditablePageContentProvider(10);
+        ReaderViewHarness harness = new ReaderViewHarness(provider, false);
+        harness.view.setCurrentIndex(8);
+        harness.settle();
+        harness.listener.calls.clear();
+
+        provider.remove(6, 4);
+        harness.adapter.notifyPageContentRangeRemoved(6, 4);
+        harness.settle();
+
+        assertEquals(5, harness.view.getCurrentIndex());
+        assertTrue(harness.listener.calls.contains("onCurrentIndexChanged"));
+        for (int index : getChildIndices(harness)) {
+            assertTrue(index < 6);
+        }
+    }
+
+    @Test
+    public void changedSpreadIsNotCompositedFromStaleBitmaps() {
+        EditablePageContentProvider provider = new EditablePageContentProvider(8);
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        ReaderViewHarness harness = startDoublePage(provider, cache, 1);
+        assertNotNull(cache.get(2, 1, 1));
+
+        provider.replace(2);
+        harness.adapter.notifyPageContentChanged(1);
+        harness.settle();
+
+        assertTrue(provider.renderedIds.contains(provider.getId(2)));
+        assertCacheMatches(provider, cache);
+    }
+
+    @Test
+    public void insertedSpreadShiftsBitmapCache() {
+        EditablePageContentProvider provider = new EditablePageContentProvider(8);
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        ReaderViewHarness harness = startDoublePage(provider, cache, 1);
+        int shownLeftId = provider.getId(2), shownRightId = provider.getId(3);
+        provider.renderedIds.clear();
+
+        provider.insert(0, 2);
+        harness.adapter.notifyPageContentRangeInserted(0, 1);
+        harness.settle();
+
+        assertEquals(2, harness.view.getCurrentIndex());
+        assertEquals(shownLeftId, provider.getRenderedId(cache.get(4, 1, 1)));
+        // 옮겨진 single page는 다시 그리지 않고 cache에서 합성함
+        assertFalse(provider.renderedIds.contains(shownLeftId));
+        assertFalse(provider.renderedIds.contains(shownRightId));
+        assertCacheMatches(provider, cache);
+    }
+
+    @Test
+    public void removedSpreadShiftsBitmapCache() {
+        EditablePageContentProvider provider = new EditablePageContentProvider(8);
+        PageBitmapCache cache = new PageBitmapCache(MAX_BYTES);
+        ReaderViewHarness harness = startDoublePage(provider, cache, 1);
+        int shownLeftId = provider.getId(2);
+
+        provider.remove(0, 2);
+        harness.adapter.notifyPageContentRangeRemoved(0, 1);
+        harness.settle();
+
+        assertEquals(0, harness.view.getCurrentIndex());
+        assertEquals(shownLeftId, provider.getRenderedId(cache.get(0, 1, 1)));
+        assertCacheMatches(provider, cache);
+    }
+
+    private static ReaderViewHarness startDoublePage(EditablePageContentProvider provider, PageBitmapCache cache,
+                                                     int currentIndex) {
+        DoublePageContentProvider doubleProvider = new DoublePageContentProvider(provider, false, false,
+                DoublePageSizePolicy.Presets.SMALLER_FIT);
+        doubleProvider.setPageBitmapCache(cache);
+        ReaderViewHarness harness = new ReaderViewHarness(doubleProvider, false);
+        harness.view.setCurrentIndex(currentIndex);
+        harness.settle();
+        return harness;
+    }
+
+    private static Set<Integer> getChildIndices(ReaderViewHarness harness) {
+        Set<Integer> indices = new HashSet<>();
+        for (int i = 0; i < harness.view.getChildCount(); i++) {
+            View child = harness.view.getChildAt(i);
+            if (child instanceof PageContentView) {
+                assertTrue(indices.add(((PageContentView) child).getIndex()));
+            }
+        }
+        return indices;
+    }
+
+    // cache에 남아 있는 bitmap은 모두 지금 그 index에 있는 페이지를 그린 것이어야 함
+    // 페이지가 모두 정사각형이므로 1x1로 물으면 크기와 관계없이 찾음
+    private static void assertCacheMatches(EditablePageContentProvider provider, PageBitmapCache cache) {
+        for (int i = 0; i < provider.getPageContentCount(); i++) {
+            Bitmap bitmap = cache.get(i, 1, 1);
+            if (bitmap != null) {
+                assertEquals("single page " + i, provider.getId(i), provider.getRenderedId(bitmap));
+            }
+        }
+    }
+
+    // 페이지마다 고유 id를 붙여 추가, 삭제, 교체할 수 있는 provider
+    // 어떤 페이지를 불러오고 그렸는지, 어떤 bitmap이 어떤 페이지를 그린 것인지 남김
+    private static class EditablePageContentProvider implements PageContentProvider {
+        private static final SizeF SIZE = new SizeF(600, 600);
+
+        private final List<Integer> ids = new ArrayList<>();
+        private final Map<Bitmap, Integer> bitmapIds = Collections.synchronizedMap(new IdentityHashMap<Bitmap, Integer>());
+        final List<Integer> loadedIds = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Integer> renderedIds = Collections.synchronizedList(new ArrayList<Integer>());
+        private int nextId;
+
+        EditablePageContentProvider(int count) {
+            insert(0, count);
+        }
+
+        synchronized void insert(int start, int count) {
+            for (int i = 0; i < count; i++) {
+                ids.add(start + i, nextId++);
+            }
+        }
+
+        synchronized void remove(int start, int count) {
+            ids.subList(start, start + count).clear();
+        }
+
+        synchronized void replace(int index) {
+            ids.set(index, nextId++);
+        }
+
+        synchronized int getId(int index) {
+            return ids.get(index);
+        }
+
+        int getRenderedId(Bitmap bitmap) {
+            assertNotNull(bitmap);
+            return bitmapIds.get(bitmap);
+        }
+
+        @Override
+        public synchronized int getPageContentCount() {
+            return ids.size();
+        }
+
+        @Override
+        public SizeF getPageContentSize(int index) {
+            return SIZE;
+        }
+
+        @Override
+        public PageContent getPageContent(int index) {
+            int id = getId(index);
+            loadedIds.add(id);
+            return new EditablePageContent(id);
+        }
+
+        private class EditablePageContent implements PageContent {
+            private final int id;
+
+            EditablePageContent(int id) {
+                this.id = id;
+            }
+
+            @Override
+            public SizeF getSize() {
+                return SIZE;
+            }
+
+            @Override
+            public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                         int pageWidth, int pageHeight, boolean forHighQuality) {
+                renderedIds.add(id);
+                Bitmap bitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+                bitmapIds.put(bitmap, id);
+                return bitmap;
+            }
+
+            @Override
+            public List<Link> getLinkList() {
+                return Collections.emptyList();
+            }
+        }
+    }
+}
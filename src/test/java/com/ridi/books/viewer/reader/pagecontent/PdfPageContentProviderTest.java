@@ -0,0 +1,218 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PdfPageContentProviderTest {
+    private static final SizeF PAGE_SIZE = new SizeF(600, 800);
+    private static final int BLOCKING_INDEX = 1;
+
+    private FakeRenderer renderer;
+    private PdfPageContentProvider provider;
+
+    @Before
+    public void setUp() throws IOException {
+        renderer = new FakeRenderer(4);
+        provider = new PdfPageContentProvider(renderer);
+    }
+
+    @After
+    public void tearDown() {
+        renderer.gate.countDown();
+        provider.close();
+    }
+
+    @Test
+    public void pageSizesAreReadOnceAtOpen() {
+        assertEquals(4, provider.getPageContentCount());
+        assertEquals(4, renderer.sizeLookups);
+        assertSame(PAGE_SIZE, provider.getPageContentSize(2));
+        assertNull(provider.getPageContentSize(4));
+
+        renderer.gate.countDown();
+        render(0, 100, 100, 0, 0, 300, 400);
+        assertEquals(4, renderer.sizeLookups);
+    }
+
+    @Test
+    public void regionArgumentsMapToTransform() {
+        renderer.gate.countDown();
+        Bitmap bitmap = render(0, 100, 100, -50, -20, 300, 400);
+
+        assertNotNull(bitmap);
+        assertEquals(100, bitmap.getWidth());
+        assertEquals(100, bitmap.getHeight());
+        // page 좌상단과 우하단이 bitmap 좌표로 옮겨짐
+        assertArrayEquals(new float[] { -50, -20, 250, 380 }, renderer.lastMappedCorners, 0.001f);
+    }
+
+    @Test
+    public void identicalRequestsRenderOnce() throws InterruptedException {
+        Thread blocker = renderInBackground(BLOCKING_INDEX, new Bitmap[1]);
+        assertTrue(renderer.blockingStarted.await(5, TimeUnit.SECONDS));
+
+        Bitmap[] first = new Bitmap[1];
+        Bitmap[] second = new Bitmap[1];
+        Thread firstThread = renderInBackground(0, first);
+        Thread secondThread = renderInBackground(0, second);
+        awaitWaiting(firstThread);
+        awaitWaiting(secondThread);
+
+        renderer.gate.countDown();
+        blocker.join(5000);
+        firstThread.join(5000);
+        secondThread.join(5000);
+
+        assertEquals(1, renderer.renderCount(0));
+        assertNotNull(first[0]);
+        assertNotNull(second[0]);
+        assertNotSame(first[0], second[0]);
+    }
+
+    @Test
+    public void requestInterruptedBeforeStartIsDropped() throws InterruptedException {
+        Thread blocker = renderInBackground(BLOCKING_INDEX, new Bitmap[1]);
+        assertTrue(renderer.blockingStarted.await(5, TimeUnit.SECONDS));
+
+        Bitmap[] cancelled = new Bitmap[1];
+        Thread cancelledThread = renderInBackground(2, cancelled);
+        awaitWaiting(cancelledThread);
+        cancelledThread.interrupt();
+        cancelledThread.join(5000);
+
+        renderer.gate.countDown();
+        blocker.join(5000);
+        // 뒤에 들어온 요청이 끝났다면 취소된 요청은 이미 지나간 것
+        assertNotNull(render(3, 100, 100, 0, 0, 300, 400));
+
+        assertNull(cancelled[0]);
+        assertEquals(0, renderer.renderCount(2));
+    }
+
+    @Test
+    public void renderAfterCloseReturnsNullAndClosesRenderer() throws InterruptedException {
+        renderer.gate.countDown();
+        provider.close();
+
+        assertNull(render(0, 100, 100, 0, 0, 300, 400));
+        assertTrue(renderer.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void invalidRegionIsNotRequested() {
+        renderer.gate.countDown();
+
+        assertNull(render(0, 0, 100, 0, 0, 300, 400));
+        assertNull(render(0, 100, 100, 0, 0, 0, 400));
+        assertEquals(0, renderer.renderCount(0));
+    }
+
+    private Bitmap render(int index, int bitmapWidth, int bitmapHeight, int startX, int startY,
+                          int pageWidth, int pageHeight) {
+        return provider.getPageContent(index).renderToBitmap(bitmapWidth, bitmapHeight, startX, startY,
+                pageWidth, pageHeight, false);
+    }
+
+    private Thread renderInBackground(final int index, final Bitmap[] result) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = render(index, 100, 100, 0, 0, 300, 400);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    // BLOCKING_INDEX를 그릴 때 gate가 열릴 때까지 렌더링 스레드를 붙잡아 둠
+    private static class FakeRenderer implements PdfPageRenderer {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch blockingStarted = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        private final int pageCount;
+        private final List<Integer> renderedIndices = new ArrayList<>();
+        volatile int sizeLookups;
+        volatile float[] lastMappedCorners;
+
+        FakeRenderer(int pageCount) {
+            this.pageCount = pageCount;
+        }
+
+        @Override
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        @Override
+        public SizeF getPageSize(int index) {
+            sizeLookups++;
+            return PAGE_SIZE;
+        }
+
+        @Override
+        public void render(int index, Bitmap bitmap, Matrix transform) {
+            if (index == BLOCKING_INDEX) {
+                blockingStarted.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            float[] corners = { 0, 0, PAGE_SIZE.width, PAGE_SIZE.height };
+            transform.mapPoints(corners);
+            lastMappedCorners = corners;
+            synchronized (renderedIndices) {
+                renderedIndices.add(index);
+            }
+        }
+
+        int renderCount(int index) {
+            int count = 0;
+            synchronized (renderedIndices) {
+                for (int rendered : renderedIndices) {
+                    if (rendered == index) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.SystemClock;
+import android.view.InputDevice;
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Robolectric 위에서 PageContentReaderView를 띄우고 정해진 제스처를 넣는 test helper
+// RenderScheduler의 I/O, 렌더링 pool은 스레드 없이 작업을 쌓아두었다가 frame마다 테스트 스레드에서
+// 우선순위 순서대로 실행하고, UI 스레드 작업은 가상 시계를 따라 실행되므로 같은 스크립트는 항상 같은 지표를 냄
+class ReaderViewHarness {
+    static final long FRAME_MILLIS = 16;
+    private static final long SETTLE_MILLIS = 2000;
+    private static final int GESTURE_STEPS = 6;
+
+    final Activity activity;
+    final PageContentReaderView view;
+    final RecordingListener listener = new RecordingListener();
+    final PageContentViewAdapter adapter;
+    private final ManualExecutor ioExecutor = new ManualExecutor();
+    private final ManualExecutor renderExecutor = new ManualExecutor();
+    private Canvas canvas;
+
+    ReaderViewHarness(PageContentProvider provider, boolean scrollMode) {
+        activity = Robolectric.setupActivity(Activity.class);
+        view = new PageContentReaderView(activity, null);
+        view.setListener(listener);
+        view.setDoubleTapScalingEnabled(true);
+        view.setViewMode(scrollMode, false, false);
+        adapter = new Adapter(activity, provider, new RenderScheduler(ioExecutor, renderExecutor));
+        view.setAdapter(adapter);
+        activity.setContentView(view);
+        frame();
+    }
+
+    // 한 frame만큼 시간을 보내고 그 사이에 끝난 작업을 반영한 뒤 화면을 그림
+    void frame() {
+        runBackgroundWork();
+        ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        if (view.getWidth() > 0 && view.getHeight() > 0) {
+            if (canvas == null) {
+                canvas = new Canvas(Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888));
+            }
+            view.draw(canvas);
+        }
+    }
+
+    void frames(long millis) {
+        for (long elapsed = 0; elapsed < millis; elapsed += FRAME_MILLIS) {
+            frame();
+        }
+    }
+
+    // 애니메이션과 렌더링이 모두 끝날 때까지 기다림
+    // frame()은 백그라운드 작업을 모두 실행한 뒤 그 결과를 UI 스레드에 반영하므로,
+    // frame이 끝났을 때 두 pool이 모두 비어 있으면 더 할 일이 없음
+    void settle() {
+        frames(SETTLE_MILLIS);
+        while (ioExecutor.hasPendingWork() || renderExecutor.hasPendingWork()) {
+            frame();
+        }
+    }
+
+    // I/O 작업이 렌더링 작업을 만들고 그 반대도 있으므로 둘 다 빌 때까지 번갈아 실행함
+    private void runBackgroundWork() {
+        boolean ran;
+        do {
+            ran = ioExecutor.runPendingWork() | renderExecutor.runPendingWork();
+        } while (ran);
+    }
+
+    // 한 손가락으로 durationMillis 동안 끌었다가 떼기, 충분히 빠르면 fling이 됨
+    void swipe(float fromX, float fromY, float toX, float toY, long durationMillis) {
+        long downTime = SystemClock.uptimeMillis();
+        dispatch(downTime, MotionEvent.ACTION_DOWN, fromX, fromY);
+        for (int i = 1; i <= GESTURE_STEPS; i++) {
+            advance(durationMillis / GESTURE_STEPS);
+            float fraction = (float) i / GESTURE_STEPS;
+            dispatch(downTime, MotionEvent.ACTION_MOVE,
+                    fromX + (toX - fromX) * fraction, fromY + (toY - fromY) * fraction);
+        }
+        dispatch(downTime, MotionEvent.ACTION_UP, toX, toY);
+    }
+
+    // 다음 페이지로 넘기는 fling, 스크롤 모드에서는 아래로 넘김
+    void flingForward() {
+        int width = view.getWidth(), height = view.getHeight();
+        if (view.isScrollMode()) {
+            swipe(width / 2f, height * 0.8f, width / 2f, height * 0.2f, 100);
+        } else {
+            swipe(width * 0.8f, height / 2f, width * 0.2f, height / 2f, 100);
+        }
+    }
+
+    void flingBackward() {
+        int width = view.getWidth(), height = view.getHeight();
+        if (view.isScrollMode()) {
+            swipe(width / 2f, height * 0.2f, width / 2f, height * 0.8f, 100);
+        } else {
+            swipe(width * 0.2f, height / 2f, width * 0.8f, height / 2f, 100);
+        }
+    }
+
+    // (focusX, focusY)를 가운데에 두고 두 손가락 사이를 fromSpan에서 toSpan으로 벌리거나 좁힘
+    void pinch(float focusX, float focusY, float fromSpan, float toSpan, long durationMillis) {
+        long downTime = SystemClock.uptimeMillis();
+        dispatchPair(downTime, MotionEvent.ACTION_DOWN, focusX, focusY, fromSpan, 1);
+        dispatchPair(downTime, MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT),
+                focusX, focusY, fromSpan, 2);
+        for (int i = 1; i <= GESTURE_STEPS; i++) {
+            advance(durationMillis / GESTURE_STEPS);
+            float span = fromSpan + (toSpan - fromSpan) * i / GESTURE_STEPS;
+            dispatchPair(downTime, MotionEvent.ACTION_MOVE, focusX, focusY, span, 2);
+        }
+        dispatchPair(downTime, MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT),
+                focusX, focusY, toSpan, 2);
+        dispatchPair(downTime, MotionEvent.ACTION_UP, focusX, focusY, toSpan, 1);
+    }
+
+    void doubleTap(float x, float y) {
+        long downTime = SystemClock.uptimeMillis();
+        dispatch(downTime, MotionEvent.ACTION_DOWN, x, y);
+        advance(50);
+        dispatch(downTime, MotionEvent.ACTION_UP, x, y);
+        advance(100);
+        downTime = SystemClock.uptimeMillis();
+        dispatch(downTime, MotionEvent.ACTION_DOWN, x, y);
+        advance(50);
+        dispatch(downTime, MotionEvent.ACTION_UP, x, y);
+    }
+
+    // 제스처 도중에는 frame 단위보다 짧게 움직일 수 있음
+    private void advance(long millis) {
+        runBackgroundWork();
+        ShadowLooper.idleMainLooper(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void dispatch(long downTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        event.setSource(InputDevice.SOURCE_TOUCHSCREEN);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    private void dispatchPair(long downTime, int action, float focusX, float focusY, float span, int pointerCount) {
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointerCount];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+        for (int i = 0; i < pointerCount; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = i;
+            properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = focusX + (i == 0 ? -span : span) / 2;
+            coords[i].y = focusY;
+            coords[i].pressure = 1.0f;
+            coords[i].size = 1.0f;
+        }
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action,
+                pointerCount, properties, coords, 0, 0, 1.0f, 1.0f, 0, 0,
+                InputDevice.SOURCE_TOUCHSCREEN, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    // 스레드를 만들지 않고 queue에 쌓아두기만 하는 pool, runPendingWork()를 부른 스레드에서 실행됨
+    // RenderScheduler가 스레드 수를 바꿔도 queue에 있는 작업을 가져갈 스레드가 생기지 않도록 무시함
+    static class ManualExecutor extends ThreadPoolExecutor {
+        ManualExecutor() {
+            super(1, 1, 0, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>());
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            getQueue().add(command);
+        }
+
+        @Override
+        public void setCorePoolSize(int corePoolSize) {
+        }
+
+        @Override
+        public void setMaximumPoolSize(int maximumPoolSize) {
+        }
+
+        boolean hasPendingWork() {
+            return !getQueue().isEmpty();
+        }
+
+        // 실행하는 동안 새로 들어온 작업도 우선순위에 따라 이어서 실행함
+        boolean runPendingWork() {
+            boolean ran = false;
+            Runnable command;
+            while ((command = getQueue().poll()) != null) {
+                command.run();
+                ran = true;
+            }
+            return ran;
+        }
+    }
+
+    static class Adapter extends PageContentViewAdapter {
+        private final PageContentProvider provider;
+
+        Adapter(Context context, PageContentProvider provider, RenderScheduler renderScheduler) {
+            super(context, renderScheduler);
+            this.provider = provider;
+        }
+
+        @Override
+        protected PageContentProvider getPageContentProvider() {
+            return provider;
+        }
+
+        @Override
+        protected int getPaperColor() {
+            return Color.WHITE;
+        }
+
+        @Override
+        protected FitPolicy getFitPolicy() {
+            return FitPolicy.Presets.PAGE;
+        }
+
+        @Override
+        protected BackgroundTaskListener getBackgroundTaskListener() {
+            return null;
+        }
+
+        @Override
+        protected BitmapPostProcessor getBitmapPostProcessor() {
+            return null;
+        }
+    }
+
+    // 불린 순서대로 callback을 남김
+    static class RecordingListener implements PageContentReaderView.Listener {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void onViewModeChanged() {
+            calls.add("onViewModeChanged");
+        }
+
+        @Override
+        public boolean onSingleTapUp(MotionEvent e) {
+            calls.add("onSingleTapUp");
+            return false;
+        }
+
+        @Override
+        public boolean onScrollWithoutScaling(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+            return false;
+        }
+
+        @Override
+        public void onScrollChanged() {
+        }
+
+        @Override
+        public void onCurrentIndexChanged() {
+            calls.add("onCurrentIndexChanged");
+        }
+
+        @Override
+        public void onTryOverFirstPage() {
+            calls.add("onTryOverFirstPage");
+        }
+
+        @Override
+        public void onTryOverLastPage() {
+            calls.add("onTryOverLastPage");
+        }
+
+        @Override
+        public void onTouchUp() {
+            calls.add("onTouchUp");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// 같은 크기의 view에서 기록한 세션을 재생하면 listener가 같은 순서로 불리고 같은 상태로 끝나야 함
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ReadingSessionRoundTripTest {
+    private static final SizeF[] SIZE_CHOICES = { new SizeF(600, 800), new SizeF(1200, 800) };
+    private static final long REPLAY_TIMEOUT_MILLIS = 60 * 1000;
+
+    @Test
+    public void replayReproducesRecordedCalls() throws IOException, InterruptedException {
+        ReaderViewHarness recording = new ReaderViewHarness(provider(), false);
+        recording.settle();
+        recording.listener.calls.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReadingSessionRecorder recorder = recording.view.startSessionRecording(out);
+        play(recording);
+        recording.view.stopSessionRecording();
+        assertTrue(recorder.awaitWritten(5000));
+        assertNull(recorder.getError());
+        List<String> recordedCalls = new ArrayList<>(recording.listener.calls);
+
+        ReadingSessionReplayer replayer = new ReadingSessionReplayer(new ByteArrayInputStream(out.toByteArray()));
+        ReaderViewHarness replaying = new ReaderViewHarness(provider(), false);
+        replaying.settle();
+        replaying.listener.calls.clear();
+        assertEquals(recording.view.getWidth(), replayer.getRecordedWidth());
+        assertEquals(recording.view.getHeight(), replayer.getRecordedHeight());
+
+        final boolean[] finished = new boolean[1];
+        replayer.start(replaying.view, new ReadingSessionReplayer.Listener() {
+            @Override
+            public void onReplayFinished() {
+                finished[0] = true;
+            }
+        });
+        for (long elapsed = 0; !finished[0] && elapsed < REPLAY_TIMEOUT_MILLIS;
+             elapsed += ReaderViewHarness.FRAME_MILLIS) {
+            replaying.frame();
+        }
+        replaying.settle();
+
+        assertTrue(finished[0]);
+        assertFalse(recordedCalls.isEmpty());
+        assertEquals(recordedCalls, replaying.listener.calls);
+        assertEquals(recording.view.getCurrentIndex(), replaying.view.getCurrentIndex());
+        assertEquals(recording.view.getScale(), replaying.view.getScale(), 0.001f);
+        assertEquals(recording.view.isScrollMode(), replaying.view.isScrollMode());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedRecordingIsRejected() throws IOException, InterruptedException {
+        ReaderViewHarness recording = new ReaderViewHarness(provider(), false);
+        recording.settle();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReadingSessionRecorder recorder = recording.view.startSessionRecording(out);
+        recording.flingForward();
+        recording.settle();
+        recording.view.stopSessionRecording();
+        assertTrue(recorder.awaitWritten(5000));
+
+        byte[] bytes = out.toByteArray();
+        byte[] truncated = new byte[bytes.length - 5];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        new ReadingSessionReplayer(new ByteArrayInputStream(truncated));
+    }
+
+    // 터치로 하는 조작과 API로 하는 조작을 섞음
+    private static void play(ReaderViewHarness harness) {
+        for (int i = 0; i < 3; i++) {
+            harness.flingForward();
+            harness.frames(300);
+        }
+        float x = harness.view.getWidth() / 2f, y = harness.view.getHeight() / 2f;
+        harness.doubleTap(x, y);
+        harness.frames(500);
+        harness.doubleTap(x, y);
+        harness.frames(500);
+        harness.view.setCurrentIndex(10);
+        harness.frames(300);
+        harness.flingBackward();
+        harness.frames(300);
+        harness.view.setViewMode(true, false, false);
+        harness.frames(300);
+        harness.flingForward();
+        harness.settle();
+    }
+
+    private static SyntheticPageContentProvider provider() {
+        return new SyntheticPageContentProvider(40, SIZE_CHOICES, 3, 10, 20);
+    }
+}
@@ -0,0 +1,374 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RenderRequestRegistryTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final PageContentProvider PROVIDER = new FakeProvider();
+
+    private final ManualExecutor releaseExecutor = new ManualExecutor();
+    private final RenderMetricsRecorder metrics = new RenderMetricsRecorder();
+    private final RenderRequestRegistry registry = new RenderRequestRegistry(releaseExecutor, metrics);
+
+    @Test
+    public void inFlightRenderIsSharedWithCopiesForExtraWaiters() throws InterruptedException {
+        BlockingWork owner = new BlockingWork();
+        RenderThread ownerThread = startRender(key(1), owner);
+        owner.awaitStarted();
+
+        CountingWork secondWork = new CountingWork(), thirdWork = new CountingWork();
+        RenderThread second = startRender(key(1), secondWork);
+        RenderThread third = startRender(key(1), thirdWork);
+        awaitCoalescedRenders(2);
+        owner.finish();
+        join(ownerThread, second, third);
+
+        assertEquals(1, owner.renderCount.get());
+        assertEquals(0, secondWork.renderCount.get());
+        assertEquals(0, thirdWork.renderCount.get());
+
+        // 마지막으로 받아간 쪽만 원본을 가지고, 나머지는 각자 복사본을 가짐
+        Bitmap[] results = {ownerThread.result, second.result, third.result};
+        int originals = 0;
+        for (Bitmap result : results) {
+            assertNotNull(result);
+            assertEquals(owner.bitmap.getWidth(), result.getWidth());
+            if (result == owner.bitmap) {
+                originals++;
+            }
+        }
+        assertEquals(1, originals);
+        assertNotSame(results[0], results[1]);
+        assertNotSame(results[1], results[2]);
+        assertNotSame(results[0], results[2]);
+    }
+
+    @Test
+    public void differentRequestsAreNotShared() {
+        CountingWork first = new CountingWork(), second = new CountingWork();
+        assertSame(first.bitmap, registry.render(key(1), first));
+        assertSame(second.bitmap, registry.render(key(2), second));
+        assertEquals(0, getCoalescedRenderCount());
+    }
+
+    @Test
+    public void resultOfCancelledRenderIsAdoptedOnce() {
+        CountingWork cancelled = new CountingWork();
+        cancelled.cancelled = true;
+        assertNull(registry.render(key(1), cancelled));
+
+        CountingWork adopting = new CountingWork();
+        assertSame(cancelled.bitmap, registry.render(key(1), adopting));
+        assertEquals(0, adopting.renderCount.get());
+        assertEquals(1, getCoalescedRenderCount());
+
+        CountingWork next = new CountingWork();
+        assertSame(next.bitmap, registry.render(key(1), next));
+        assertEquals(1, next.renderCount.get());
+    }
+
+    @Test
+    public void interruptedWaiterLeavesResultToOwner() throws InterruptedException {
+        BlockingWork owner = new BlockingWork();
+        RenderThread ownerThread = startRender(key(1), owner);
+        owner.awaitStarted();
+
+        RenderThread waiter = startRender(key(1), new CountingWork());
+        awaitCoalescedRenders(1);
+        // view가 작업을 cancel(true)한 경우
+        waiter.interrupt();
+        join(waiter);
+        assertNull(waiter.result);
+
+        owner.finish();
+        join(ownerThread);
+        assertSame(owner.bitmap, ownerThread.result);
+    }
+
+    @Test
+    public void invalidateDuringRenderStartsNewRender() throws InterruptedException {
+        BlockingWork owner = new BlockingWork();
+        RenderThread ownerThread = startRender(key(1), owner);
+        owner.awaitStarted();
+
+        registry.invalidate(1);
+        CountingWork fresh = new CountingWork();
+        assertSame(fresh.bitmap, registry.render(key(1), fresh));
+        assertEquals(1, fresh.renderCount.get());
+
+        // 진행 중이던 작업은 그대로 끝남
+        owner.finish();
+        join(ownerThread);
+        assertSame(owner.bitmap, ownerThread.result);
+    }
+
+    @Test
+    public void renderFinishedAfterClearDoesNotDropNewRender() throws InterruptedException {
+        BlockingWork oldOwner = new BlockingWork();
+        RenderThread oldThread = startRender(key(1), oldOwner);
+        oldOwner.awaitStarted();
+
+        registry.clear();
+        BlockingWork newOwner = new BlockingWork();
+        RenderThread newThread = startRender(key(1), newOwner);
+        newOwner.awaitStarted();
+        oldOwner.finish();
+        join(oldThread);
+
+        // 같은 key의 새 작업이 남아 있으므로 거기에 합류함
+        CountingWork joining = new CountingWork();
+        RenderThread joiningThread = startRender(key(1), joining);
+        awaitCoalescedRenders(1);
+        newOwner.finish();
+        join(newThread, joiningThread);
+
+        assertEquals(0, joining.renderCount.get());
+        assertNotNull(joiningThread.result);
+        assertSame(oldOwner.bitmap, oldThread.result);
+    }
+
+    @Test
+    public void invalidateDropsOnlyThatPagesOrphans() {
+        CountingWork first = new CountingWork(), second = new CountingWork();
+        first.cancelled = true;
+        second.cancelled = true;
+        registry.render(key(1), first);
+        registry.render(key(2), second);
+
+        registry.invalidate(1);
+
+        CountingWork afterInvalidate = new CountingWork();
+        assertSame(afterInvalidate.bitmap, registry.render(key(1), afterInvalidate));
+        assertEquals(1, afterInvalidate.renderCount.get());
+        assertSame(second.bitmap, registry.render(key(2), new CountingWork()));
+    }
+
+    @Test
+    public void clearDropsOrphans() {
+        CountingWork cancelled = new CountingWork();
+        cancelled.cancelled = true;
+        registry.render(key(1), cancelled);
+
+        registry.clear();
+
+        CountingWork next = new CountingWork();
+        assertSame(next.bitmap, registry.render(key(1), next));
+    }
+
+    @Test
+    public void parkedContentIsAdoptedBeforeRelease() {
+        FakeContent content = new FakeContent();
+        registry.parkContent(PROVIDER, 2, content);
+
+        assertNull(registry.adoptContent(PROVIDER, 3));
+        assertSame(content, registry.adoptContent(PROVIDER, 2));
+        releaseExecutor.runPendingWork();
+        assertFalse(content.released);
+        assertNull(registry.adoptContent(PROVIDER, 2));
+    }
+
+    @Test
+    public void parkedContentIsReleasedUnlessAdopted() {
+        FakeContent content = new FakeContent();
+        registry.parkContent(PROVIDER, 2, content);
+
+        releaseExecutor.runPendingWork();
+        assertTrue(content.released);
+        assertNull(registry.adoptContent(PROVIDER, 2));
+    }
+
+    @Test
+    public void invalidateAndClearReleaseParkedContent() {
+        // 해제 시점이 오지 않게 해서 invalidate()와 clear()로만 해제되도록 함
+        ManualExecutor neverRun = new ManualExecutor();
+        FakeContent invalidated = new FakeContent(), kept = new FakeContent();
+        registry.parkContent(PROVIDER, 2, invalidated, neverRun);
+        registry.parkContent(PROVIDER, 5, kept, neverRun);
+
+        registry.invalidate(2);
+        releaseExecutor.runPendingWork();
+        assertTrue(invalidated.released);
+        assertFalse(kept.released);
+        assertNull(registry.adoptContent(PROVIDER, 2));
+
+        registry.clear();
+        releaseExecutor.runPendingWork();
+        assertTrue(kept.released);
+        assertNull(registry.adoptContent(PROVIDER, 5));
+    }
+
+    private static RenderRequestRegistry.Key key(int index) {
+        return new RenderRequestRegistry.Key(PROVIDER, index, 100, 100, 0, 0, 100, 100, false);
+    }
+
+    private RenderThread startRender(RenderRequestRegistry.Key key, RenderRequestRegistry.Work work) {
+        RenderThread thread = new RenderThread(key, work);
+        thread.start();
+        return thread;
+    }
+
+    private static void join(Thread... threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(TIMEOUT_MILLIS);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    private long getCoalescedRenderCount() {
+        return metrics.snapshot(0, 0, 0, 0, 0).getCoalescedRenderCount();
+    }
+
+    // 기다리는 쪽이 진행 중인 작업에 합류했는지는 합류할 때 남는 지표로 알 수 있음
+    private void awaitCoalescedRenders(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (getCoalescedRenderCount() < count) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private class RenderThread extends Thread {
+        private final RenderRequestRegistry.Key key;
+        private final RenderRequestRegistry.Work work;
+        volatile Bitmap result;
+
+        RenderThread(RenderRequestRegistry.Key key, RenderRequestRegistry.Work work) {
+            this.key = key;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            result = registry.render(key, work);
+        }
+    }
+
+    // 바로 그려서 돌려주는 작업
+    private static class CountingWork implements RenderRequestRegistry.Work {
+        final Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        final AtomicInteger renderCount = new AtomicInteger();
+        volatile boolean cancelled;
+
+        @Override
+        public Bitmap render() {
+            renderCount.incrementAndGet();
+            return bitmap;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    // finish()를 부를 때까지 그리는 중인 작업
+    private static class BlockingWork extends CountingWork {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        @Override
+        public Bitmap render() {
+            started.countDown();
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.render();
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+
+        void finish() {
+            finished.countDown();
+        }
+    }
+
+    private static class ManualExecutor implements Executor {
+        private final Queue<Runnable> pending = new LinkedList<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        void runPendingWork() {
+            Runnable command;
+            while ((command = poll()) != null) {
+                command.run();
+            }
+        }
+
+        private synchronized Runnable poll() {
+            return pending.poll();
+        }
+    }
+
+    private static class FakeProvider implements PageContentProvider {
+        @Override
+        public int getPageContentCount() {
+            return 10;
+        }
+
+        @Override
+        public SizeF getPageContentSize(int index) {
+            return new SizeF(100, 100);
+        }
+
+        @Override
+        public PageContent getPageContent(int index) {
+            return new FakeContent();
+        }
+    }
+
+    private static class FakeContent implements ReleasablePageContent {
+        volatile boolean released;
+
+        @Override
+        public SizeF getSize() {
+            return new SizeF(100, 100);
+        }
+
+        @Override
+        public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                     int pageWidth, int pageHeight, boolean forHighQuality) {
+            return null;
+        }
+
+        @Override
+        public List<Link> getLinkList() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void release() {
+            released = true;
+        }
+    }
+}
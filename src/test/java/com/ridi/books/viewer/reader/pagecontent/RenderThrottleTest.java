@@ -0,0 +1,72 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RenderThrottleTest {
+    @Test
+    public void noSourceMeansNoThrottle() {
+        assertSame(RenderThrottle.NONE, RenderThrottle.of(null));
+    }
+
+    @Test
+    public void coolDeviceIsNotThrottled() {
+        RenderThrottle throttle = RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_NONE, false));
+        assertSame(RenderThrottle.NONE, throttle);
+        assertEquals(1.0f, throttle.highQualityScale, 0);
+        assertEquals(Integer.MAX_VALUE, throttle.maxLookAhead);
+        assertEquals(Integer.MAX_VALUE, throttle.maxRenderThreads);
+
+        assertSame(RenderThrottle.NONE,
+                RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_LIGHT, false)));
+    }
+
+    @Test
+    public void moderateHeatReducesQualityAndLookAhead() {
+        RenderThrottle throttle = RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_MODERATE, false));
+        assertEquals(0.75f, throttle.highQualityScale, 0);
+        assertEquals(1, throttle.maxLookAhead);
+        assertEquals(1, throttle.maxRenderThreads);
+    }
+
+    @Test
+    public void powerSaveModeThrottlesLikeModerateHeat() {
+        RenderThrottle moderate = RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_MODERATE, false));
+        assertSame(moderate, RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_NONE, true)));
+        assertSame(moderate, RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_LIGHT, true)));
+    }
+
+    @Test
+    public void severeHeatStopsLookAhead() {
+        RenderThrottle throttle = RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_SEVERE, false));
+        assertEquals(0.5f, throttle.highQualityScale, 0);
+        assertEquals(0, throttle.maxLookAhead);
+        assertEquals(1, throttle.maxRenderThreads);
+
+        assertSame(throttle, RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_CRITICAL, false)));
+        // 절전 모드여도 열 상태가 더 심하면 그쪽을 따름
+        assertSame(throttle, RenderThrottle.of(new FakeSource(DeviceStatusSource.THERMAL_STATUS_SEVERE, true)));
+    }
+
+    private static class FakeSource implements DeviceStatusSource {
+        private final int thermalStatus;
+        private final boolean powerSaveMode;
+
+        FakeSource(int thermalStatus, boolean powerSaveMode) {
+            this.thermalStatus = thermalStatus;
+            this.powerSaveMode = powerSaveMode;
+        }
+
+        @Override
+        public int getThermalStatus() {
+            return thermalStatus;
+        }
+
+        @Override
+        public boolean isPowerSaveMode() {
+            return powerSaveMode;
+        }
+    }
+}
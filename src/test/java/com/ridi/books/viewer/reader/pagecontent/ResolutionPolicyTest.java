@@ -0,0 +1,61 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResolutionPolicyTest {
+    @Test
+    public void smallPageIsRenderedAsIs() {
+        ResolutionPolicy policy = new ResolutionPolicy.PixelBudget(4096L * 4096L, 4096);
+        PageContentView.Size size = new PageContentView.Size(1000, 1500);
+        assertSame(size, policy.calculateRenderSize(size));
+    }
+
+    @Test
+    public void pixelBudgetKeepsAspectRatio() {
+        ResolutionPolicy policy = new ResolutionPolicy.PixelBudget(1000L * 1000L, 4096);
+        PageContentView.Size renderSize = policy.calculateRenderSize(new PageContentView.Size(2000, 2000));
+        assertEquals(1000, renderSize.width, 1);
+        assertEquals(1000, renderSize.height, 1);
+        assertTrue((long) renderSize.width * renderSize.height <= 1000L * 1000L);
+    }
+
+    @Test
+    public void longSideIsCappedAtMaxDimension() {
+        ResolutionPolicy policy = new ResolutionPolicy.PixelBudget(Long.MAX_VALUE, 4096, Long.MAX_VALUE);
+        PageContentView.Size renderSize = policy.calculateRenderSize(new PageContentView.Size(1024, 8192));
+        assertEquals(512, renderSize.width);
+        assertEquals(4096, renderSize.height);
+    }
+
+    @Test
+    public void renderSizeIsNeverEmpty() {
+        ResolutionPolicy policy = new ResolutionPolicy.PixelBudget(100, 4096);
+        PageContentView.Size renderSize = policy.calculateRenderSize(new PageContentView.Size(100000, 10));
+        assertTrue(renderSize.width >= 1);
+        assertTrue(renderSize.height >= 1);
+    }
+
+    @Test
+    public void largeBitmapIsCappedByMaxHeap() {
+        // 64MB heap의 1/8은 2M 픽셀
+        ResolutionPolicy policy = new ResolutionPolicy.PixelBudget(Long.MAX_VALUE, 4096, 64L * 1024 * 1024);
+        PageContentView.Size renderSize = policy.calculateRenderSize(new PageContentView.Size(2048, 2048));
+        assertTrue((long) renderSize.width * renderSize.height <= 2L * 1024 * 1024);
+        assertEquals(renderSize.width, renderSize.height);
+    }
+
+    @Test
+    public void sameSizeAlwaysGivesSameRenderSize() {
+        ResolutionPolicy policy = new ResolutionPolicy.PixelBudget(1000L * 1000L, 4096);
+        // RenderRequestRegistry.Key와 미리 그린 bitmap의 크기가 맞으려면 heap 사용량과 무관해야 함
+        PageContentView.Size first = policy.calculateRenderSize(new PageContentView.Size(3000, 4000));
+        System.gc();
+        PageContentView.Size second = policy.calculateRenderSize(new PageContentView.Size(3000, 4000));
+
+        assertEquals(first, second);
+    }
+}
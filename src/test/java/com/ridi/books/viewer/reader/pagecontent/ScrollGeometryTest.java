@@ -0,0 +1,83 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ScrollGeometryTest {
+    @Test
+    public void boundsOfContentLargerThanScreen() {
+        int[] bounds = ScrollGeometry.getScrollBounds(1000, 800, 0, 0, 2000, 3000, false);
+
+        assertArrayEquals(new int[] {-1000, -2200, 0, 0}, bounds);
+    }
+
+    @Test
+    public void contentSmallerThanScreenIsCentered() {
+        int[] bounds = ScrollGeometry.getScrollBounds(1000, 800, 0, 0, 500, 400, false);
+
+        assertArrayEquals(new int[] {250, 200, 250, 200}, bounds);
+    }
+
+    @Test
+    public void scrollModeKeepsShortContentAtTop() {
+        int[] bounds = ScrollGeometry.getScrollBounds(1000, 800, 0, 0, 500, 400, true);
+
+        assertEquals(0, bounds[1]);
+        assertEquals(0, bounds[3]);
+        assertEquals(250, bounds[0]);
+    }
+
+    @Test
+    public void correctionPullsIntoRange() {
+        assertEquals(0, ScrollGeometry.getCorrection(-100, 0));
+        assertEquals(50, ScrollGeometry.getCorrection(50, 100));
+        assertEquals(-100, ScrollGeometry.getCorrection(-200, -100));
+    }
+
+    @Test
+    public void flexibleExtentSumsPageHeights() {
+        ScrollGeometry.PageSizes sizes = new ScrollGeometry.PageSizes() {
+            @Override
+            public SizeF getPageContentSize(int index) {
+                return index % 2 == 0 ? new SizeF(100, 200) : new SizeF(100, 400);
+            }
+        };
+
+        // 폭 200에 맞추면 높이는 400, 800, 400 이고 페이지마다 간격 10이 붙음
+        long[] extent = ScrollGeometry.getFlexibleScrollExtent(sizes, FitPolicy.Presets.WIDTH, 3, 2,
+                200, 300, 1f, 10, -50);
+
+        assertEquals(50 + 410 + 810, extent[0]);
+        assertEquals(410 + 810 + 410, extent[1]);
+    }
+
+    @Test
+    public void uniformExtent() {
+        long[] extent = ScrollGeometry.getUniformScrollExtent(5, 2, false, 10, 100, 1f, 4, -30);
+
+        assertEquals(10 + 2 * 104 + 30, extent[0]);
+        assertEquals(20 + 500 + 16, extent[1]);
+
+        long[] reversed = ScrollGeometry.getUniformScrollExtent(5, 1, true, 10, 100, 1f, 4, -30);
+        assertEquals(10 + 3 * 104 + 30, reversed[0]);
+    }
+
+    @Test
+    public void thumbIsProportional() {
+        float[] thumb = ScrollGeometry.getScrollBarThumb(500, 2000, 1000, 10);
+
+        assertEquals(250, thumb[0], 0.001f);
+        assertEquals(500, thumb[1], 0.001f);
+    }
+
+    @Test
+    public void shortThumbIsStretchedAndStillReachesEnd() {
+        long total = 1000000;
+        float[] thumb = ScrollGeometry.getScrollBarThumb(total - 1000, total, 1000, 10);
+
+        assertEquals(10, thumb[1], 0.001f);
+        assertEquals(1000, thumb[0] + thumb[1], 0.5f);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScrollPrefetchWindowTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 2000;
+
+    private ScrollPrefetchWindow window;
+
+    @Before
+    public void setUp() {
+        window = new ScrollPrefetchWindow();
+        window.setMemoryBudgetBytes(Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    public void idleWindowIsOneScreenEachSide() {
+        window.update(WIDTH, HEIGHT, 1.0f, 0, 0);
+        assertEquals(HEIGHT, window.getAbove());
+        assertEquals(HEIGHT, window.getBelow());
+    }
+
+    @Test
+    public void movingDownWidensAboveByHalfASecond() {
+        window.update(WIDTH, HEIGHT, 1.0f, 2000, 0);
+        assertEquals(HEIGHT + 1000, window.getAbove());
+        assertEquals(HEIGHT / 2, window.getBelow());
+    }
+
+    @Test
+    public void movingUpWidensBelow() {
+        window.update(WIDTH, HEIGHT, 1.0f, -2000, 0);
+        assertEquals(HEIGHT / 2, window.getAbove());
+        assertEquals(HEIGHT + 1000, window.getBelow());
+    }
+
+    @Test
+    public void aheadIsCappedAtFourScreens() {
+        window.update(WIDTH, HEIGHT, 1.0f, 1000000, 0);
+        assertEquals(HEIGHT * 4, window.getAbove());
+    }
+
+    @Test
+    public void lastScrollDirectionIsUsedWhenStopped() {
+        window.update(WIDTH, HEIGHT, 1.0f, 0, -1);
+        assertEquals(HEIGHT / 2, window.getAbove());
+        assertEquals(HEIGHT, window.getBelow());
+    }
+
+    @Test
+    public void windowScalesWithZoom() {
+        window.update(WIDTH, HEIGHT, 2.0f, 0, 0);
+        assertEquals(HEIGHT * 2, window.getAbove());
+        assertEquals(HEIGHT * 2, window.getBelow());
+    }
+
+    @Test
+    public void memoryBudgetLimitsWholeWindow() {
+        // 화면 한 장 + 3000px 만큼의 bitmap만 허용
+        window.setMemoryBudgetBytes((long) WIDTH * 4 * (HEIGHT + 3000));
+        window.update(WIDTH, HEIGHT, 1.0f, 4000, 0);
+        assertTrue(window.getAbove() + window.getBelow() <= 3000);
+        // 진행 방향이 먼저 남음
+        assertEquals(3000, window.getAbove());
+        assertEquals(0, window.getBelow());
+    }
+
+    @Test
+    public void exhaustedBudgetGivesEmptyWindow() {
+        window.setMemoryBudgetBytes((long) WIDTH * 4 * HEIGHT / 2);
+        window.update(WIDTH, HEIGHT, 1.0f, 0, 0);
+        assertEquals(0, window.getAbove());
+        assertEquals(0, window.getBelow());
+    }
+}
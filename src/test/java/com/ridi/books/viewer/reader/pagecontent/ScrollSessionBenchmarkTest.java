@@ -0,0 +1,119 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// 가짜 provider 위에서 정해진 제스처로 읽기 세션을 돌리고 렌더링 지표를 출력함
+// 백그라운드 작업은 ReaderViewHarness가 테스트 스레드에서 정해진 순서로 실행하고 시간은 모두 가상 시계이므로
+// 숫자는 실행할 때마다 같고, 스케줄링이나 cache가 바뀌면 숫자로 드러남
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ScrollSessionBenchmarkTest {
+    private static final int PAGE_COUNT = 120;
+    // 보통 페이지, 펼친 페이지, 세로로 긴 페이지가 섞인 책
+    private static final SizeF[] SIZE_CHOICES = {
+            new SizeF(600, 800), new SizeF(600, 800), new SizeF(1200, 800), new SizeF(600, 2400)
+    };
+    private static final long LOAD_MILLIS = 30;
+    private static final long RENDER_MILLIS_PER_MEGAPIXEL = 40;
+
+    @Test
+    public void pageModeFlings() {
+        ReaderViewHarness harness = start(false);
+        for (int i = 0; i < 10; i++) {
+            harness.flingForward();
+            harness.frames(300);
+        }
+        for (int i = 0; i < 4; i++) {
+            harness.flingBackward();
+            harness.frames(300);
+        }
+        RenderMetrics metrics = finish(harness, "page mode flings");
+
+        assertEquals(6, harness.view.getCurrentIndex());
+        assertTrue(metrics.getTimeToFirstPixel().getTotalCount() > 0);
+    }
+
+    @Test
+    public void scrollModeFlings() {
+        ReaderViewHarness harness = start(true);
+        for (int i = 0; i < 8; i++) {
+            harness.flingForward();
+            harness.frames(500);
+        }
+        harness.flingBackward();
+        RenderMetrics metrics = finish(harness, "scroll mode flings");
+
+        assertTrue(harness.view.getCurrentIndex() > 0);
+        assertTrue(metrics.getRenderStartedCount() > 0);
+    }
+
+    @Test
+    public void pinchesAndDoubleTaps() {
+        ReaderViewHarness harness = start(false);
+        float x = harness.view.getWidth() / 2f, y = harness.view.getHeight() / 2f;
+        harness.pinch(x, y, 100, 300, 200);
+        harness.frames(300);
+        harness.pinch(x, y, 300, 100, 200);
+        harness.frames(300);
+        harness.doubleTap(x, y);
+        harness.frames(500);
+        harness.doubleTap(x, y);
+        harness.frames(500);
+        finish(harness, "pinches and double taps");
+    }
+
+    @Test
+    public void scrollModePinchAndFling() {
+        ReaderViewHarness harness = start(true);
+        float x = harness.view.getWidth() / 2f, y = harness.view.getHeight() / 2f;
+        harness.pinch(x, y, 100, 250, 200);
+        harness.frames(300);
+        for (int i = 0; i < 4; i++) {
+            harness.flingForward();
+            harness.frames(500);
+        }
+        finish(harness, "scroll mode pinch and fling");
+    }
+
+    private static ReaderViewHarness start(boolean scrollMode) {
+        SyntheticPageContentProvider provider = new SyntheticPageContentProvider(PAGE_COUNT, SIZE_CHOICES, 7,
+                LOAD_MILLIS, RENDER_MILLIS_PER_MEGAPIXEL);
+        ReaderViewHarness harness = new ReaderViewHarness(provider, scrollMode);
+        harness.settle();
+        harness.view.resetRenderMetrics();
+        return harness;
+    }
+
+    // 세션이 끝나고 렌더링이 모두 정리된 뒤의 지표, 진행 중인 렌더링이 남아 있으면 안 됨
+    private static RenderMetrics finish(ReaderViewHarness harness, String name) {
+        harness.settle();
+        RenderMetrics metrics = harness.view.getRenderMetrics();
+        report(name, metrics);
+
+        assertEquals(metrics.getRenderStartedCount(),
+                metrics.getRenderCompletedCount() + metrics.getCancelledRenderCount());
+        assertTrue(metrics.getFrameCount() > 0);
+        assertTrue(metrics.getLayoutPassCount() > 0);
+        assertTrue(metrics.getPeakResidentBitmapBytes() >= metrics.getResidentBitmapBytes());
+        return metrics;
+    }
+
+    private static void report(String name, RenderMetrics metrics) {
+        LatencyHistogram timeToFirstPixel = metrics.getTimeToFirstPixel();
+        System.out.println(String.format("[%s] ttfp p50=%dms p90=%dms (%d turns)"
+                        + " renders started=%d completed=%d cancelled=%d coalesced=%d"
+                        + " frames=%d layouts=%d max layouts/frame=%d peak bitmap=%dKB",
+                name, timeToFirstPixel.getPercentileMillis(50), timeToFirstPixel.getPercentileMillis(90),
+                timeToFirstPixel.getTotalCount(),
+                metrics.getRenderStartedCount(), metrics.getRenderCompletedCount(),
+                metrics.getCancelledRenderCount(), metrics.getCoalescedRenderCount(),
+                metrics.getFrameCount(), metrics.getLayoutPassCount(), metrics.getMaxLayoutPassesPerFrame(),
+                metrics.getPeakResidentBitmapBytes() / 1024));
+    }
+}
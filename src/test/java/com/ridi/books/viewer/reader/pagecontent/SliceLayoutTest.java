@@ -0,0 +1,52 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SliceLayoutTest {
+    @Test
+    public void sliceCountRoundsUp() {
+        assertEquals(1, SliceLayout.getSliceCount(800, 800));
+        assertEquals(2, SliceLayout.getSliceCount(801, 800));
+        assertEquals(13, SliceLayout.getSliceCount(10000, 800));
+        assertEquals(0, SliceLayout.getSliceCount(0, 800));
+    }
+
+    @Test
+    public void lastSliceIsCutAtRenderHeight() {
+        assertEquals(9600, SliceLayout.getSliceTop(12, 800));
+        assertEquals(10000, SliceLayout.getSliceBottom(12, 800, 10000));
+        assertEquals(1600, SliceLayout.getSliceBottom(1, 800, 10000));
+    }
+
+    @Test
+    public void visibleRangeIsInRenderCoordinates() {
+        // 두 배로 확대되어 위로 1000만큼 밀려 있는 view
+        assertArrayEquals(new int[] {500, 900}, SliceLayout.getVisibleRange(-1000, 20000, 800, 10000));
+        // 화면 아래쪽에 걸쳐 위쪽만 보이는 view
+        assertArrayEquals(new int[] {0, 300}, SliceLayout.getVisibleRange(500, 10000, 800, 10000));
+    }
+
+    @Test
+    public void slicesWithinMarginAreResident() {
+        // 2400 ~ 3200이 보이면 위아래 한 화면(800)까지: 1600 ~ 4000에 걸치는 slice 2 ~ 4
+        assertArrayEquals(new int[] {2, 4}, SliceLayout.getResidentSlices(10000, 800, 2400, 3200, 800));
+        // 경계에 딱 닿기만 하는 slice는 들고 있지 않음
+        assertArrayEquals(new int[] {1, 4}, SliceLayout.getResidentSlices(10000, 800, 2399, 3200, 800));
+    }
+
+    @Test
+    public void residentSlicesAreClampedAtBothEnds() {
+        assertArrayEquals(new int[] {0, 1}, SliceLayout.getResidentSlices(10000, 800, 0, 800, 800));
+        assertArrayEquals(new int[] {10, 12}, SliceLayout.getResidentSlices(10000, 800, 9200, 10000, 800));
+    }
+
+    @Test
+    public void nothingIsResidentWhenPageIsFarAway() {
+        int[] resident = SliceLayout.getResidentSlices(10000, 800, 20000, 20800, 800);
+        assertTrue(resident[0] > resident[1]);
+    }
+}
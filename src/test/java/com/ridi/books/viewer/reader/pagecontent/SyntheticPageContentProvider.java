@@ -0,0 +1,83 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 불러오기 지연, 렌더링 비용, 페이지 크기 분포를 정할 수 있는 가짜 provider
+// 시간은 SystemClock.sleep()으로 흘려보내므로 Robolectric에서는 가상 시계만 움직이고 테스트는 느려지지 않음
+class SyntheticPageContentProvider implements RenderCostAwarePageContentProvider {
+    private final SizeF[] sizes;
+    private final long loadMillis;
+    private final long renderMillisPerMegapixel;
+    final AtomicInteger loadCount = new AtomicInteger();
+    final AtomicInteger renderCount = new AtomicInteger();
+
+    // 각 페이지의 크기는 sizeChoices 중에서 seed에 따라 고름
+    SyntheticPageContentProvider(int count, SizeF[] sizeChoices, long seed,
+                                 long loadMillis, long renderMillisPerMegapixel) {
+        Random random = new Random(seed);
+        this.sizes = new SizeF[count];
+        for (int i = 0; i < count; i++) {
+            sizes[i] = sizeChoices[random.nextInt(sizeChoices.length)];
+        }
+        this.loadMillis = loadMillis;
+        this.renderMillisPerMegapixel = renderMillisPerMegapixel;
+    }
+
+    @Override
+    public int getPageContentCount() {
+        return sizes.length;
+    }
+
+    @Override
+    public SizeF getPageContentSize(int index) {
+        return sizes[index];
+    }
+
+    @Override
+    public long getEstimatedRenderMillis(int index) {
+        return renderMillis((long) (sizes[index].width * sizes[index].height));
+    }
+
+    @Override
+    public PageContent getPageContent(int index) {
+        loadCount.incrementAndGet();
+        SystemClock.sleep(loadMillis);
+        return new SyntheticPageContent(sizes[index]);
+    }
+
+    private long renderMillis(long pixels) {
+        return renderMillisPerMegapixel * pixels / (1000 * 1000);
+    }
+
+    private class SyntheticPageContent implements PageContent {
+        private final SizeF size;
+
+        SyntheticPageContent(SizeF size) {
+            this.size = size;
+        }
+
+        @Override
+        public SizeF getSize() {
+            return size;
+        }
+
+        @Override
+        public Bitmap renderToBitmap(int bitmapWidth, int bitmapHeight, int startX, int startY,
+                                     int pageWidth, int pageHeight, boolean forHighQuality) {
+            renderCount.incrementAndGet();
+            SystemClock.sleep(renderMillis((long) bitmapWidth * bitmapHeight));
+            return Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+        }
+
+        @Override
+        public List<Link> getLinkList() {
+            return Collections.emptyList();
+        }
+    }
+}
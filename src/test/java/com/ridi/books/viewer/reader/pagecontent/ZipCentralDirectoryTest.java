@@ -0,0 +1,112 @@
+package com.ridi.books.viewer.reader.pagecontent;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ZipCentralDirectoryTest {
+    private static final byte[] FIRST = bytes(1000, 7);
+    private static final byte[] SECOND = bytes(5000, 13);
+
+    @Test
+    public void listsEntriesInArchiveOrder() throws IOException {
+        ZipCentralDirectory directory = new ZipCentralDirectory(archive(false, null));
+
+        List<ZipCentralDirectory.Entry> entries = directory.getEntries();
+        assertEquals(2, entries.size());
+        assertEquals("001.png", entries.get(0).name);
+        assertEquals("이미지/002.jpg", entries.get(1).name);
+        assertEquals(FIRST.length, entries.get(0).size);
+        assertEquals(SECOND.length, entries.get(1).size);
+    }
+
+    @Test
+    public void readsStoredEntries() throws IOException {
+        ZipCentralDirectory directory = new ZipCentralDirectory(archive(false, null));
+
+        ZipCentralDirectory.Entry entry = directory.getEntries().get(0);
+        assertEquals(ZipCentralDirectory.METHOD_STORED, entry.method);
+        assertArrayEquals(FIRST, directory.read(entry));
+        assertArrayEquals(FIRST, readFully(directory.openStream(entry)));
+    }
+
+    @Test
+    public void readsDeflatedEntries() throws IOException {
+        ZipCentralDirectory directory = new ZipCentralDirectory(archive(true, null));
+
+        ZipCentralDirectory.Entry entry = directory.getEntries().get(1);
+        assertEquals(ZipCentralDirectory.METHOD_DEFLATED, entry.method);
+        assertArrayEquals(SECOND, directory.read(entry));
+        assertArrayEquals(SECOND, readFully(directory.openStream(entry)));
+    }
+
+    @Test
+    public void findsDirectoryBehindArchiveComment() throws IOException {
+        ZipCentralDirectory directory = new ZipCentralDirectory(archive(true, "comment PK\u0005\u0006 inside"));
+
+        assertEquals(2, directory.getEntries().size());
+        assertArrayEquals(FIRST, directory.read(directory.getEntries().get(0)));
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsNonZipData() throws IOException {
+        new ZipCentralDirectory(ByteBuffer.wrap(bytes(100, 3)));
+    }
+
+    private static ByteBuffer archive(boolean deflate, String comment) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(bytes);
+        if (comment != null) {
+            zip.setComment(comment);
+        }
+        putEntry(zip, "001.png", FIRST, deflate);
+        putEntry(zip, "이미지/002.jpg", SECOND, deflate);
+        zip.close();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void putEntry(ZipOutputStream zip, String name, byte[] data, boolean deflate) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (!deflate) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ((i * seed) % 64);
+        }
+        return bytes;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[512];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}